@@ -1,16 +1,19 @@
 package com.bookend.authorservice.config;
 
 import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.TopicBuilder;
 
 @Configuration
 class KafkaTopicConfig {
+    @Value("${bookend.kafka.partitions:6}")
+    private int partitions;
 
     @Bean
     public NewTopic book() {
-        return TopicBuilder.name("adding-book").build();
+        return TopicBuilder.name("adding-book").partitions(partitions).build();
     }
 
 
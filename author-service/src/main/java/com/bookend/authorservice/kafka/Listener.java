@@ -2,17 +2,12 @@ package com.bookend.authorservice.kafka;
 
 import com.bookend.authorservice.exception.MandatoryFieldException;
 import com.bookend.authorservice.exception.NotFoundException;
-import com.bookend.authorservice.model.Author;
-import com.bookend.authorservice.model.Book;
 import com.bookend.authorservice.service.AuthorService;
 import com.bookend.authorservice.service.BookService;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
-import java.io.IOException;
 import java.util.Map;
 
 @Component
@@ -28,18 +23,11 @@ public class Listener {
         this.authorService = authorService;
     }
     @KafkaListener(topics = "adding-book",
-            groupId ="bookend-authorservice")
-    public void consumeBook(String message) {
-        System.out.println(message);
-        ObjectMapper mapper = new ObjectMapper();
+            groupId ="bookend-authorservice",
+            concurrency = "${bookend.kafka.concurrency.adding-book:1}")
+    public void consumeBook(Map<String,String> msg) {
         try {
-          Map<String,String> msg = mapper.readValue(message,Map.class);
-
           authorService.update(msg);
-        } catch (JsonProcessingException e) {
-            e.printStackTrace();
-        } catch (IOException e) {
-            e.printStackTrace();
         } catch (NotFoundException notFoundException) {
             notFoundException.printStackTrace();
         } catch (MandatoryFieldException e) {
@@ -48,13 +36,11 @@ public class Listener {
 
     }
     @KafkaListener(topics = "deleting-book",
-            groupId ="bookend-authorservice")
-    public void deleteBook(String message){
-
-        System.out.println(message);
-        String[] splited = message.split("\"");
+            groupId ="bookend-authorservice",
+            concurrency = "${bookend.kafka.concurrency.deleting-book:1}")
+    public void deleteBook(String bookId){
         try {
-            bookService.deleteByBookId(splited[1]);
+            bookService.deleteByBookId(bookId);
         } catch (NotFoundException e) {
             e.printStackTrace();
         }
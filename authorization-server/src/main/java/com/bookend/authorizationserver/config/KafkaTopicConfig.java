@@ -1,26 +1,29 @@
 package com.bookend.authorizationserver.config;
 
 import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.TopicBuilder;
 
 @Configuration
 class KafkaTopicConfig {
+    @Value("${bookend.kafka.partitions:6}")
+    private int partitions;
 
     @Bean
     public NewTopic userRegistered() {
-        return TopicBuilder.name("user-registered").build();
+        return TopicBuilder.name("user-registered").partitions(partitions).build();
     }
 
     @Bean
     public NewTopic confirmationMail() {
-        return TopicBuilder.name("confirmation-mail").build();
+        return TopicBuilder.name("confirmation-mail").partitions(partitions).build();
     }
     
     @Bean
     public NewTopic resetPasswordMail() {
-        return TopicBuilder.name("resetPassword-mail").build();
+        return TopicBuilder.name("resetPassword-mail").partitions(partitions).build();
     }
 
 }
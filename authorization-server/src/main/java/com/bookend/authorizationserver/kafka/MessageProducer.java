@@ -20,19 +20,19 @@ public class MessageProducer {
     public void sendConfirmationMailRequest(MailRequest mailRequest) {
 
         LOGGER.info("sending book='{}' to topic='{}'", mailRequest, "confirmation-mail");
-        kafkaTemplate.send("confirmation-mail", mailRequest);
+        kafkaTemplate.send("confirmation-mail", mailRequest.getEmail(), mailRequest);
     }
 
     public void sendUserInformation(KafkaUserRegistered kafkaUserRegistered) {
 
         LOGGER.info("sending book='{}' to topic='{}'", kafkaUserRegistered, "user-registered");
-        kafkaTemplate.send("user-registered", kafkaUserRegistered);
+        kafkaTemplate.send("user-registered", String.valueOf(kafkaUserRegistered.getId()), kafkaUserRegistered);
     }
     
     public void sendResetPasswordMailRequest(MailRequest mailRequest) {
 
         LOGGER.info("sending mail='{}' to topic='{}'", mailRequest, "resetPassword-mail");
-        kafkaTemplate.send("resetPassword-mail", mailRequest);
+        kafkaTemplate.send("resetPassword-mail", mailRequest.getEmail(), mailRequest);
     }
 
 
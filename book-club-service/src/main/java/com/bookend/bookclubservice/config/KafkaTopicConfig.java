@@ -1,21 +1,29 @@
 package com.bookend.bookclubservice.config;
 
 import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.TopicBuilder;
 
 @Configuration
 class KafkaTopicConfig {
+    @Value("${bookend.kafka.partitions:6}")
+    private int partitions;
 
     @Bean
     public NewTopic userRegistered() {
-        return TopicBuilder.name("user-registered").build();
+        return TopicBuilder.name("user-registered").partitions(partitions).build();
     }
 
     @Bean
     public NewTopic comment() {
-        return TopicBuilder.name("comment").build();
+        return TopicBuilder.name("comment").partitions(partitions).build();
+    }
+
+    @Bean
+    public NewTopic mail() {
+        return TopicBuilder.name("Mail").partitions(partitions).build();
     }
 
 
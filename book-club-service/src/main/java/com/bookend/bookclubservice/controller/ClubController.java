@@ -1,13 +1,19 @@
 package com.bookend.bookclubservice.controller;
 
+import com.bookend.bookclubservice.expection.ClubAlreadyExistException;
 import com.bookend.bookclubservice.expection.NotMemberException;
+import com.bookend.bookclubservice.expection.NotOwnerException;
 
 import com.bookend.bookclubservice.model.Club;
 import com.bookend.bookclubservice.model.Invitation;
 import com.bookend.bookclubservice.model.Member;
 import com.bookend.bookclubservice.model.Post;
+import com.bookend.bookclubservice.payload.BulkInvitationResponse;
+import com.bookend.bookclubservice.payload.ClubPage;
 import com.bookend.bookclubservice.payload.MessageResponse;
+import com.bookend.bookclubservice.payload.PostPage;
 
+import com.bookend.bookclubservice.service.ClubMembershipService;
 import com.bookend.bookclubservice.service.ClubService;
 import com.bookend.bookclubservice.service.MemberService;
 import com.bookend.bookclubservice.payload.request.*;
@@ -36,6 +42,8 @@ public class ClubController {
     private ClubService clubService;
     @Autowired
     private MemberService memberService;
+    @Autowired
+    private ClubMembershipService clubMembershipService;
 
     /**
      * BCS-CC-1 (CM_12)
@@ -53,6 +61,23 @@ public class ClubController {
                 .collect(Collectors.toList());
         return publicClubs;
     }
+    /**
+     * BCS-CC-14 (CM_72)
+     */
+    @ApiOperation(value = "Get a page of the club directory", response = ClubPage.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully retrieved club page"),
+            @ApiResponse(code = 400, message = "Invalid page size or cursor."),
+            @ApiResponse(code = 401, message = "You are not authorized to view resource.")
+    })
+    @GetMapping(value = "/", params = "size")
+    public ClubPage getClubDirectory(@RequestParam int size, @RequestParam(required = false) String cursor){
+        try {
+            return clubService.getClubDirectory(size,cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,e.getMessage());
+        }
+    }
     /**
      * BCS-CC-2 (CM_13)
      */
@@ -100,6 +125,63 @@ public class ClubController {
     public List<Post> getClubPosts(@PathVariable("club-id") Long clubId){
         return clubService.getClubPosts(clubId);
     }
+    /**
+     * BCS-CC-15 (CM_73)
+     */
+    @ApiOperation(value = "Get a page of club's posts, newest first", response = PostPage.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully retrieved post page"),
+            @ApiResponse(code = 400, message = "Invalid page size or cursor."),
+            @ApiResponse(code = 401, message = "You are not authorized to view resource.")
+    })
+    @GetMapping(value = "/{club-id}/posts", params = "size")
+    public PostPage getClubPostPage(@PathVariable("club-id") Long clubId,
+                                    @RequestParam int size,
+                                    @RequestParam(required = false) String before){
+        try {
+            return clubService.getClubPosts(clubId,size,before);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,e.getMessage());
+        }
+    }
+    /**
+     * BCS-CC-16 (CM_74)
+     */
+    @ApiOperation(value = "Get a page of member's posts, newest first", response = PostPage.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully retrieved post page"),
+            @ApiResponse(code = 400, message = "Unknown member, invalid page size or cursor."),
+            @ApiResponse(code = 401, message = "You are not authorized to view resource.")
+    })
+    @GetMapping(value = "/member/{username}/posts", params = "size")
+    public PostPage getWriterPostPage(@PathVariable("username") String username,
+                                      @RequestParam int size,
+                                      @RequestParam(required = false) String before){
+        try {
+            return clubService.getWriterPosts(username,size,before);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,e.getMessage());
+        }
+    }
+    /**
+     * BCS-CC-17 (CM_75)
+     */
+    @ApiOperation(value = "Get a page of the newest posts across the user's clubs", response = PostPage.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully retrieved post page"),
+            @ApiResponse(code = 400, message = "Invalid page size or cursor."),
+            @ApiResponse(code = 401, message = "You are not authorized to view resource.")
+    })
+    @GetMapping("/feed")
+    public PostPage getMemberFeed(@RequestParam(defaultValue = "20") int size,
+                                  @RequestParam(required = false) String before,
+                                  OAuth2Authentication auth){
+        try {
+            return clubService.getMemberFeed(auth.getName(),size,before);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,e.getMessage());
+        }
+    }
     /**
      * BCS-CC-5 (CM_16)
      */
@@ -151,6 +233,9 @@ public class ClubController {
             }
             return ResponseEntity.ok(club);
         }
+        catch (ClubAlreadyExistException clubAlreadyExistException) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,"Club name is already in use");
+        }
         catch (IllegalArgumentException illegalArgumentException) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST,illegalArgumentException.getMessage());
         }
@@ -196,6 +281,29 @@ public class ClubController {
         }
         return ResponseEntity.ok(new MessageResponse("request sent successfully"));
     }
+    /**
+     * BCS-CC-18 (CM_76)
+     */
+    @ApiOperation(value = "Invite many users to the private club at once", response = BulkInvitationResponse.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Invitations sent"),
+            @ApiResponse(code = 400, message = "Missing or unknown club, or no or too many users."),
+            @ApiResponse(code = 401, message = "You are not authorized to view resource."),
+            @ApiResponse(code = 403, message = "Only the owner of the club can invite people.")
+    })
+    @PostMapping("/invite-people")
+    public ResponseEntity<?> invitePeople(@RequestBody BulkInvitationRequest bulkInvitationRequest,
+                                          OAuth2Authentication auth){
+        try{
+            return ResponseEntity.ok(clubService.inviteAll(bulkInvitationRequest,auth.getName()));
+        }
+        catch (IllegalArgumentException illegalArgumentException) {
+            return ResponseEntity.badRequest().body(new MessageResponse(illegalArgumentException.getMessage()));
+        }
+        catch (NotOwnerException notOwnerException) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN,notOwnerException.getMessage());
+        }
+    }
     /**
      * BCS-CC-10 (CM_21)
      */
@@ -253,10 +361,7 @@ public class ClubController {
         Club club = post.getClub();
         commentRequest.setUsername(auth.getName());
         boolean isOwner = club.getOwner().getUserName().equalsIgnoreCase(auth.getName());
-        boolean isMember = club.getMembers()
-                .stream()
-                .anyMatch(m -> m.getUserName().equalsIgnoreCase(auth.getName()));
-        if(!isMember && !isOwner){
+        if(!isOwner && !clubMembershipService.isMember(club.getId(),auth.getName())){
             throw new ResponseStatusException(HttpStatus.FORBIDDEN,"Only members can comment a post.");
         }
         clubService.sendComment(commentRequest);
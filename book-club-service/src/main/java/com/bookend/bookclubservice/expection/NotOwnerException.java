@@ -0,0 +1,8 @@
+package com.bookend.bookclubservice.expection;
+
+public class NotOwnerException extends Exception {
+
+    public NotOwnerException(String message) {
+        super(message);
+    }
+}
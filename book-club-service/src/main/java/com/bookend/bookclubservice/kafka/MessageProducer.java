@@ -8,6 +8,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Component
 public class MessageProducer {
 
@@ -21,11 +23,25 @@ public class MessageProducer {
     public void sendMailRequest(MailRequest mailRequest) {
 
         LOGGER.info("sending book='{}' to topic='{}'", mailRequest, "Mail");
-        kafkaTemplate.send("Mail", mailRequest);
+        kafkaTemplate.send("Mail", String.valueOf(mailRequest.getId()), mailRequest);
+    }
+    /**
+     * Hands all mail requests to the producer before waiting once for them to be sent, so they leave
+     * in as few produce requests as the producer's batching allows.
+     */
+    public void sendMailRequests(List<MailRequest> mailRequests) {
+        if (mailRequests.isEmpty()) {
+            return;
+        }
+        LOGGER.info("sending {} mail requests to topic='{}'", mailRequests.size(), "Mail");
+        for (MailRequest mailRequest : mailRequests) {
+            kafkaTemplate.send("Mail", String.valueOf(mailRequest.getId()), mailRequest);
+        }
+        kafkaTemplate.flush();
     }
     public void sendCommentRequest(CommentRequest commentRequest) {
 
         LOGGER.info("sending book='{}' to topic='{}'", commentRequest, "comment");
-        kafkaTemplate.send("comment", commentRequest);
+        kafkaTemplate.send("comment", String.valueOf(commentRequest.getPostID()), commentRequest);
     }
 }
@@ -1,12 +1,15 @@
 package com.bookend.bookclubservice.model;
 
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "clubs")
+@Table(name = "clubs", uniqueConstraints =
+        @UniqueConstraint(name = "uk_clubs_normalized_name", columnNames = "normalizedName"))
 public class Club {
 
     @Id
@@ -15,6 +18,10 @@ public class Club {
 
     private String clubName;
 
+    // clubName trimmed and in lower case, kept in step by the entity callbacks below
+    @JsonIgnore
+    private String normalizedName;
+
     private String description;
 
     @ManyToOne
@@ -27,7 +34,8 @@ public class Club {
     @JoinTable(
             name = "club_member",
             joinColumns = @JoinColumn(name = "club_id"),
-            inverseJoinColumns = @JoinColumn(name = "member_id"))
+            inverseJoinColumns = @JoinColumn(name = "member_id"),
+            uniqueConstraints = @UniqueConstraint(name = "uk_club_member_club_member", columnNames = {"club_id", "member_id"}))
     private List<Member> members;
 
     @ManyToMany
@@ -110,6 +118,20 @@ public class Club {
         this.postMembers = postMembers;
     }
 
+    public String getNormalizedName() {
+        return normalizedName;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void normalizeName() {
+        this.normalizedName = normalize(clubName);
+    }
+
+    public static String normalize(String clubName) {
+        return clubName == null ? null : clubName.trim().toLowerCase();
+    }
+
     public Member getOwner() {
         return owner;
     }
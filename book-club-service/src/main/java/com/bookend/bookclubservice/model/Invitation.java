@@ -3,7 +3,8 @@ package com.bookend.bookclubservice.model;
 import javax.persistence.*;
 
 @Entity
-@Table(name = "invitations")
+@Table(name = "invitations", uniqueConstraints =
+        @UniqueConstraint(name = "uk_invitations_club_invited", columnNames = {"club_id", "invitedPerson_id"}))
 public class Invitation {
 
     @Id
@@ -11,9 +12,12 @@ public class Invitation {
     private Long id;
 
     @ManyToOne
+    @JoinColumn(name = "club_id")
     private Club club;
 
+    // column names are spelled out because InvitationRepositoryImpl inserts rows with plain JDBC
     @ManyToOne
+    @JoinColumn(name = "invitedPerson_id")
     private Member invitedPerson;
 
     public Invitation() {
@@ -7,7 +7,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "members")
+@Table(name = "members", indexes = @Index(name = "idx_members_username", columnList = "userName"))
 public class Member {
 
     @Id
@@ -7,7 +7,9 @@ import javax.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "posts")
+@Table(name = "posts", indexes = {
+        @Index(name = "idx_posts_club_date_id", columnList = "club_id, date desc, id desc"),
+        @Index(name = "idx_posts_writer_date_id", columnList = "writer_id, date desc, id desc")})
 public class Post {
 
     @Id
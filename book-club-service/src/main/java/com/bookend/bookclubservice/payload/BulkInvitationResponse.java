@@ -0,0 +1,30 @@
+package com.bookend.bookclubservice.payload;
+
+import java.util.List;
+
+public class BulkInvitationResponse {
+
+    private List<String> invited;
+
+    private List<String> skipped;
+
+    private List<String> notFound;
+
+    public BulkInvitationResponse(List<String> invited, List<String> skipped, List<String> notFound) {
+        this.invited = invited;
+        this.skipped = skipped;
+        this.notFound = notFound;
+    }
+
+    public List<String> getInvited() {
+        return invited;
+    }
+
+    public List<String> getSkipped() {
+        return skipped;
+    }
+
+    public List<String> getNotFound() {
+        return notFound;
+    }
+}
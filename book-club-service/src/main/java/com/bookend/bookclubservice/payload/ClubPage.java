@@ -0,0 +1,30 @@
+package com.bookend.bookclubservice.payload;
+
+import java.util.List;
+
+public class ClubPage {
+
+    private List<ClubSummary> clubs;
+
+    private Integer size;
+
+    private String nextCursor;
+
+    public ClubPage(List<ClubSummary> clubs, Integer size, String nextCursor) {
+        this.clubs = clubs;
+        this.size = size;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<ClubSummary> getClubs() {
+        return clubs;
+    }
+
+    public Integer getSize() {
+        return size;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,35 @@
+package com.bookend.bookclubservice.payload;
+
+public class ClubSummary {
+
+    private Long id;
+
+    private String clubName;
+
+    private Long memberCount;
+
+    private boolean isPrivate;
+
+    public ClubSummary(Long id, String clubName, Long memberCount, boolean isPrivate) {
+        this.id = id;
+        this.clubName = clubName;
+        this.memberCount = memberCount;
+        this.isPrivate = isPrivate;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getClubName() {
+        return clubName;
+    }
+
+    public Long getMemberCount() {
+        return memberCount;
+    }
+
+    public boolean isPrivate() {
+        return isPrivate;
+    }
+}
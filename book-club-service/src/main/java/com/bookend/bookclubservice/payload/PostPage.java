@@ -0,0 +1,30 @@
+package com.bookend.bookclubservice.payload;
+
+import java.util.List;
+
+public class PostPage {
+
+    private List<PostView> posts;
+
+    private Integer size;
+
+    private String nextCursor;
+
+    public PostPage(List<PostView> posts, Integer size, String nextCursor) {
+        this.posts = posts;
+        this.size = size;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<PostView> getPosts() {
+        return posts;
+    }
+
+    public Integer getSize() {
+        return size;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,61 @@
+package com.bookend.bookclubservice.payload;
+
+import java.time.LocalDateTime;
+
+/**
+ * A post as the feeds show it, with its club and writer reduced to their ids and the writer's name.
+ */
+public class PostView {
+
+    private Long id;
+
+    private String title;
+
+    private String text;
+
+    private LocalDateTime date;
+
+    private Long clubId;
+
+    private Long writerId;
+
+    private String writerUserName;
+
+    public PostView(Long id, String title, String text, LocalDateTime date, Long clubId, Long writerId, String writerUserName) {
+        this.id = id;
+        this.title = title;
+        this.text = text;
+        this.date = date;
+        this.clubId = clubId;
+        this.writerId = writerId;
+        this.writerUserName = writerUserName;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public LocalDateTime getDate() {
+        return date;
+    }
+
+    public Long getClubId() {
+        return clubId;
+    }
+
+    public Long getWriterId() {
+        return writerId;
+    }
+
+    public String getWriterUserName() {
+        return writerUserName;
+    }
+}
@@ -0,0 +1,33 @@
+package com.bookend.bookclubservice.payload.request;
+
+import java.util.List;
+
+public class BulkInvitationRequest {
+
+    private Long clubId;
+    private List<String> invitedPersonUserNames;
+
+    public BulkInvitationRequest(Long clubId, List<String> invitedPersonUserNames) {
+        this.clubId = clubId;
+        this.invitedPersonUserNames = invitedPersonUserNames;
+    }
+
+    public BulkInvitationRequest() {
+    }
+
+    public Long getClubId() {
+        return clubId;
+    }
+
+    public void setClubId(Long clubId) {
+        this.clubId = clubId;
+    }
+
+    public List<String> getInvitedPersonUserNames() {
+        return invitedPersonUserNames;
+    }
+
+    public void setInvitedPersonUserNames(List<String> invitedPersonUserNames) {
+        this.invitedPersonUserNames = invitedPersonUserNames;
+    }
+}
@@ -2,8 +2,14 @@ package com.bookend.bookclubservice.repository;
 
 import com.bookend.bookclubservice.model.Club;
 import com.bookend.bookclubservice.model.Member;
+import com.bookend.bookclubservice.payload.ClubSummary;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -12,6 +18,47 @@ public interface ClubRepository extends JpaRepository<Club,Long> {
 
     List<Club> findByOwner(Member owner);
     Club findClubById(Long clubId);
+    boolean existsByNormalizedName(String normalizedName);
+
+    @Query("select c.id from Club c join c.members m where m.id = :memberId")
+    List<Long> findMembershipClubIds(@Param("memberId") Long memberId);
+
+    @Query("select c.id from Club c where c.owner.id = :ownerId")
+    List<Long> findOwnedClubIds(@Param("ownerId") Long ownerId);
+
+    @Query("select new com.bookend.bookclubservice.payload.ClubSummary(c.id, c.clubName, count(m), c.isPrivate) " +
+            "from Club c left join c.members m where c.isPrivate = false " +
+            "group by c.id, c.clubName, c.isPrivate order by c.id")
+    List<ClubSummary> findPublicSummaries(Pageable pageable);
+
+    @Query("select new com.bookend.bookclubservice.payload.ClubSummary(c.id, c.clubName, count(m), c.isPrivate) " +
+            "from Club c left join c.members m where c.isPrivate = false and c.id > :after " +
+            "group by c.id, c.clubName, c.isPrivate order by c.id")
+    List<ClubSummary> findPublicSummariesAfter(@Param("after") Long after, Pageable pageable);
+
+    @Query(value = "select count(*) from club_member where club_id = :clubId and member_id = :memberId", nativeQuery = true)
+    long countMembership(@Param("clubId") Long clubId, @Param("memberId") Long memberId);
+
+    /**
+     * Adds the membership unless it exists already, two joins racing for it leave a single row.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "insert ignore into club_member (club_id, member_id) values (:clubId, :memberId)", nativeQuery = true)
+    int insertMembership(@Param("clubId") Long clubId, @Param("memberId") Long memberId);
+
+    @Transactional
+    @Modifying
+    @Query(value = "delete from club_member where club_id = :clubId and member_id = :memberId", nativeQuery = true)
+    int deleteMembership(@Param("clubId") Long clubId, @Param("memberId") Long memberId);
+
+    /**
+     * Fills the normalised name of clubs created before the column existed.
+     */
+    @Transactional
+    @Modifying
+    @Query("update Club c set c.normalizedName = lower(trim(c.clubName)) where c.normalizedName is null")
+    int backfillNormalizedNames();
 
 
 
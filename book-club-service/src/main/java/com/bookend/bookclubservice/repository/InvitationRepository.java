@@ -4,15 +4,21 @@ import com.bookend.bookclubservice.model.Club;
 import com.bookend.bookclubservice.model.Invitation;
 import com.bookend.bookclubservice.model.Member;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface InvitationRepository extends JpaRepository<Invitation,Long> {
+public interface InvitationRepository extends JpaRepository<Invitation,Long>, InvitationRepositoryCustom {
 
     List<Invitation> findByClubId(Long clubId);
     List<Invitation> findInvitationsByInvitedPerson(Member username);
     Invitation findByClubAndInvitedPerson(Club club, Member member);
 
+    @Query("select i.invitedPerson.id from Invitation i where i.club.id = :clubId and i.invitedPerson.id in :memberIds")
+    List<Long> findInvitedMemberIds(@Param("clubId") Long clubId, @Param("memberIds") Collection<Long> memberIds);
+
 }
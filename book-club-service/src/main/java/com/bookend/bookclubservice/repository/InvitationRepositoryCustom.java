@@ -0,0 +1,10 @@
+package com.bookend.bookclubservice.repository;
+
+import java.util.Collection;
+
+public interface InvitationRepositoryCustom {
+    /**
+     * Inserts an invitation to the club for every member in one JDBC batch, skipping members already invited.
+     */
+    void insertAll(Long clubId, Collection<Long> memberIds);
+}
@@ -0,0 +1,33 @@
+package com.bookend.bookclubservice.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+
+public class InvitationRepositoryImpl implements InvitationRepositoryCustom {
+    private static final int BATCH_SIZE = 500;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public void setJdbcTemplate(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    @Transactional
+    public void insertAll(Long clubId, Collection<Long> memberIds) {
+        if (memberIds.isEmpty()) {
+            return;
+        }
+        // IDENTITY ids keep Hibernate from batching inserts, JDBC batches them and the driver rewrites
+        // each batch into one multi-row insert. Members a concurrent request invited first are left as they are.
+        jdbcTemplate.batchUpdate("insert ignore into invitations (club_id, invitedPerson_id) values (?, ?)",
+                memberIds, BATCH_SIZE, (statement, memberId) -> {
+                    statement.setLong(1, clubId);
+                    statement.setLong(2, memberId);
+                });
+    }
+}
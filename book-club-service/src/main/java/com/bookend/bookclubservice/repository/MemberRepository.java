@@ -4,8 +4,12 @@ import com.bookend.bookclubservice.model.Member;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface MemberRepository extends JpaRepository<Member,Long> {
 
     Member findByUserName(String userName);
+    List<Member> findByUserNameIn(Collection<String> userNames);
 }
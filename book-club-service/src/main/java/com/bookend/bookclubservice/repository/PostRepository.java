@@ -2,16 +2,41 @@ package com.bookend.bookclubservice.repository;
 
 import com.bookend.bookclubservice.model.Member;
 import com.bookend.bookclubservice.model.Post;
+import com.bookend.bookclubservice.payload.PostView;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface PostRepository extends JpaRepository<Post,Long> {
+public interface PostRepository extends JpaRepository<Post,Long>, PostRepositoryCustom {
 
     List<Post> findByWriter(Member writer);
     List<Post> findByClubId(Long clubId);
     Post findPostById(Long postId);
 
+    @Query("select new com.bookend.bookclubservice.payload.PostView(p.id, p.title, p.text, p.date, p.club.id, w.id, w.userName) " +
+            "from Post p join p.writer w where p.club.id = :clubId order by p.date desc, p.id desc")
+    List<PostView> findClubFeed(@Param("clubId") Long clubId, Pageable pageable);
+
+    @Query("select new com.bookend.bookclubservice.payload.PostView(p.id, p.title, p.text, p.date, p.club.id, w.id, w.userName) " +
+            "from Post p join p.writer w where p.club.id = :clubId " +
+            "and (p.date < :beforeDate or (p.date = :beforeDate and p.id < :beforeId)) order by p.date desc, p.id desc")
+    List<PostView> findClubFeedBefore(@Param("clubId") Long clubId, @Param("beforeDate") LocalDateTime beforeDate,
+                                      @Param("beforeId") Long beforeId, Pageable pageable);
+
+    @Query("select new com.bookend.bookclubservice.payload.PostView(p.id, p.title, p.text, p.date, p.club.id, w.id, w.userName) " +
+            "from Post p join p.writer w where w.id = :writerId order by p.date desc, p.id desc")
+    List<PostView> findWriterFeed(@Param("writerId") Long writerId, Pageable pageable);
+
+    @Query("select new com.bookend.bookclubservice.payload.PostView(p.id, p.title, p.text, p.date, p.club.id, w.id, w.userName) " +
+            "from Post p join p.writer w where w.id = :writerId " +
+            "and (p.date < :beforeDate or (p.date = :beforeDate and p.id < :beforeId)) order by p.date desc, p.id desc")
+    List<PostView> findWriterFeedBefore(@Param("writerId") Long writerId, @Param("beforeDate") LocalDateTime beforeDate,
+                                        @Param("beforeId") Long beforeId, Pageable pageable);
+
 }
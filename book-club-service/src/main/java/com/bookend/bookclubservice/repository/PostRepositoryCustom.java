@@ -0,0 +1,15 @@
+package com.bookend.bookclubservice.repository;
+
+import com.bookend.bookclubservice.payload.PostView;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface PostRepositoryCustom {
+    /**
+     * Reads the newest {@code limit} posts of every club below the given post, or from the top when
+     * {@code beforeDate} is null, in one statement. The posts come grouped by club, each club's newest first.
+     */
+    List<PostView> findClubFeeds(Collection<Long> clubIds, LocalDateTime beforeDate, Long beforeId, int limit);
+}
@@ -0,0 +1,76 @@
+package com.bookend.bookclubservice.repository;
+
+import com.bookend.bookclubservice.payload.PostView;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+public class PostRepositoryImpl implements PostRepositoryCustom {
+    // keeps a statement for a member of very many clubs to a reasonable size
+    private static final int CLUBS_PER_STATEMENT = 100;
+    private static final String CLUB_FEED = "(select p.id, p.title, p.text, p.date, p.club_id as clubId, " +
+            "w.id as writerId, w.userName as writerUserName from posts p join members w on w.id = p.writer_id " +
+            "where p.club_id = ?";
+    private static final String BEFORE = " and (p.date < ? or (p.date = ? and p.id < ?))";
+    private static final String NEWEST_FIRST = " order by p.date desc, p.id desc limit ?)";
+    private static final RowMapper<PostView> POST_VIEW = (rs, rowNum) -> new PostView(
+            rs.getLong("id"), rs.getString("title"), rs.getString("text"),
+            rs.getTimestamp("date").toLocalDateTime(), rs.getLong("clubId"),
+            rs.getLong("writerId"), rs.getString("writerUserName"));
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public void setJdbcTemplate(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<PostView> findClubFeeds(Collection<Long> clubIds, LocalDateTime beforeDate, Long beforeId, int limit) {
+        List<PostView> posts = new ArrayList<>();
+        List<Long> statementClubs = new ArrayList<>(Math.min(clubIds.size(), CLUBS_PER_STATEMENT));
+        for (Long clubId : clubIds) {
+            statementClubs.add(clubId);
+            if (statementClubs.size() == CLUBS_PER_STATEMENT) {
+                posts.addAll(query(statementClubs, beforeDate, beforeId, limit));
+                statementClubs.clear();
+            }
+        }
+        if (!statementClubs.isEmpty()) {
+            posts.addAll(query(statementClubs, beforeDate, beforeId, limit));
+        }
+        return posts;
+    }
+
+    /**
+     * One limited subquery per club, each a short read of the (club_id, date, id) index, joined with union all.
+     */
+    private List<PostView> query(List<Long> clubIds, LocalDateTime beforeDate, Long beforeId, int limit) {
+        StringBuilder sql = new StringBuilder();
+        List<Object> args = new ArrayList<>();
+        for (Long clubId : clubIds) {
+            if (sql.length() > 0) {
+                sql.append(" union all ");
+            }
+            sql.append(CLUB_FEED);
+            args.add(clubId);
+            if (beforeDate != null) {
+                sql.append(BEFORE);
+                args.add(Timestamp.valueOf(beforeDate));
+                args.add(Timestamp.valueOf(beforeDate));
+                args.add(beforeId);
+            }
+            sql.append(NEWEST_FIRST);
+            args.add(limit);
+        }
+        // the order of the subqueries' rows is only kept by ordering the union itself
+        sql.append(" order by clubId, date desc, id desc");
+        return jdbcTemplate.query(sql.toString(), POST_VIEW, args.toArray());
+    }
+}
@@ -0,0 +1,130 @@
+package com.bookend.bookclubservice.service;
+
+import com.bookend.bookclubservice.model.Member;
+import com.bookend.bookclubservice.repository.ClubRepository;
+import com.bookend.bookclubservice.repository.MemberRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ABCS-CMSC stands for BookclubService-ClubMembershipServiceClass
+ * SM stands for ServiceMethod
+ *
+ * Answers whether a member belongs to a club with one probe of the club_member index instead of loading
+ * the club's members. Memberships that were found are kept in a bounded least recently used cache, which
+ * joins fill and leaves evict. Only memberships are cached, never their absence, so a member who joined
+ * through another instance is never turned away.
+ */
+@Service
+public class ClubMembershipService {
+
+    @Autowired
+    private ClubRepository clubRepository;
+    @Autowired
+    private MemberRepository memberRepository;
+
+    private int cacheSize = 10000;
+    private Map<Key, Boolean> memberships;
+    // moved on by every leave, a probe that raced with one does not cache what it read
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Value("${bookend.club.membership-cache-size:10000}")
+    public void setCacheSize(int cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * ABCS-CMSC-1 (SM_113)
+     */
+    public boolean isMember(Long clubId, Long memberId){
+        if(clubId==null || memberId==null){
+            return false;
+        }
+        Key key = new Key(clubId,memberId);
+        if(cached(key)){
+            return true;
+        }
+        long seen = evictions.get();
+        boolean member = clubRepository.countMembership(clubId,memberId)>0;
+        if(member){
+            synchronized (this) {
+                if(evictions.get()==seen){
+                    memberships().put(key,Boolean.TRUE);
+                }
+            }
+        }
+        return member;
+    }
+    /**
+     * ABCS-CMSC-2 (SM_114)
+     */
+    public boolean isMember(Long clubId, String userName){
+        Member member = memberRepository.findByUserName(userName);
+        return member!=null && isMember(clubId,member.getId());
+    }
+    /**
+     * ABCS-CMSC-3 (SM_115)
+     */
+    public void join(Long clubId, Long memberId){
+        clubRepository.insertMembership(clubId,memberId);
+        synchronized (this) {
+            memberships().put(new Key(clubId,memberId),Boolean.TRUE);
+        }
+    }
+    /**
+     * ABCS-CMSC-4 (SM_116)
+     */
+    public void leave(Long clubId, Long memberId){
+        clubRepository.deleteMembership(clubId,memberId);
+        synchronized (this) {
+            evictions.incrementAndGet();
+            memberships().remove(new Key(clubId,memberId));
+        }
+    }
+
+    private synchronized boolean cached(Key key) {
+        return memberships().get(key)!=null;
+    }
+
+    private synchronized Map<Key, Boolean> memberships() {
+        if(memberships==null){
+            int limit = cacheSize;
+            memberships = new LinkedHashMap<Key, Boolean>(16,0.75f,true){
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, Boolean> eldest) {
+                    return size()>limit;
+                }
+            };
+        }
+        return memberships;
+    }
+
+    private static final class Key {
+        private final Long clubId;
+        private final Long memberId;
+
+        private Key(Long clubId, Long memberId) {
+            this.clubId = clubId;
+            this.memberId = memberId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return clubId.equals(key.clubId) && memberId.equals(key.memberId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(clubId, memberId);
+        }
+    }
+}
@@ -2,8 +2,14 @@ package com.bookend.bookclubservice.service;
 
 import com.bookend.bookclubservice.expection.ClubAlreadyExistException;
 import com.bookend.bookclubservice.expection.NotMemberException;
+import com.bookend.bookclubservice.expection.NotOwnerException;
 import com.bookend.bookclubservice.kafka.MessageProducer;
+import com.bookend.bookclubservice.payload.BulkInvitationResponse;
+import com.bookend.bookclubservice.payload.ClubPage;
+import com.bookend.bookclubservice.payload.ClubSummary;
 import com.bookend.bookclubservice.payload.MailRequest;
+import com.bookend.bookclubservice.payload.PostPage;
+import com.bookend.bookclubservice.payload.PostView;
 import com.bookend.bookclubservice.model.Club;
 import com.bookend.bookclubservice.model.Invitation;
 import com.bookend.bookclubservice.model.Member;
@@ -13,16 +19,45 @@ import com.bookend.bookclubservice.repository.ClubRepository;
 import com.bookend.bookclubservice.repository.InvitationRepository;
 import com.bookend.bookclubservice.repository.MemberRepository;
 import com.bookend.bookclubservice.repository.PostRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.stream.Collectors;
 /**
  * ABCS-CSC stands for BookclubService-ClubServiceClass
  * SM stands for ServiceMethod
  */
 @Service
 public class ClubService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClubService.class);
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final String CURSOR_SEPARATOR = "\n";
+    // posts read from every club's feed up front when merging a member's feed, most clubs contribute no more
+    private static final int FIRST_FEED_CHUNK = 2;
+    private static final int MAX_BULK_INVITATIONS = 1000;
 
     @Autowired
     private ClubRepository clubRepository;
@@ -34,6 +69,8 @@ public class ClubService {
     private MessageProducer messageProducer;
     @Autowired
     private InvitationRepository invitationRepository;
+    @Autowired
+    private ClubMembershipService clubMembershipService;
 
     public List<Club> getAll(){
         return clubRepository.findAll();
@@ -76,6 +113,44 @@ public class ClubService {
         return postRepository.findByClubId(clubId);
     }
 
+    /**
+     * ABCS-CSC-15 (SM_117)
+     * The club's posts newest first, {@code size} at a time below the post in {@code before}.
+     */
+    public PostPage getClubPosts(Long clubId, int size, String before){
+        return postPage(size, before, (beforeDate, beforeId, pageable) -> beforeDate == null
+                ? postRepository.findClubFeed(clubId, pageable)
+                : postRepository.findClubFeedBefore(clubId, beforeDate, beforeId, pageable));
+    }
+    /**
+     * ABCS-CSC-16 (SM_118)
+     * The writer's posts newest first, {@code size} at a time below the post in {@code before}.
+     */
+    public PostPage getWriterPosts(String username, int size, String before){
+        Member member = memberRepository.findByUserName(username);
+        if(member == null){
+            throw new IllegalArgumentException("There is no such member with that username");
+        }
+        return postPage(size, before, (beforeDate, beforeId, pageable) -> beforeDate == null
+                ? postRepository.findWriterFeed(member.getId(), pageable)
+                : postRepository.findWriterFeedBefore(member.getId(), beforeDate, beforeId, pageable));
+    }
+
+    /**
+     * ABCS-CSC-17 (SM_119)
+     * The newest posts of every club the member owns or belongs to, merged newest first.
+     */
+    public PostPage getMemberFeed(String username, int size, String before){
+        Member member = memberRepository.findByUserName(username);
+        if(member == null){
+            throw new IllegalArgumentException("There is no such member with that username");
+        }
+        Set<Long> clubIds = new LinkedHashSet<>(clubRepository.findOwnedClubIds(member.getId()));
+        clubIds.addAll(clubRepository.findMembershipClubIds(member.getId()));
+        return postPage(size, before, (beforeDate, beforeId, pageable) ->
+                mergeClubFeeds(clubIds, beforeDate, beforeId, pageable.getPageSize()));
+    }
+
     /**
      * ABCS-CSC-5 (SM_21)
      */
@@ -87,7 +162,7 @@ public class ClubService {
         if(newClubRequest.getClubName() == null || newClubRequest.getClubName() == ""){
             throw new IllegalArgumentException("There is no such member with that username");
         }
-        if(clubRepository.findAll().stream().anyMatch(club -> club.getClubName().toLowerCase().matches(newClubRequest.getClubName().toLowerCase()))){
+        if(clubRepository.existsByNormalizedName(Club.normalize(newClubRequest.getClubName()))){
             throw new ClubAlreadyExistException("club already exist with that club name");
         }
         Club club = new Club();
@@ -95,7 +170,12 @@ public class ClubService {
         club.setDescription(newClubRequest.getDescription());
         club.setPrivate(newClubRequest.isPrivatee());
         club.setOwner(owner);
-        return clubRepository.save(club);
+        try {
+            return clubRepository.saveAndFlush(club);
+        } catch (DataIntegrityViolationException e) {
+            // another request took the name between the lookup and the insert
+            throw new ClubAlreadyExistException("club already exist with that club name");
+        }
     }
     /**
      * ABCS-CSC-6 (SM_22)
@@ -110,13 +190,10 @@ public class ClubService {
         if(club.getOwner().getUserName().equals(username)){
             return false;
         }
-        if(club.getMembers().stream().anyMatch(m-> m.getUserName().toLowerCase().matches(username.toLowerCase()))){
+        if(clubMembershipService.isMember(club.getId(),member.getId())){
             return false;
         }
-        member.getClubs().add(club);
-        club.getMembers().add(member);
-        memberRepository.save(member);
-        clubRepository.save(club);
+        clubMembershipService.join(club.getId(),member.getId());
         return true;
 
     }
@@ -139,11 +216,72 @@ public class ClubService {
         Invitation invitation = new Invitation();
         invitation.setClub(club);
         invitation.setInvitedPerson(invitedPerson);
-        Invitation newInvitation = invitationRepository.save(invitation);
+        Invitation newInvitation;
+        try {
+            newInvitation = invitationRepository.save(invitation);
+        } catch (DataIntegrityViolationException e) {
+            // another request invited the same member in the meantime
+            throw new IllegalArgumentException("this user already invited to this club");
+        }
         MailRequest mailRequest = new MailRequest(invitedPerson.getId(),"Invitation",club.getOwner().getUserName()+" invites you to "+club.getClubName() + " club");
         messageProducer.sendMailRequest(mailRequest);
         return newInvitation;
     }
+    /**
+     * ABCS-CSC-18 (SM_120)
+     * Invites every named member with one lookup of the names, one lookup of the existing invitations,
+     * one batch insert and one batch of mail requests. The owner and members who are already invited
+     * are skipped, and names that belong to nobody are handed back. Only the club's owner can invite.
+     */
+    public BulkInvitationResponse inviteAll(BulkInvitationRequest bulkInvitationRequest, String principal) throws NotOwnerException {
+        if(bulkInvitationRequest.getClubId()==null){
+            throw new IllegalArgumentException("club id is missing");
+        }
+        List<String> userNames = bulkInvitationRequest.getInvitedPersonUserNames();
+        if(userNames==null || userNames.isEmpty()){
+            throw new IllegalArgumentException("There is nobody to invite.");
+        }
+        if(userNames.size()>MAX_BULK_INVITATIONS){
+            throw new IllegalArgumentException("At most "+MAX_BULK_INVITATIONS+" people can be invited at once.");
+        }
+        Club club = clubRepository.findById(bulkInvitationRequest.getClubId()).orElse(null);
+        if(club==null){
+            throw new IllegalArgumentException("club does not exist with given id");
+        }
+        if(!club.getOwner().getUserName().equalsIgnoreCase(principal)){
+            throw new NotOwnerException("only the owner of the club can invite people");
+        }
+        // names are matched ignoring case, the way MySQL compares them
+        Map<String, String> requested = new LinkedHashMap<>();
+        for(String userName : userNames){
+            if(userName!=null && !userName.trim().isEmpty()){
+                requested.putIfAbsent(userName.trim().toLowerCase(), userName.trim());
+            }
+        }
+        List<Member> members = requested.isEmpty() ? new ArrayList<>() : memberRepository.findByUserNameIn(requested.values());
+        List<Long> memberIds = members.stream().map(Member::getId).collect(Collectors.toList());
+        Set<Long> alreadyInvited = memberIds.isEmpty() ? new HashSet<>()
+                : new HashSet<>(invitationRepository.findInvitedMemberIds(club.getId(), memberIds));
+
+        List<Long> toInvite = new ArrayList<>();
+        List<String> invited = new ArrayList<>();
+        List<String> skipped = new ArrayList<>();
+        List<MailRequest> mailRequests = new ArrayList<>();
+        String text = club.getOwner().getUserName()+" invites you to "+club.getClubName() + " club";
+        for(Member member : members){
+            requested.remove(member.getUserName().toLowerCase());
+            if(member.getId().equals(club.getOwner().getId()) || !alreadyInvited.add(member.getId())){
+                skipped.add(member.getUserName());
+                continue;
+            }
+            toInvite.add(member.getId());
+            invited.add(member.getUserName());
+            mailRequests.add(new MailRequest(member.getId(),"Invitation",text));
+        }
+        invitationRepository.insertAll(club.getId(), toInvite);
+        messageProducer.sendMailRequests(mailRequests);
+        return new BulkInvitationResponse(invited, skipped, new ArrayList<>(requested.values()));
+    }
     /**
      * ABCS-CSC-8 (SM_24)
      */
@@ -157,10 +295,9 @@ public class ClubService {
         if(invitationReply.geteInvitationReply().equals(EInvitationReply.ACCEPT)){
             mailRequest = new MailRequest(club.getOwner().getId(),"Invitation Accepted",invitation.getInvitedPerson().getUserName() +"accepted your invite.");
             Member member = invitation.getInvitedPerson();
-            member.getClubs().add(club);
-            club.getMembers().add(invitation.getInvitedPerson());
-            clubRepository.save(club);
-            memberRepository.save(member);
+            if(!clubMembershipService.isMember(club.getId(),member.getId())){
+                clubMembershipService.join(club.getId(),member.getId());
+            }
         }
         else{
             mailRequest = new MailRequest(club.getOwner().getId(),"Invitation Rejected",invitation.getInvitedPerson().getUserName() +"rejected your invite.");
@@ -186,7 +323,7 @@ public class ClubService {
         if(newPostRequest.getTitle()==null || newPostRequest.getTitle()==""){
             throw new IllegalArgumentException("Title field is empty.");
         }
-        if(club.getMembers().contains(writer) || club.getOwner().getUserName().equals(writer.getUserName())){
+        if(club.getOwner().getUserName().equals(writer.getUserName()) || clubMembershipService.isMember(club.getId(),writer.getId())){
             Post post = new Post();
             post.setClub(club);
             post.setText(newPostRequest.getText());
@@ -230,4 +367,162 @@ public class ClubService {
             throw new IllegalArgumentException("member not exist with this id");
         return member.getClubs();
     }
+    /**
+     * ABCS-CSC-14 (SM_112)
+     * Public clubs in id order as summary rows, {@code size} at a time after the club id in {@code cursor}.
+     */
+    public ClubPage getClubDirectory(int size, String cursor){
+        if(size<1 || size>MAX_PAGE_SIZE){
+            throw new IllegalArgumentException("Size must be between 1 and "+MAX_PAGE_SIZE+".");
+        }
+        List<ClubSummary> clubs;
+        if(cursor != null){
+            Long afterId;
+            try {
+                afterId = Long.valueOf(cursor);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor.");
+            }
+            clubs = clubRepository.findPublicSummariesAfter(afterId, PageRequest.of(0,size));
+        }
+        else {
+            clubs = clubRepository.findPublicSummaries(PageRequest.of(0,size));
+        }
+        String nextCursor = clubs.size()<size ? null : String.valueOf(clubs.get(clubs.size()-1).getId());
+        return new ClubPage(clubs,size,nextCursor);
+    }
+
+    private interface NewestFirst {
+        List<PostView> find(LocalDateTime beforeDate, Long beforeId, Pageable pageable);
+    }
+
+    /**
+     * Reads one page of posts newest first. The cursor holds the date and id of the oldest post of the
+     * previous page, so the next page starts right below it in the (club_id, date, id) index.
+     */
+    private PostPage postPage(int size, String before, NewestFirst query){
+        if(size<1 || size>MAX_PAGE_SIZE){
+            throw new IllegalArgumentException("Size must be between 1 and "+MAX_PAGE_SIZE+".");
+        }
+        LocalDateTime beforeDate = null;
+        Long beforeId = null;
+        if(before != null){
+            try {
+                String key = new String(Base64.getUrlDecoder().decode(before), StandardCharsets.UTF_8);
+                int separator = key.indexOf(CURSOR_SEPARATOR);
+                if(separator<0){
+                    throw new IllegalArgumentException("Invalid cursor.");
+                }
+                beforeDate = LocalDateTime.parse(key.substring(0,separator));
+                beforeId = Long.valueOf(key.substring(separator+1));
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor.");
+            }
+        }
+        List<PostView> posts = query.find(beforeDate, beforeId, PageRequest.of(0,size));
+        String nextCursor = null;
+        if(posts.size()==size){
+            PostView last = posts.get(posts.size()-1);
+            String key = last.getDate() + CURSOR_SEPARATOR + last.getId();
+            nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+        }
+        return new PostPage(posts,size,nextCursor);
+    }
+
+    /**
+     * Merges the club feeds below the given post, keeping one cursor per club. The newest couple of posts
+     * of every club are read in a single statement, and only a club whose posts all make it into the page
+     * is read further, in chunks doubling up to what the page still lacks. A member of many clubs pays
+     * about two rows per club plus the posts the page actually shows.
+     */
+    private List<PostView> mergeClubFeeds(Collection<Long> clubIds, LocalDateTime beforeDate, Long beforeId, int size){
+        List<PostView> posts = new ArrayList<>(size);
+        if(clubIds.isEmpty()){
+            return posts;
+        }
+        int chunk = Math.min(size, FIRST_FEED_CHUNK);
+        Map<Long, List<PostView>> firstChunks = postRepository.findClubFeeds(clubIds, beforeDate, beforeId, chunk).stream()
+                .collect(Collectors.groupingBy(PostView::getClubId, LinkedHashMap::new, Collectors.toList()));
+        PriorityQueue<ClubFeed> heads = new PriorityQueue<>(Math.max(1, firstChunks.size()), NEWEST_HEAD_FIRST);
+        for(Map.Entry<Long, List<PostView>> firstChunk : firstChunks.entrySet()){
+            ClubFeed feed = new ClubFeed(firstChunk.getKey(), chunk);
+            feed.load(firstChunk.getValue(), chunk);
+            if(feed.advance(size)){
+                heads.add(feed);
+            }
+        }
+        while(posts.size()<size && !heads.isEmpty()){
+            ClubFeed feed = heads.poll();
+            posts.add(feed.head);
+            if(posts.size()<size && feed.advance(size-posts.size())){
+                heads.add(feed);
+            }
+        }
+        return posts;
+    }
+
+    private static final Comparator<ClubFeed> NEWEST_HEAD_FIRST =
+            Comparator.comparing((ClubFeed feed) -> feed.head.getDate())
+                    .thenComparing(feed -> feed.head.getId())
+                    .reversed();
+
+    private final class ClubFeed {
+        private final Long clubId;
+        private LocalDateTime cursorDate;
+        private Long cursorId;
+        private int chunk;
+        private Iterator<PostView> read = Collections.emptyIterator();
+        private boolean exhausted;
+        private PostView head;
+
+        private ClubFeed(Long clubId, int chunk) {
+            this.clubId = clubId;
+            this.chunk = chunk;
+        }
+
+        /**
+         * Takes the club's posts read below the cursor with the given limit, and moves the cursor to the last one.
+         */
+        private void load(List<PostView> posts, int limit) {
+            exhausted = posts.size()<limit;
+            if(!posts.isEmpty()){
+                PostView last = posts.get(posts.size()-1);
+                cursorDate = last.getDate();
+                cursorId = last.getId();
+            }
+            chunk = chunk*2;
+            read = posts.iterator();
+        }
+
+        /**
+         * Moves head to the club's next post, reading the next chunk below the cursor when the last one is used up.
+         * The chunk never exceeds the posts the page still needs.
+         */
+        private boolean advance(int needed) {
+            if(!read.hasNext()){
+                if(exhausted){
+                    return false;
+                }
+                int limit = Math.min(chunk, needed);
+                load(postRepository.findClubFeedBefore(clubId, cursorDate, cursorId, PageRequest.of(0,limit)), limit);
+                if(!read.hasNext()){
+                    return false;
+                }
+            }
+            head = read.next();
+            return true;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillNormalizedNames(){
+        try {
+            int updated = clubRepository.backfillNormalizedNames();
+            if(updated>0){
+                LOGGER.info("normalised the names of {} clubs", updated);
+            }
+        } catch (DataIntegrityViolationException e) {
+            LOGGER.error("clubs with names that differ only in case or spacing have to be renamed by hand", e);
+        }
+    }
 }
@@ -0,0 +1,73 @@
+package com.bookend.bookclubservice.serviceTest;
+
+
+import com.bookend.bookclubservice.model.Member;
+import com.bookend.bookclubservice.repository.ClubRepository;
+import com.bookend.bookclubservice.repository.MemberRepository;
+import com.bookend.bookclubservice.service.ClubMembershipService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class clubMembershipServiceTest {
+
+    @Mock
+    private ClubRepository clubRepository;
+    @Mock
+    private MemberRepository memberRepository;
+    @InjectMocks
+    private ClubMembershipService clubMembershipService;
+
+    @Test
+    public void shouldProbeMembershipOnceAndCacheIt(){
+        given(clubRepository.countMembership((long)1,(long)2)).willReturn((long)1);
+        assertThat(clubMembershipService.isMember((long)1,(long)2)).isTrue();
+        assertThat(clubMembershipService.isMember((long)1,(long)2)).isTrue();
+        verify(clubRepository, times(1)).countMembership((long)1,(long)2);
+    }
+    @Test
+    public void shouldNotCacheMissingMembership(){
+        given(clubRepository.countMembership((long)1,(long)2)).willReturn((long)0,(long)1);
+        assertThat(clubMembershipService.isMember((long)1,(long)2)).isFalse();
+        assertThat(clubMembershipService.isMember((long)1,(long)2)).isTrue();
+    }
+    @Test
+    public void shouldCacheMembershipOnJoin(){
+        clubMembershipService.join((long)1,(long)2);
+        assertThat(clubMembershipService.isMember((long)1,(long)2)).isTrue();
+        verify(clubRepository).insertMembership((long)1,(long)2);
+        verify(clubRepository, never()).countMembership((long)1,(long)2);
+    }
+    @Test
+    public void shouldEvictMembershipOnLeave(){
+        clubMembershipService.join((long)1,(long)2);
+        clubMembershipService.leave((long)1,(long)2);
+        given(clubRepository.countMembership((long)1,(long)2)).willReturn((long)0);
+        assertThat(clubMembershipService.isMember((long)1,(long)2)).isFalse();
+        verify(clubRepository).deleteMembership((long)1,(long)2);
+    }
+    @Test
+    public void shouldDropLeastRecentlyUsedMembership(){
+        clubMembershipService.setCacheSize(1);
+        clubMembershipService.join((long)1,(long)2);
+        clubMembershipService.join((long)1,(long)3);
+        given(clubRepository.countMembership((long)1,(long)2)).willReturn((long)1);
+        assertThat(clubMembershipService.isMember((long)1,(long)2)).isTrue();
+        verify(clubRepository).countMembership((long)1,(long)2);
+    }
+    @Test
+    public void shouldCheckMembershipByUserName(){
+        given(memberRepository.findByUserName("member")).willReturn(new Member((long)2,"member"));
+        given(clubRepository.countMembership((long)1,(long)2)).willReturn((long)1);
+        assertThat(clubMembershipService.isMember((long)1,"member")).isTrue();
+        given(memberRepository.findByUserName("nobody")).willReturn(null);
+        assertThat(clubMembershipService.isMember((long)1,"nobody")).isFalse();
+    }
+}
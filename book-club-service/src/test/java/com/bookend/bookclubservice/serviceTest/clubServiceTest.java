@@ -3,16 +3,24 @@ package com.bookend.bookclubservice.serviceTest;
 
 import com.bookend.bookclubservice.expection.ClubAlreadyExistException;
 import com.bookend.bookclubservice.expection.NotMemberException;
+import com.bookend.bookclubservice.expection.NotOwnerException;
 import com.bookend.bookclubservice.kafka.MessageProducer;
 import com.bookend.bookclubservice.model.Club;
 import com.bookend.bookclubservice.model.Invitation;
 import com.bookend.bookclubservice.model.Member;
 import com.bookend.bookclubservice.model.Post;
+import com.bookend.bookclubservice.payload.BulkInvitationResponse;
+import com.bookend.bookclubservice.payload.ClubPage;
+import com.bookend.bookclubservice.payload.MailRequest;
+import com.bookend.bookclubservice.payload.ClubSummary;
+import com.bookend.bookclubservice.payload.PostPage;
+import com.bookend.bookclubservice.payload.PostView;
 import com.bookend.bookclubservice.payload.request.*;
 import com.bookend.bookclubservice.repository.ClubRepository;
 import com.bookend.bookclubservice.repository.InvitationRepository;
 import com.bookend.bookclubservice.repository.MemberRepository;
 import com.bookend.bookclubservice.repository.PostRepository;
+import com.bookend.bookclubservice.service.ClubMembershipService;
 import com.bookend.bookclubservice.service.ClubService;
 
 import org.junit.Test;
@@ -22,8 +30,12 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -45,6 +57,8 @@ public class clubServiceTest {
     private MessageProducer messageProducer;
     @Mock
     private InvitationRepository invitationRepository;
+    @Mock
+    private ClubMembershipService clubMembershipService;
     @InjectMocks
     private ClubService clubService;
 
@@ -120,11 +134,8 @@ public class clubServiceTest {
     public void shouldNotSaveClubIfClubExistsWithGivenClubName(){
         Member member = new Member((long)1,"testUser");
         given(memberRepository.findByUserName(any(String.class))).willReturn(member);
-        NewClubRequest newClubRequest = new NewClubRequest("clubname","desc","username",true);
-        List<Club> clubs = new ArrayList<>();
-        Club club = new Club((long) 1,"clubname","test",member,true);
-        clubs.add(club);
-        given(clubRepository.findAll()).willReturn(clubs);
+        NewClubRequest newClubRequest = new NewClubRequest(" ClubName","desc","username",true);
+        given(clubRepository.existsByNormalizedName("clubname")).willReturn(true);
         assertThrows(ClubAlreadyExistException.class,()->{
             clubService.saveClub(newClubRequest);
         });
@@ -134,14 +145,51 @@ public class clubServiceTest {
         Member member = new Member((long)1,"testUser");
         given(memberRepository.findByUserName(any(String.class))).willReturn(member);
         NewClubRequest newClubRequest = new NewClubRequest("clubname","desc","username",true);
-        List<Club> clubs = new ArrayList<>();
-        Club club = new Club((long) 1,"clubname2","test",member,true);
-        clubs.add(club);
-        given(clubRepository.findAll()).willReturn(clubs);
-        given(clubRepository.save(any(Club.class))).willReturn(club);
+        Club club = new Club((long) 1,"clubname","test",member,true);
+        given(clubRepository.existsByNormalizedName("clubname")).willReturn(false);
+        given(clubRepository.saveAndFlush(any(Club.class))).willReturn(club);
         Club saved =clubService.saveClub(newClubRequest);
         assertThat(saved).isNotNull();
-        verify(clubRepository).save(any(Club.class));
+        verify(clubRepository).saveAndFlush(any(Club.class));
+    }
+    @Test
+    public void shouldNotSaveClubIfClubNameIsTakenConcurrently(){
+        Member member = new Member((long)1,"testUser");
+        given(memberRepository.findByUserName(any(String.class))).willReturn(member);
+        NewClubRequest newClubRequest = new NewClubRequest("clubname","desc","username",true);
+        given(clubRepository.existsByNormalizedName("clubname")).willReturn(false);
+        given(clubRepository.saveAndFlush(any(Club.class))).willThrow(new DataIntegrityViolationException("uk_clubs_normalized_name"));
+        assertThrows(ClubAlreadyExistException.class,()->{
+            clubService.saveClub(newClubRequest);
+        });
+    }
+    @Test
+    public void shouldGetFirstPageOfClubDirectory(){
+        List<ClubSummary> clubs = new ArrayList<>();
+        clubs.add(new ClubSummary((long)3,"Klasik Okurlar",(long)4,false));
+        clubs.add(new ClubSummary((long)7,"Bilim Kurgu",(long)0,false));
+        given(clubRepository.findPublicSummaries(PageRequest.of(0,2))).willReturn(clubs);
+        ClubPage page = clubService.getClubDirectory(2,null);
+        assertThat(page.getClubs()).hasSize(2);
+        assertThat(page.getNextCursor()).isEqualTo("7");
+    }
+    @Test
+    public void shouldGetLastPageOfClubDirectoryAfterCursor(){
+        List<ClubSummary> clubs = new ArrayList<>();
+        clubs.add(new ClubSummary((long)9,"Polisiye",(long)2,false));
+        given(clubRepository.findPublicSummariesAfter((long)7,PageRequest.of(0,2))).willReturn(clubs);
+        ClubPage page = clubService.getClubDirectory(2,"7");
+        assertThat(page.getClubs()).hasSize(1);
+        assertThat(page.getNextCursor()).isNull();
+    }
+    @Test
+    public void shouldNotGetClubDirectoryWithInvalidSizeOrCursor(){
+        assertThrows(IllegalArgumentException.class,()->{
+            clubService.getClubDirectory(0,null);
+        });
+        assertThrows(IllegalArgumentException.class,()->{
+            clubService.getClubDirectory(10,"abc");
+        });
     }
     @Test
     public void shouldNotSaveNewMemberToClubIfUserNotExists(){
@@ -172,30 +220,28 @@ public class clubServiceTest {
         Member member = new Member((long)2,"owner");
         Member member2 = new Member((long)2,"member");
         Club club = new Club((long)1," "," ",member,true);
-        club.getMembers().add(member2);
         given(clubRepository.findById((long)1)).willReturn(java.util.Optional.of(club));
         given(memberRepository.findByUserName("member")).willReturn(member2);
+        given(clubMembershipService.isMember((long)1,(long)2)).willReturn(true);
         NewClubMemberRequest  newClubMemberRequest = new NewClubMemberRequest((long)1,(long)2);
         boolean result = clubService.newMember(newClubMemberRequest,"member");
         assertThat(result).isEqualTo(false);
-        verify(clubRepository, never()).save(any(Club.class));
-        verify(memberRepository, never()).save(any(Member.class));
+        verify(clubMembershipService, never()).join(any(Long.class),any(Long.class));
     }
     @Test
     public void shouldSaveNewMemberToClub(){
         Member member = new Member((long)2,"owner");
         Member member2 = new Member((long)2,"member");
-        Member member3 = new Member((long)2,"member2");
+        Member member3 = new Member((long)3,"member2");
 
         Club club = new Club((long)1," "," ",member,true);
-        club.getMembers().add(member2);
         given(clubRepository.findById((long)1)).willReturn(java.util.Optional.of(club));
         given(memberRepository.findByUserName("member2")).willReturn(member3);
+        given(clubMembershipService.isMember((long)1,(long)3)).willReturn(false);
         NewClubMemberRequest  newClubMemberRequest = new NewClubMemberRequest((long)1,(long)2);
         boolean result = clubService.newMember(newClubMemberRequest,"member2");
         assertThat(result).isEqualTo(true);
-        verify(clubRepository).save(any(Club.class));
-        verify(memberRepository).save(any(Member.class));
+        verify(clubMembershipService).join((long)1,(long)3);
     }
     @Test
     public void shouldNotSendInvitationifUserNotExist(){
@@ -253,10 +299,10 @@ public class clubServiceTest {
         Invitation invitation = new Invitation((long)1,club,member);
 
         given(invitationRepository.findById((long)1)).willReturn(java.util.Optional.of(invitation));
-        given(clubRepository.save(any(Club.class))).willReturn(club);
-        given(memberRepository.save(any(Member.class))).willReturn(member);
 
         clubService.replyInvitation(invitationReply);
+        verify(clubMembershipService).join((long)1,(long)1);
+        verify(invitationRepository).delete(invitation);
     }
     @Test
     public void shouldNotSavePostIfClubDoesNotExistWithGivenId(){
@@ -304,6 +350,189 @@ public class clubServiceTest {
         verify(postRepository).save(any(Post.class));
     }
     @Test
+    public void shouldSavePostOfClubMember() throws NotMemberException {
+        NewPostRequest newPostRequest = new NewPostRequest("title","text",(long)1);
+        Member owner = new Member((long)1,"owner");
+        Member member = new Member((long)2,"member");
+        Club club = new Club((long)1,"","",owner,true);
+        Post post = new Post();
+        given(memberRepository.findByUserName("member")).willReturn(member);
+        given(clubRepository.findById((long)1)).willReturn(Optional.of(club));
+        given(clubMembershipService.isMember((long)1,(long)2)).willReturn(true);
+        given(postRepository.save(any(Post.class))).willReturn(post);
+
+        Post expected = clubService.savePost(newPostRequest,"member");
+        assertThat(expected).isNotNull();
+        verify(postRepository).save(any(Post.class));
+    }
+    @Test
+    public void shouldPageClubPostsNewestFirst(){
+        LocalDateTime date = LocalDateTime.of(2020,12,1,10,30);
+        List<PostView> firstPage = new ArrayList<>();
+        firstPage.add(new PostView((long)9,"title","text",date.plusHours(1),(long)1,(long)2,"member"));
+        firstPage.add(new PostView((long)8,"title","text",date,(long)1,(long)2,"member"));
+        given(postRepository.findClubFeed((long)1,PageRequest.of(0,2))).willReturn(firstPage);
+        PostPage page = clubService.getClubPosts((long)1,2,null);
+        assertThat(page.getPosts()).hasSize(2);
+        assertThat(page.getNextCursor()).isNotNull();
+
+        List<PostView> lastPage = new ArrayList<>();
+        lastPage.add(new PostView((long)5,"title","text",date,(long)1,(long)3,"writer"));
+        given(postRepository.findClubFeedBefore((long)1,date,(long)8,PageRequest.of(0,2))).willReturn(lastPage);
+        PostPage next = clubService.getClubPosts((long)1,2,page.getNextCursor());
+        assertThat(next.getPosts()).hasSize(1);
+        assertThat(next.getNextCursor()).isNull();
+    }
+    @Test
+    public void shouldNotPageClubPostsWithInvalidCursor(){
+        assertThrows(IllegalArgumentException.class,()->{
+            clubService.getClubPosts((long)1,2,"bm90LWEtY3Vyc29y");
+        });
+    }
+    @Test
+    public void shouldPageWriterPosts(){
+        Member member = new Member((long)2,"member");
+        given(memberRepository.findByUserName("member")).willReturn(member);
+        List<PostView> posts = new ArrayList<>();
+        posts.add(new PostView((long)9,"title","text",LocalDateTime.now(),(long)1,(long)2,"member"));
+        given(postRepository.findWriterFeed((long)2,PageRequest.of(0,10))).willReturn(posts);
+        PostPage page = clubService.getWriterPosts("member",10,null);
+        assertThat(page.getPosts()).hasSize(1);
+        assertThat(page.getNextCursor()).isNull();
+    }
+    @Test
+    public void shouldNotPageWriterPostsIfUserNotExists(){
+        given(memberRepository.findByUserName("member")).willReturn(null);
+        assertThrows(IllegalArgumentException.class,()->{
+            clubService.getWriterPosts("member",10,null);
+        });
+    }
+    @Test
+    public void shouldMergeMemberFeedAcrossClubsNewestFirst(){
+        Member member = new Member((long)2,"member");
+        LocalDateTime date = LocalDateTime.of(2020,12,1,10,0);
+        given(memberRepository.findByUserName("member")).willReturn(member);
+        given(clubRepository.findOwnedClubIds((long)2)).willReturn(Collections.singletonList((long)1));
+        given(clubRepository.findMembershipClubIds((long)2)).willReturn(Collections.singletonList((long)2));
+        List<PostView> ownedClubPosts = new ArrayList<>();
+        ownedClubPosts.add(new PostView((long)5,"title","text",date.plusHours(5),(long)1,(long)2,"member"));
+        ownedClubPosts.add(new PostView((long)3,"title","text",date.plusHours(3),(long)1,(long)2,"member"));
+        List<PostView> memberClubPosts = new ArrayList<>();
+        memberClubPosts.add(new PostView((long)4,"title","text",date.plusHours(4),(long)2,(long)3,"writer"));
+        memberClubPosts.add(new PostView((long)2,"title","text",date.plusHours(2),(long)2,(long)3,"writer"));
+        List<PostView> firstChunks = new ArrayList<>(ownedClubPosts);
+        firstChunks.addAll(memberClubPosts);
+        given(postRepository.findClubFeeds(any(),isNull(),isNull(),eq(2))).willReturn(firstChunks);
+
+        PostPage page = clubService.getMemberFeed("member",3,null);
+        assertThat(page.getPosts()).extracting(PostView::getId).containsExactly((long)5,(long)4,(long)3);
+        assertThat(page.getNextCursor()).isNotNull();
+        verify(postRepository).findClubFeeds(argThat(ids -> ids.containsAll(java.util.Arrays.asList((long)1,(long)2))),isNull(),isNull(),eq(2));
+        verify(postRepository, never()).findClubFeedBefore(any(Long.class),any(LocalDateTime.class),any(Long.class),any(PageRequest.class));
+    }
+    @Test
+    public void shouldReadFurtherFromClubThatFillsMemberFeed(){
+        Member member = new Member((long)2,"member");
+        LocalDateTime date = LocalDateTime.of(2020,12,1,10,0);
+        given(memberRepository.findByUserName("member")).willReturn(member);
+        given(clubRepository.findOwnedClubIds((long)2)).willReturn(new ArrayList<>());
+        List<Long> clubIds = new ArrayList<>();
+        clubIds.add((long)1);
+        clubIds.add((long)2);
+        clubIds.add((long)3);
+        given(clubRepository.findMembershipClubIds((long)2)).willReturn(clubIds);
+        given(postRepository.findClubFeeds(any(),isNull(),isNull(),eq(2))).willReturn(posts(date,20,19));
+        // the chunks double until the one that would reach past the page is cut to what the page lacks
+        given(postRepository.findClubFeedBefore((long)1,date.plusMinutes(19),(long)19,PageRequest.of(0,4))).willReturn(posts(date,18,15));
+        given(postRepository.findClubFeedBefore((long)1,date.plusMinutes(15),(long)15,PageRequest.of(0,8))).willReturn(posts(date,14,7));
+        given(postRepository.findClubFeedBefore((long)1,date.plusMinutes(7),(long)7,PageRequest.of(0,16))).willReturn(posts(date,6,1));
+
+        PostPage page = clubService.getMemberFeed("member",30,null);
+        assertThat(page.getPosts()).hasSize(20);
+        assertThat(page.getNextCursor()).isNull();
+        verify(postRepository, times(1)).findClubFeeds(any(),any(),any(),anyInt());
+        verify(postRepository, never()).findClubFeedBefore(eq((long)2),any(LocalDateTime.class),any(Long.class),any(PageRequest.class));
+        verify(postRepository, never()).findClubFeedBefore(eq((long)3),any(LocalDateTime.class),any(Long.class),any(PageRequest.class));
+    }
+    private static List<PostView> posts(LocalDateTime date, long newestId, long oldestId){
+        List<PostView> posts = new ArrayList<>();
+        for(long id = newestId; id >= oldestId; id--){
+            posts.add(new PostView(id,"title","text",date.plusMinutes(id),(long)1,(long)3,"writer"));
+        }
+        return posts;
+    }
+    @Test
+    public void shouldGetEmptyMemberFeedWithoutClubs(){
+        Member member = new Member((long)2,"member");
+        given(memberRepository.findByUserName("member")).willReturn(member);
+        given(clubRepository.findOwnedClubIds((long)2)).willReturn(new ArrayList<>());
+        given(clubRepository.findMembershipClubIds((long)2)).willReturn(new ArrayList<>());
+        PostPage page = clubService.getMemberFeed("member",10,null);
+        assertThat(page.getPosts()).isEmpty();
+        verify(postRepository, never()).findClubFeeds(any(),any(),any(),anyInt());
+    }
+    @Test
+    public void shouldInviteAllWithOneLookupAndOneBatch() throws NotOwnerException {
+        Member owner = new Member((long)1,"owner");
+        Member invitedBefore = new Member((long)2,"reader");
+        Member newcomer = new Member((long)3,"Newcomer");
+        Club club = new Club((long)1,"Klasik Okurlar","desc",owner,true);
+        given(clubRepository.findById((long)1)).willReturn(Optional.of(club));
+        List<Member> members = new ArrayList<>();
+        members.add(owner);
+        members.add(invitedBefore);
+        members.add(newcomer);
+        given(memberRepository.findByUserNameIn(any())).willReturn(members);
+        given(invitationRepository.findInvitedMemberIds(any(Long.class),any())).willReturn(Collections.singletonList((long)2));
+
+        BulkInvitationRequest request = new BulkInvitationRequest((long)1,
+                java.util.Arrays.asList("owner","reader","newcomer","NEWCOMER","ghost"));
+        BulkInvitationResponse response = clubService.inviteAll(request,"owner");
+
+        assertThat(response.getInvited()).containsExactly("Newcomer");
+        assertThat(response.getSkipped()).containsExactly("owner","reader");
+        assertThat(response.getNotFound()).containsExactly("ghost");
+        verify(invitationRepository).insertAll((long)1,Collections.singletonList((long)3));
+        verify(messageProducer).sendMailRequests(argThat(mails -> mails.size()==1 && mails.get(0).getId()==3));
+        verify(messageProducer, never()).sendMailRequest(any(MailRequest.class));
+    }
+    @Test
+    public void shouldNotInviteAllWithoutUserNames(){
+        BulkInvitationRequest request = new BulkInvitationRequest((long)1,new ArrayList<>());
+        assertThrows(IllegalArgumentException.class,()->{
+            clubService.inviteAll(request,"owner");
+        });
+        verify(memberRepository, never()).findByUserNameIn(any());
+    }
+    @Test
+    public void shouldNotInviteAllToMissingClub(){
+        given(clubRepository.findById((long)1)).willReturn(Optional.empty());
+        BulkInvitationRequest request = new BulkInvitationRequest((long)1,Collections.singletonList("reader"));
+        assertThrows(IllegalArgumentException.class,()->{
+            clubService.inviteAll(request,"owner");
+        });
+    }
+    @Test
+    public void shouldNotInviteAllWithoutClubId(){
+        BulkInvitationRequest request = new BulkInvitationRequest(null,Collections.singletonList("reader"));
+        assertThrows(IllegalArgumentException.class,()->{
+            clubService.inviteAll(request,"owner");
+        });
+        verify(clubRepository, never()).findById(any());
+    }
+    @Test
+    public void shouldNotInviteAllToClubOfAnotherOwner(){
+        Member owner = new Member((long)1,"owner");
+        Club club = new Club((long)1,"Klasik Okurlar","desc",owner,true);
+        given(clubRepository.findById((long)1)).willReturn(Optional.of(club));
+        BulkInvitationRequest request = new BulkInvitationRequest((long)1,Collections.singletonList("reader"));
+        assertThrows(NotOwnerException.class,()->{
+            clubService.inviteAll(request,"reader");
+        });
+        verify(invitationRepository, never()).insertAll(any(Long.class),any());
+        verify(messageProducer, never()).sendMailRequests(any());
+    }
+    @Test
     public void shouldNotFindPostWithIdIfPostNotExistWithId(){
         given(postRepository.findPostById(any(Long.class))).willReturn(null);
         assertThrows(IllegalArgumentException.class,()->{
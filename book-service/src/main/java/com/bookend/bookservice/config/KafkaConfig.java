@@ -42,6 +42,7 @@ public class KafkaConfig {
         config.put(ConsumerConfig.GROUP_ID_CONFIG, "bookend-bookservice");
         config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
         config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 500);
 
         return new DefaultKafkaConsumerFactory<>(config);
     }
@@ -53,4 +54,16 @@ public class KafkaConfig {
         factory.setConsumerFactory(consumerFactory());
         return  factory;
     }
+
+    /**
+     * Hands the listener a whole poll at once, for the rate and comment events that are coalesced per book.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String,String> batchKafkaListenerContainerFactory()
+    {
+        ConcurrentKafkaListenerContainerFactory<String,String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.setBatchListener(true);
+        return  factory;
+    }
 }
\ No newline at end of file
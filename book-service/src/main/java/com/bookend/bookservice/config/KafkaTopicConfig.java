@@ -1,25 +1,28 @@
 package com.bookend.bookservice.config;
 
 import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.TopicBuilder;
 
 @Configuration
 class KafkaTopicConfig {
+    @Value("${bookend.kafka.partitions:6}")
+    private int partitions;
 
     @Bean
     public NewTopic addbook() {
-        return TopicBuilder.name("adding-book").build();
+        return TopicBuilder.name("adding-book").partitions(partitions).build();
     }
 
     @Bean
     public NewTopic deletebook() {
-        return TopicBuilder.name("deleting-book").build();
+        return TopicBuilder.name("deleting-book").partitions(partitions).build();
     }
 
     @Bean
     public NewTopic addgenre() {
-        return TopicBuilder.name("adding-genre").build();
+        return TopicBuilder.name("adding-genre").partitions(partitions).build();
     }
 }
@@ -1,12 +1,46 @@
 package com.bookend.bookservice.config;
 
+import com.bookend.bookservice.model.Book;
 import com.bookend.bookservice.repository.BookRepository;
+import com.bookend.bookservice.repository.BookRepositoryImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
 
 @EnableMongoRepositories(basePackageClasses = BookRepository.class)
 @Configuration
 public class MongoDBConfig {
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    public void setMongoTemplate(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Paged search walks (bookName, _id) in order and stops once a page is filled. Titles are matched in
+     * the title index, which hands over only the ids of one page, so these indexes serve the pages without
+     * a title: the whole catalogue, and one genre, sought by equality under a case-insensitive collation.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        IndexOperations books = mongoTemplate.indexOps(Book.class);
+        books.ensureIndex(new Index().on("bookName", Sort.Direction.ASC).on("_id", Sort.Direction.ASC)
+                .named("bookName_id"));
+        // the genre index used to be built without a collation, and an index cannot change its options
+        if (books.getIndexInfo().stream().anyMatch(index -> "genre_bookName".equals(index.getName()))) {
+            books.dropIndex("genre_bookName");
+        }
+        books.ensureIndex(new Index().on("genre.genre", Sort.Direction.ASC).on("bookName", Sort.Direction.ASC)
+                .on("_id", Sort.Direction.ASC).named("genre_bookName_id")
+                .collation(BookRepositoryImpl.IGNORE_CASE));
+    }
 
   //after running one time make the method as comment
    /* @Bean
@@ -28,4 +62,4 @@ public class MongoDBConfig {
         };
     }*/
 
-}
\ No newline at end of file
+}
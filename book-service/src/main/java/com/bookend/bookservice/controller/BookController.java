@@ -5,6 +5,7 @@ import com.bookend.bookservice.exception.MandatoryFieldException;
 import com.bookend.bookservice.exception.NotFoundException;
 import com.bookend.bookservice.model.Book;
 import com.bookend.bookservice.model.Genre;
+import com.bookend.bookservice.payload.BookPage;
 import com.bookend.bookservice.payload.BookRequest;
 import com.bookend.bookservice.service.BookService;
 import com.bookend.bookservice.service.GenreService;
@@ -87,6 +88,30 @@ public class BookController {
 
     }
 
+    /**
+     * BS-BC-8 (CM_61)
+     */
+    @ApiOperation(value = "Search books one page at a time", response = BookPage.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully retrieved book page"),
+            @ApiResponse(code = 400, message = "Page, size or cursor is not valid."),
+            @ApiResponse(code = 401, message = "You are not authorized to search book")
+    })
+    @GetMapping(value = "", params = "size")
+    public BookPage searchPage(@RequestParam(required = false) String title
+            ,@RequestParam(required = false) String genre
+            ,@RequestParam(required = false) boolean rateSort
+            ,@RequestParam(required = false) boolean commentSort
+            ,@RequestParam(defaultValue = "0") int page
+            ,@RequestParam int size
+            ,@RequestParam(required = false) String cursor){
+        try {
+            return bookService.search(title,genre,rateSort,commentSort,page,size,cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,e.getMessage());
+        }
+    }
+
     /**
      * BS-BC-3 (CM_34)
      */
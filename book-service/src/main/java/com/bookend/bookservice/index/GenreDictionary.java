@@ -0,0 +1,103 @@
+package com.bookend.bookservice.index;
+
+import com.bookend.bookservice.model.Genre;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Versioned near-cache of the genre dictionary. Readers share an immutable {@link Snapshot} without
+ * locking or copying, and every change publishes a new snapshot under the next version, so a full load
+ * that raced with a change is never installed over it.
+ */
+public class GenreDictionary {
+    private final AtomicReference<Snapshot> current = new AtomicReference<>(Snapshot.UNLOADED);
+
+    public Snapshot snapshot() {
+        return current.get();
+    }
+
+    /**
+     * Installs {@code genres}, read from the database while {@code seen} was current. When a change
+     * was published in the meantime the load is only handed back to the caller, not installed.
+     */
+    public Snapshot load(Snapshot seen, Collection<Genre> genres) {
+        Snapshot loaded = new Snapshot(seen.version + 1, true, genres);
+        if (current.compareAndSet(seen, loaded)) {
+            return loaded;
+        }
+        Snapshot now = current.get();
+        return now.loaded ? now : loaded;
+    }
+
+    /**
+     * Adds a genre or renames the one with the same id.
+     */
+    public void put(Genre genre) {
+        current.updateAndGet(snapshot -> snapshot.with(genre));
+    }
+
+    public static final class Snapshot {
+        private static final Snapshot UNLOADED = new Snapshot(0, false, Collections.emptyList());
+
+        private final long version;
+        private final boolean loaded;
+        private final List<Genre> genres;
+        private final Map<String, Genre> byId;
+        private final Map<String, Genre> byName;
+
+        private Snapshot(long version, boolean loaded, Collection<Genre> genres) {
+            this.version = version;
+            this.loaded = loaded;
+            Map<String, Genre> byId = new HashMap<>();
+            Map<String, Genre> byName = new HashMap<>();
+            for (Genre genre : genres) {
+                byId.put(genre.getId(), genre);
+                byName.put(genre.getGenre(), genre);
+            }
+            this.genres = Collections.unmodifiableList(new ArrayList<>(genres));
+            this.byId = byId;
+            this.byName = byName;
+        }
+
+        private Snapshot with(Genre genre) {
+            // an unloaded snapshot only moves its version on, which fails any load still in flight
+            if (!loaded) {
+                return new Snapshot(version + 1, false, Collections.emptyList());
+            }
+            List<Genre> genres = new ArrayList<>(this.genres.size() + 1);
+            for (Genre held : this.genres) {
+                if (!held.getId().equals(genre.getId())) {
+                    genres.add(held);
+                }
+            }
+            genres.add(genre);
+            return new Snapshot(version + 1, true, genres);
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public boolean isLoaded() {
+            return loaded;
+        }
+
+        public List<Genre> getGenres() {
+            return genres;
+        }
+
+        public Genre byId(String id) {
+            return byId.get(id);
+        }
+
+        public Genre byName(String genre) {
+            return byName.get(genre);
+        }
+    }
+}
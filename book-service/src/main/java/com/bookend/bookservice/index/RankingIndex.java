@@ -0,0 +1,115 @@
+package com.bookend.bookservice.index;
+
+import com.bookend.bookservice.model.Book;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Predicate;
+
+/**
+ * Keeps every book ordered by (rate, id) and by (comment count, id) in two skip lists,
+ * so moving a single book after a new rate or comment costs O(log N) instead of
+ * re-sorting the whole catalogue.
+ */
+public class RankingIndex {
+    public static final String RATE = "rate";
+    public static final String COMMENT = "comment";
+
+    private static final Comparator<Entry> RATE_ORDER = Comparator
+            .comparingDouble((Entry e) -> e.rate)
+            .thenComparing(e -> e.id);
+    private static final Comparator<Entry> COMMENT_ORDER = Comparator
+            .comparingInt((Entry e) -> e.commentCount)
+            .thenComparing(e -> e.id);
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Entry> byRate = new ConcurrentSkipListSet<>(RATE_ORDER);
+    private final ConcurrentSkipListSet<Entry> byComment = new ConcurrentSkipListSet<>(COMMENT_ORDER);
+
+    /**
+     * Inserts the book or moves it to the position given by its current rate and comment count.
+     */
+    public synchronized void put(Book book) {
+        Entry entry = new Entry(book);
+        Entry old = entries.put(entry.id, entry);
+        if (old != null) {
+            byRate.remove(old);
+            byComment.remove(old);
+        }
+        byRate.add(entry);
+        byComment.add(entry);
+    }
+
+    /**
+     * Moves a whole batch of books while holding the lock once.
+     */
+    public synchronized void putAll(Collection<Book> books) {
+        for (Book book : books) {
+            put(book);
+        }
+    }
+
+    public synchronized boolean remove(String bookId) {
+        Entry old = entries.remove(bookId);
+        if (old == null) {
+            return false;
+        }
+        byRate.remove(old);
+        byComment.remove(old);
+        return true;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Walks the ranking from the highest score down and returns at most {@code limit} books
+     * accepted by {@code filter}, skipping the first {@code offset} matches.
+     */
+    public List<Book> top(String type, Predicate<Book> filter, int offset, int limit) {
+        List<Book> page = new ArrayList<>();
+        int skipped = 0;
+        Iterator<Entry> iterator = descending(type).iterator();
+        while (iterator.hasNext() && page.size() < limit) {
+            Book book = iterator.next().book;
+            if (!filter.test(book)) {
+                continue;
+            }
+            if (skipped < offset) {
+                skipped++;
+                continue;
+            }
+            page.add(book);
+        }
+        return page;
+    }
+
+    private NavigableSet<Entry> descending(String type) {
+        if (COMMENT.equals(type)) {
+            return byComment.descendingSet();
+        }
+        return byRate.descendingSet();
+    }
+
+    private static final class Entry {
+        private final String id;
+        private final double rate;
+        private final int commentCount;
+        private final Book book;
+
+        private Entry(Book book) {
+            this.id = book.getId();
+            this.rate = book.getRate() == null ? 0.0 : book.getRate();
+            this.commentCount = book.getComments() == null ? 0 : book.getComments().size();
+            this.book = book;
+        }
+    }
+}
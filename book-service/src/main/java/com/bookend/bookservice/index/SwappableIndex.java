@@ -0,0 +1,59 @@
+package com.bookend.bookservice.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Holds the live copy of an in-memory index and replaces it with a freshly loaded one. A load can take
+ * long while books keep changing, so every change made during a load is applied to the live copy and
+ * also recorded, and the recorded changes are replayed on the loaded copy just before it goes live.
+ */
+public class SwappableIndex<I> {
+    private final Object loads = new Object();
+    private volatile I current;
+    // changes made since the running load started, null while none runs
+    private List<Consumer<? super I>> pending;
+
+    public SwappableIndex(I initial) {
+        this.current = initial;
+    }
+
+    public I get() {
+        return current;
+    }
+
+    public synchronized void apply(Consumer<? super I> change) {
+        change.accept(current);
+        if (pending != null) {
+            pending.add(change);
+        }
+    }
+
+    /**
+     * Loads a new copy with {@code loader} and swaps it in, one load at a time. When the load fails the
+     * live copy stays in place.
+     */
+    public void reload(Supplier<? extends I> loader) {
+        synchronized (loads) {
+            synchronized (this) {
+                pending = new ArrayList<>();
+            }
+            I loaded;
+            try {
+                loaded = loader.get();
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    pending = null;
+                }
+                throw e;
+            }
+            synchronized (this) {
+                pending.forEach(change -> change.accept(loaded));
+                pending = null;
+                current = loaded;
+            }
+        }
+    }
+}
@@ -0,0 +1,465 @@
+package com.bookend.bookservice.index;
+
+import com.bookend.bookservice.model.Book;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Trigram inverted index over book titles. Every book gets an int ordinal and each trigram keeps
+ * a sorted int array of the ordinals whose title contains it, so a substring query is answered by
+ * intersecting a few small arrays and checking the survivors. Only the book ids, the titles and the
+ * genre names are held, the books themselves stay in the database. The titles are also kept in
+ * (bookName, id) order, so a page of matches is read in the order the catalogue is paged in.
+ */
+public class TitleIndex {
+    private static final int GRAM = 3;
+    private static final int MAX_TYPOS = 1;
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final String PADDING = "\u0000\u0000";
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final List<String> bookIds = new ArrayList<>();
+    private final List<String> titles = new ArrayList<>();
+    private final List<Key> keys = new ArrayList<>();
+    private final List<String> genres = new ArrayList<>();
+    private final NavigableMap<Key, Integer> byName = new TreeMap<>();
+    private final NavigableMap<Long, Postings> postings = new TreeMap<>();
+    private final Postings freeOrdinals = new Postings();
+
+    public void put(Book book) {
+        String title = normalize(book.getBookName());
+        Key key = new Key(book.getBookName(), book.getId());
+        String genre = book.getGenre() == null ? null : normalize(book.getGenre().getGenre());
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(book.getId());
+            if (ordinal == null) {
+                ordinal = nextOrdinal();
+                ordinals.put(book.getId(), ordinal);
+            } else {
+                unindex(ordinal, titles.get(ordinal));
+                byName.remove(keys.get(ordinal));
+            }
+            bookIds.set(ordinal, book.getId());
+            titles.set(ordinal, title);
+            keys.set(ordinal, key);
+            genres.set(ordinal, genre);
+            byName.put(key, ordinal);
+            for (long gram : grams(title + PADDING)) {
+                postings.computeIfAbsent(gram, g -> new Postings()).add(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(String bookId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(bookId);
+            if (ordinal == null) {
+                return false;
+            }
+            unindex(ordinal, titles.get(ordinal));
+            byName.remove(keys.get(ordinal));
+            bookIds.set(ordinal, null);
+            titles.set(ordinal, null);
+            keys.set(ordinal, null);
+            genres.set(ordinal, null);
+            freeOrdinals.add(ordinal);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of the books whose title contains {@code query}, ignoring case. When nothing
+     * matches exactly, titles containing the query with at most one typo are returned instead.
+     */
+    public List<String> search(String query) {
+        String normalized = normalize(query);
+        lock.readLock().lock();
+        try {
+            int[] found = exact(normalized);
+            if (found.length == 0) {
+                found = fuzzy(normalized);
+            }
+            List<String> ids = new ArrayList<>(found.length);
+            for (int ordinal : found) {
+                ids.add(bookIds.get(ordinal));
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of the books {@link #search} matches whose genre is {@code genre}, ignoring case,
+     * in (bookName, id) order. The page starts after the book {@code afterName}/{@code afterId} when it is
+     * given, skips {@code skip} books and holds at most {@code limit}.
+     */
+    public List<String> page(String query, String genre, String afterName, String afterId, int skip, int limit) {
+        String normalized = normalize(query);
+        String normalizedGenre = genre == null ? null : normalize(genre);
+        Key after = afterName == null || afterId == null ? null : new Key(afterName, afterId);
+        int wanted = skip + limit;
+        lock.readLock().lock();
+        try {
+            List<Integer> found = exactPage(normalized, normalizedGenre, after, wanted);
+            if (found.isEmpty() && exactPage(normalized, null, null, 1).isEmpty()) {
+                found = ordered(fuzzy(normalized), normalizedGenre, after, wanted);
+            }
+            List<String> ids = new ArrayList<>(Math.max(0, found.size() - skip));
+            for (int i = skip; i < found.size(); i++) {
+                ids.add(bookIds.get(found.get(i)));
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The first {@code limit} exact matches after {@code after}. When matches are rare they are collected
+     * from the postings and ordered, when they are common the titles are walked in order from the cursor,
+     * which reaches a full page after about limit * size() / matches titles. The walk falls back to the
+     * postings once it has cost as much as reading them, so a page never costs more than either.
+     */
+    private List<Integer> exactPage(String query, String genre, Key after, int limit) {
+        List<Integer> page = new ArrayList<>();
+        long estimate = estimateExact(query);
+        if (estimate == 0 || limit <= 0) {
+            return page;
+        }
+        if (estimate * estimate <= (long) ordinals.size() * limit) {
+            return ordered(exact(query), genre, after, limit);
+        }
+        Key last = after;
+        long budget = estimate;
+        NavigableMap<Key, Integer> tail = after == null ? byName : byName.tailMap(after, false);
+        for (Map.Entry<Key, Integer> entry : tail.entrySet()) {
+            if (page.size() == limit) {
+                return page;
+            }
+            if (budget-- == 0) {
+                page.addAll(ordered(exact(query), genre, last, limit - page.size()));
+                return page;
+            }
+            int ordinal = entry.getValue();
+            if (titles.get(ordinal).contains(query) && hasGenre(ordinal, genre)) {
+                page.add(ordinal);
+            }
+            last = entry.getKey();
+        }
+        return page;
+    }
+
+    /**
+     * An upper bound of the exact matches: the shortest postings list of the query's trigrams, or for
+     * shorter queries every posting of the trigrams they start.
+     */
+    private long estimateExact(String query) {
+        if (query.isEmpty()) {
+            return 0;
+        }
+        if (query.length() < GRAM) {
+            long total = 0;
+            for (Postings list : postings.subMap(pack(query, 0), true, pack(query, Character.MAX_VALUE), true).values()) {
+                total += list.size;
+            }
+            return total;
+        }
+        long smallest = Long.MAX_VALUE;
+        for (long gram : grams(query)) {
+            Postings list = postings.get(gram);
+            if (list == null) {
+                return 0;
+            }
+            smallest = Math.min(smallest, list.size);
+        }
+        return smallest;
+    }
+
+    /**
+     * The {@code limit} candidates of {@code genre} that come first after {@code after}, in (bookName, id) order.
+     */
+    private List<Integer> ordered(int[] candidates, String genre, Key after, int limit) {
+        List<Integer> page = new ArrayList<>();
+        if (limit <= 0) {
+            return page;
+        }
+        Comparator<Integer> byKey = Comparator.comparing(keys::get);
+        PriorityQueue<Integer> lastFirst = new PriorityQueue<>(Math.min(limit, candidates.length) + 1, byKey.reversed());
+        for (int ordinal : candidates) {
+            if (hasGenre(ordinal, genre) && (after == null || keys.get(ordinal).compareTo(after) > 0)) {
+                lastFirst.add(ordinal);
+                if (lastFirst.size() > limit) {
+                    lastFirst.poll();
+                }
+            }
+        }
+        page.addAll(lastFirst);
+        page.sort(byKey);
+        return page;
+    }
+
+    private boolean hasGenre(int ordinal, String genre) {
+        return genre == null || genre.equals(genres.get(ordinal));
+    }
+
+    private int[] exact(String query) {
+        if (query.isEmpty()) {
+            return new int[0];
+        }
+        if (query.length() < GRAM) {
+            // titles are indexed with padding at the end, so every shorter substring of a title starts
+            // one of its trigrams and the trigrams with the query as prefix are one range of keys
+            long low = pack(query, 0);
+            long high = pack(query, Character.MAX_VALUE);
+            BitSet hits = new BitSet(titles.size());
+            for (Postings list : postings.subMap(low, true, high, true).values()) {
+                for (int i = 0; i < list.size; i++) {
+                    hits.set(list.values[i]);
+                }
+            }
+            return hits.stream().toArray();
+        }
+        long[] grams = grams(query);
+        Postings[] lists = new Postings[grams.length];
+        for (int i = 0; i < grams.length; i++) {
+            lists[i] = postings.get(grams[i]);
+            if (lists[i] == null) {
+                return new int[0];
+            }
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+        int[] candidates = Arrays.copyOf(lists[0].values, lists[0].size);
+        int count = candidates.length;
+        for (int i = 1; i < lists.length && count > 0; i++) {
+            count = lists[i].retainAll(candidates, count);
+        }
+        int found = 0;
+        for (int i = 0; i < count; i++) {
+            if (titles.get(candidates[i]).contains(query)) {
+                candidates[found++] = candidates[i];
+            }
+        }
+        return Arrays.copyOf(candidates, found);
+    }
+
+    /**
+     * Titles sharing enough trigrams with the query to be within one typo of it, checked one by one.
+     * One edit changes at most {@value #GRAM} trigrams, so a title has to share all but that many, and
+     * never fewer than one, which is also why queries shorter than {@value #MIN_FUZZY_LENGTH} are not
+     * matched with typos at all.
+     */
+    private int[] fuzzy(String query) {
+        if (query.length() < MIN_FUZZY_LENGTH) {
+            return new int[0];
+        }
+        long[] grams = grams(query);
+        int threshold = Math.max(1, grams.length - GRAM * MAX_TYPOS);
+        int total = 0;
+        for (long gram : grams) {
+            Postings list = postings.get(gram);
+            total += list == null ? 0 : list.size;
+        }
+        int[] hits = new int[total];
+        int filled = 0;
+        for (long gram : grams) {
+            Postings list = postings.get(gram);
+            if (list != null) {
+                System.arraycopy(list.values, 0, hits, filled, list.size);
+                filled += list.size;
+            }
+        }
+        Arrays.sort(hits);
+        int[] found = new int[hits.length];
+        int count = 0;
+        int start = 0;
+        while (start < hits.length) {
+            int end = start;
+            while (end < hits.length && hits[end] == hits[start]) {
+                end++;
+            }
+            int ordinal = hits[start];
+            if (end - start >= threshold && substringDistance(query, titles.get(ordinal)) <= MAX_TYPOS) {
+                found[count++] = ordinal;
+            }
+            start = end;
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    private int nextOrdinal() {
+        if (freeOrdinals.size > 0) {
+            int ordinal = freeOrdinals.values[freeOrdinals.size - 1];
+            freeOrdinals.size--;
+            return ordinal;
+        }
+        bookIds.add(null);
+        titles.add(null);
+        keys.add(null);
+        genres.add(null);
+        return bookIds.size() - 1;
+    }
+
+    private void unindex(int ordinal, String title) {
+        for (long gram : grams(title + PADDING)) {
+            Postings list = postings.get(gram);
+            if (list != null) {
+                list.remove(ordinal);
+                if (list.size == 0) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static String normalize(String title) {
+        return title == null ? "" : title.toLowerCase();
+    }
+
+    /**
+     * Packs the one or two chars of {@code prefix} followed by {@code fill} the same way trigrams are packed.
+     */
+    private static long pack(String prefix, char fill) {
+        long packed = 0;
+        for (int i = 0; i < GRAM; i++) {
+            packed = (packed << 16) | (i < prefix.length() ? prefix.charAt(i) : fill);
+        }
+        return packed;
+    }
+
+    /**
+     * Distinct trigrams of {@code text}, each packed into a long as three 16 bit chars.
+     */
+    private static long[] grams(String text) {
+        int count = Math.max(0, text.length() - GRAM + 1);
+        long[] grams = new long[count];
+        for (int i = 0; i < count; i++) {
+            grams[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || grams[distinct - 1] != grams[i]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    /**
+     * Smallest edit distance between {@code pattern} and any substring of {@code text}.
+     */
+    static int substringDistance(String pattern, String text) {
+        int m = pattern.length();
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int i = 0; i <= m; i++) {
+            previous[i] = i;
+        }
+        int best = previous[m];
+        for (int j = 0; j < text.length(); j++) {
+            char c = text.charAt(j);
+            current[0] = 0;
+            for (int i = 1; i <= m; i++) {
+                int cost = pattern.charAt(i - 1) == c ? 0 : 1;
+                current[i] = Math.min(previous[i - 1] + cost, Math.min(previous[i], current[i - 1]) + 1);
+            }
+            best = Math.min(best, current[m]);
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return best;
+    }
+
+    /**
+     * A book's place in the (bookName, id) order the catalogue is paged in.
+     */
+    private static final class Key implements Comparable<Key> {
+        private final String name;
+        private final String id;
+
+        private Key(String name, String id) {
+            this.name = name == null ? "" : name;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int byName = name.compareTo(other.name);
+            return byName != 0 ? byName : id.compareTo(other.id);
+        }
+    }
+
+    /**
+     * Sorted, duplicate free list of ordinals backed by a growable int array.
+     */
+    private static final class Postings {
+        private int[] values = new int[4];
+        private int size;
+
+        private void add(int ordinal) {
+            int at = Arrays.binarySearch(values, 0, size, ordinal);
+            if (at >= 0) {
+                return;
+            }
+            at = -at - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size + (size >> 1) + 1);
+            }
+            System.arraycopy(values, at, values, at + 1, size - at);
+            values[at] = ordinal;
+            size++;
+        }
+
+        private void remove(int ordinal) {
+            int at = Arrays.binarySearch(values, 0, size, ordinal);
+            if (at < 0) {
+                return;
+            }
+            System.arraycopy(values, at + 1, values, at, size - at - 1);
+            size--;
+        }
+
+        /**
+         * Keeps only the first {@code count} entries of {@code candidates} that are also in this list
+         * and returns how many remain.
+         */
+        private int retainAll(int[] candidates, int count) {
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                if (Arrays.binarySearch(values, 0, size, candidates[i]) >= 0) {
+                    candidates[kept++] = candidates[i];
+                }
+            }
+            return kept;
+        }
+    }
+}
@@ -1,80 +1,105 @@
 package com.bookend.bookservice.kafka;
 
-import com.bookend.bookservice.exception.NotFoundException;
-import com.bookend.bookservice.model.Book;
+import com.bookend.bookservice.model.Genre;
+import com.bookend.bookservice.payload.CommentMessage;
+import com.bookend.bookservice.payload.RateMessage;
 import com.bookend.bookservice.service.BookService;
-import com.bookend.bookservice.service.SortService;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.bookend.bookservice.service.GenreService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 @Component
 public class Listener {
-    private SortService sortService;
-
     private BookService bookService;
+    private GenreService genreService;
+    // readers are immutable and thread safe, so every consumer thread shares them
+    private ObjectReader commentReader;
+    private ObjectReader rateReader;
+    private ObjectReader genreReader;
 
     @Autowired
-    public void setSortService(SortService sortService) {
-        this.sortService = sortService;
+    public void setBookService(BookService bookService) {
+        this.bookService = bookService;
     }
 
+    @Autowired
+    public void setGenreService(GenreService genreService) {
+        this.genreService = genreService;
+    }
 
     @Autowired
-    public void setBookService(BookService bookService) {
-        this.bookService = bookService;
+    public void setObjectMapper(ObjectMapper objectMapper) {
+        this.commentReader = objectMapper.readerFor(CommentMessage.class);
+        this.rateReader = objectMapper.readerFor(RateMessage.class);
+        this.genreReader = objectMapper.readerFor(Genre.class);
     }
-    @KafkaListener(topics = "new-comment",
-            groupId ="bookend-bookservice")
-    public void newComment(String message){
 
-        System.out.println(message);
-        ObjectMapper mapper = new ObjectMapper();
-        try {
-            Map<String,String> msg = mapper.readValue(message,Map.class);
-            Book book = bookService.getById(msg.get("book"));
-            sortService.remove(book);
-            System.out.println(msg.get("comment"));
-            System.out.println(Long.valueOf(msg.get("comment")));
-            book.getComments().add(Long.valueOf(msg.get("comment")));
-            Book updatedBook = bookService.update(book);
-            sortService.add(updatedBook);
-            sortService.sort("comment");
-        } catch (JsonProcessingException e) {
-            e.printStackTrace();
-        } catch (IOException e) {
-            e.printStackTrace();
-        } catch (NotFoundException e) {
-            e.printStackTrace();
+    /**
+     * Receives a whole poll of comment events and appends all new comment ids of each book at once.
+     * Records are read one by one so a malformed event is skipped without failing the batch.
+     */
+    @KafkaListener(topics = "new-comment",
+            groupId ="bookend-bookservice",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            concurrency = "${bookend.kafka.concurrency.new-comment:1}")
+    public void newComment(List<String> messages){
+        Map<String,List<Long>> comments = new LinkedHashMap<>();
+        for(String message : messages){
+            try {
+                CommentMessage msg = commentReader.readValue(message);
+                if(msg.getBook() != null && msg.getComment() != null){
+                    comments.computeIfAbsent(msg.getBook(),book -> new ArrayList<>()).add(msg.getComment());
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
         }
-
+        bookService.applyEngagement(new HashMap<>(),comments);
     }
+
+    /**
+     * Receives a whole poll of rate events and keeps only the latest average of each book.
+     */
     @KafkaListener(topics = "new-rate",
-            groupId ="bookend-bookservice")
-    public void newRate(String message){
+            groupId ="bookend-bookservice",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            concurrency = "${bookend.kafka.concurrency.new-rate:1}")
+    public void newRate(List<String> messages){
+        Map<String,Double> rates = new LinkedHashMap<>();
+        for(String message : messages){
+            try {
+                RateMessage msg = rateReader.readValue(message);
+                if(msg.getBook() != null && msg.getRate() != null){
+                    rates.put(msg.getBook(),msg.getRate());
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        bookService.applyEngagement(rates,new HashMap<>());
+    }
 
-        System.out.println(message);
-        ObjectMapper mapper = new ObjectMapper();
+    /**
+     * Every instance keeps its own genre near-cache, so each one joins with a group of its own and
+     * sees every genre change, including the ones it published itself.
+     */
+    @KafkaListener(topics = "adding-genre",
+            groupId ="bookend-bookservice-genres-${random.uuid}")
+    public void genreChanged(String message){
         try {
-            Map<String,String> msg = mapper.readValue(message,Map.class);
-
-            Book book = bookService.getById(msg.get("book"));
-            sortService.remove(book);
-            book.setRate(Double.valueOf(msg.get("rate")));
-            Book updatedBook = bookService.update(book);
-            sortService.add(updatedBook);
-            sortService.sort("rate");
-        } catch (JsonProcessingException e) {
-            e.printStackTrace();
+            genreService.refresh(genreReader.readValue(message));
         } catch (IOException e) {
             e.printStackTrace();
-        } catch (NotFoundException e) {
-            e.printStackTrace();
         }
     }
 }
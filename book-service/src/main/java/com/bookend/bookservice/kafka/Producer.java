@@ -18,15 +18,15 @@ public class Producer {
 
     public void publishBook(KafkaMessage kafkaMessage) {
         LOGGER.info("sending book='{}' to topic='{}'", kafkaMessage.getMessage(), kafkaMessage.getTopic());
-        kafkaTemplate.send(kafkaMessage.getTopic(), kafkaMessage.getMessage());
+        kafkaTemplate.send(kafkaMessage.getTopic(), kafkaMessage.getKey(), kafkaMessage.getMessage());
     }
     public void deleteBook(KafkaMessage kafkaMessage) {
         LOGGER.info("sending book='{}' to topic='{}'", kafkaMessage.getMessage(), kafkaMessage.getTopic());
-        kafkaTemplate.send(kafkaMessage.getTopic(), kafkaMessage.getMessage());
+        kafkaTemplate.send(kafkaMessage.getTopic(), kafkaMessage.getKey(), kafkaMessage.getMessage());
     }
     public void publishGenre(KafkaMessage kafkaMessage) {
         LOGGER.info("sending book='{}' to topic='{}'", kafkaMessage.getMessage(), kafkaMessage.getTopic());
-        kafkaTemplate.send(kafkaMessage.getTopic(), kafkaMessage.getMessage());
+        kafkaTemplate.send(kafkaMessage.getTopic(), kafkaMessage.getKey(), kafkaMessage.getMessage());
     }
 
 
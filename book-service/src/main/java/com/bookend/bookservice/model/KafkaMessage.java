@@ -2,6 +2,7 @@ package com.bookend.bookservice.model;
 
 public class KafkaMessage<T> {
     private String topic;
+    private String key;
     private T message;
 
     public KafkaMessage(String topic, T message) {
@@ -9,10 +10,20 @@ public class KafkaMessage<T> {
         this.message = message;
     }
 
+    public KafkaMessage(String topic, String key, T message) {
+        this.topic = topic;
+        this.key = key;
+        this.message = message;
+    }
+
     public String getTopic() {
         return topic;
     }
 
+    public String getKey() {
+        return key;
+    }
+
     public T getMessage() {
         return message;
     }
@@ -0,0 +1,54 @@
+package com.bookend.bookservice.payload;
+
+import com.bookend.bookservice.model.Book;
+
+import java.util.List;
+
+public class BookPage {
+    private List<Book> books;
+    private Integer page;
+    private Integer size;
+    private String nextCursor;
+
+    public BookPage() {
+    }
+
+    public BookPage(List<Book> books, Integer page, Integer size, String nextCursor) {
+        this.books = books;
+        this.page = page;
+        this.size = size;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Book> getBooks() {
+        return books;
+    }
+
+    public void setBooks(List<Book> books) {
+        this.books = books;
+    }
+
+    public Integer getPage() {
+        return page;
+    }
+
+    public void setPage(Integer page) {
+        this.page = page;
+    }
+
+    public Integer getSize() {
+        return size;
+    }
+
+    public void setSize(Integer size) {
+        this.size = size;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,30 @@
+package com.bookend.bookservice.payload;
+
+public class CommentMessage {
+    private String book;
+    private Long comment;
+
+    public CommentMessage() {
+    }
+
+    public CommentMessage(String book, Long comment) {
+        this.book = book;
+        this.comment = comment;
+    }
+
+    public String getBook() {
+        return book;
+    }
+
+    public void setBook(String book) {
+        this.book = book;
+    }
+
+    public Long getComment() {
+        return comment;
+    }
+
+    public void setComment(Long comment) {
+        this.comment = comment;
+    }
+}
@@ -0,0 +1,30 @@
+package com.bookend.bookservice.payload;
+
+public class RateMessage {
+    private String book;
+    private Double rate;
+
+    public RateMessage() {
+    }
+
+    public RateMessage(String book, Double rate) {
+        this.book = book;
+        this.rate = rate;
+    }
+
+    public String getBook() {
+        return book;
+    }
+
+    public void setBook(String book) {
+        this.book = book;
+    }
+
+    public Double getRate() {
+        return rate;
+    }
+
+    public void setRate(Double rate) {
+        this.rate = rate;
+    }
+}
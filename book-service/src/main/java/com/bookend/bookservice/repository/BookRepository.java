@@ -10,7 +10,7 @@ import java.util.List;
 
 
 @Repository
-public interface BookRepository extends MongoRepository<Book, String> {
+public interface BookRepository extends MongoRepository<Book, String>, BookRepositoryCustom {
     Book findBookById(String id);
 
     List<Book> findByAuthorid(String author);
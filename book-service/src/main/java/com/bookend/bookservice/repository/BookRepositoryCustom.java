@@ -0,0 +1,20 @@
+package com.bookend.bookservice.repository;
+
+import com.bookend.bookservice.model.Book;
+
+import java.util.List;
+import java.util.Map;
+
+public interface BookRepositoryCustom {
+    /**
+     * Returns at most {@code limit} books ordered by (bookName, id) whose genre is {@code genre}, ignoring case.
+     * Paging is keyset based when {@code afterName}/{@code afterId} are given, otherwise the first {@code skip}
+     * matches are skipped.
+     */
+    List<Book> search(String genre, String afterName, String afterId, int skip, int limit);
+
+    /**
+     * Sets the latest rate and appends the new comment ids of every given book in a single bulk write.
+     */
+    void bulkUpdateEngagement(Map<String, Double> rates, Map<String, List<Long>> comments);
+}
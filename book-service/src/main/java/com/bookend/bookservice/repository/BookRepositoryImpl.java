@@ -0,0 +1,75 @@
+package com.bookend.bookservice.repository;
+
+import com.bookend.bookservice.model.Book;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Collation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class BookRepositoryImpl implements BookRepositoryCustom {
+    // the genre_bookName index is built with the same collation, so genres are sought in it ignoring case
+    public static final Collation IGNORE_CASE = Collation.of("en").strength(Collation.ComparisonLevel.secondary());
+
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    public void setMongoTemplate(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<Book> search(String genre, String afterName, String afterId, int skip, int limit) {
+        List<Criteria> criteria = new ArrayList<>();
+        if (genre != null) {
+            criteria.add(Criteria.where("genre.genre").is(genre));
+        }
+        if (afterName != null && afterId != null) {
+            criteria.add(new Criteria().orOperator(
+                    Criteria.where("bookName").gt(afterName),
+                    new Criteria().andOperator(Criteria.where("bookName").is(afterName),
+                            Criteria.where("id").gt(afterId))));
+        }
+        Query query = new Query();
+        if (!criteria.isEmpty()) {
+            query.addCriteria(new Criteria().andOperator(criteria.toArray(new Criteria[0])));
+        }
+        if (genre != null) {
+            query.collation(IGNORE_CASE);
+        }
+        query.with(Sort.by(Sort.Direction.ASC, "bookName").and(Sort.by(Sort.Direction.ASC, "id")))
+                .skip(skip)
+                .limit(limit);
+        return mongoTemplate.find(query, Book.class);
+    }
+
+    @Override
+    public void bulkUpdateEngagement(Map<String, Double> rates, Map<String, List<Long>> comments) {
+        Set<String> bookIds = new HashSet<>(rates.keySet());
+        bookIds.addAll(comments.keySet());
+        if (bookIds.isEmpty()) {
+            return;
+        }
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Book.class);
+        for (String bookId : bookIds) {
+            Update update = new Update();
+            if (rates.containsKey(bookId)) {
+                update.set("rate", rates.get(bookId));
+            }
+            if (comments.containsKey(bookId)) {
+                update.push("comments").each(comments.get(bookId).toArray());
+            }
+            operations.updateOne(Query.query(Criteria.where("id").is(bookId)), update);
+        }
+        operations.execute();
+    }
+}
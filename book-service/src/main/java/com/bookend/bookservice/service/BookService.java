@@ -4,9 +4,11 @@ import com.bookend.bookservice.exception.AlreadyExist;
 import com.bookend.bookservice.exception.MandatoryFieldException;
 import com.bookend.bookservice.exception.NotFoundException;
 import com.bookend.bookservice.model.Book;
+import com.bookend.bookservice.payload.BookPage;
 import com.bookend.bookservice.payload.BookRequest;
 
 import java.util.List;
+import java.util.Map;
 /**
  * BS-BSC stands for BookService-BookServiceClass
  * SM stands for ServiceMethod
@@ -48,5 +50,13 @@ public interface BookService {
      * BS-BSC-9 (SM_39)
      */
     List<Book> findBookByVerifiedIsFalse() throws NotFoundException;
+    /**
+     * BS-BSC-10 (SM_87)
+     */
+    BookPage search(String title,String genre,boolean rateSort,boolean commentSort,int page,int size,String cursor);
+    /**
+     * BS-BSC-11 (SM_93)
+     */
+    List<Book> applyEngagement(Map<String,Double> rates,Map<String,List<Long>> comments);
 
 }
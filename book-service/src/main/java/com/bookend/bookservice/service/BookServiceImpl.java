@@ -1,8 +1,10 @@
 package com.bookend.bookservice.service;
 
 import com.bookend.bookservice.exception.*;
+import com.bookend.bookservice.index.RankingIndex;
 import com.bookend.bookservice.kafka.Producer;
 import com.bookend.bookservice.model.*;
+import com.bookend.bookservice.payload.BookPage;
 import com.bookend.bookservice.payload.BookRequest;
 import com.bookend.bookservice.repository.BookRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,17 +14,22 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @Service
 public class BookServiceImpl implements BookService {
     private static final String BOOK_TOPIC = "adding-book";
     private static final String DELETE_TOPIC = "deleting-book";
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final String CURSOR_SEPARATOR = "\n";
 
     private BookRepository bookRepository;
     private GenreService genreService;
     private SortService sortService;
+    private TitleSearchService titleSearchService;
     private Producer producer;
     private Book book = new Book();
 
@@ -32,6 +39,11 @@ public class BookServiceImpl implements BookService {
         this.sortService = sortService;
     }
 
+    @Autowired
+    public void setTitleSearchService(TitleSearchService titleSearchService) {
+        this.titleSearchService = titleSearchService;
+    }
+
     @Autowired
     public void setGenreService(GenreService genreService) {
         this.genreService = genreService;
@@ -96,12 +108,13 @@ public class BookServiceImpl implements BookService {
         Book newBook = new Book(bookRequest.getPage(),genre,bookRequest.getDescription(),bookRequest.getBookName(),bookRequest.getAuthor(),bookRequest.getAuthorid(),bookRequest.getVerified(),bookRequest.getIsbn());
 
         Book savedBook = bookRepository.save(newBook);
-        sortService.add(newBook);
+        sortService.update(savedBook);
+        titleSearchService.index(savedBook);
 
         Map<String, String> message= new HashMap<String, String>();
         message.put("author",savedBook.getAuthorid());
         message.put("bookRequest",savedBook.getId());
-        KafkaMessage kafkaMessage = new KafkaMessage(BOOK_TOPIC,message);
+        KafkaMessage kafkaMessage = new KafkaMessage(BOOK_TOPIC,savedBook.getId(),message);
         producer.publishBook(kafkaMessage);
         book = new Book();
         return savedBook;
@@ -125,7 +138,25 @@ public class BookServiceImpl implements BookService {
 
     @Override
     public Book update(Book book) {
-        return bookRepository.save(book);
+        Book updatedBook = bookRepository.save(book);
+        sortService.update(updatedBook);
+        titleSearchService.index(updatedBook);
+        return updatedBook;
+    }
+
+    @Override
+    public List<Book> applyEngagement(Map<String,Double> rates,Map<String,List<Long>> comments) {
+        if(rates.isEmpty() && comments.isEmpty()){
+            return new ArrayList<>();
+        }
+        bookRepository.bulkUpdateEngagement(rates,comments);
+        Set<String> bookIds = new HashSet<>(rates.keySet());
+        bookIds.addAll(comments.keySet());
+        List<Book> updatedBooks = new ArrayList<>();
+        bookRepository.findAllById(bookIds).forEach(updatedBooks::add);
+        sortService.updateAll(updatedBooks);
+        updatedBooks.forEach(titleSearchService::index);
+        return updatedBooks;
     }
 
     @Override
@@ -133,6 +164,8 @@ public class BookServiceImpl implements BookService {
         Book book = getById(bookID);
         book.setVerified(Boolean.TRUE);
         book = bookRepository.save(book);
+        sortService.update(book);
+        titleSearchService.index(book);
         return book;
     }
 
@@ -153,32 +186,28 @@ public class BookServiceImpl implements BookService {
 
     @Override
     public List<Book> search(String title,String genre, boolean rateSort,boolean commentSort) throws NotFoundException {
-        List<Book> books = new ArrayList<>();
-        if(rateSort){
-           books = sortService.findOne().getSortedByRate();
-           Collections.reverse(books);
-        }
-        else if(commentSort){
-            books = sortService.findOne().getSortedByComment();
-            Collections.reverse(books);
-        }
-        else {
-            books = getAll();
+        List<Book> books;
+        if(rateSort || commentSort){
+            String type = rateSort ? RankingIndex.RATE : RankingIndex.COMMENT;
+            books = sortService.findTop(type,matches(title,genre),0,Integer.MAX_VALUE);
+            if(books.size()==0 && (title!=null || genre!=null)){
+                throw new NotFoundException("No Book Found");
+            }
+            return books;
         }
 
         if(title!=null){
-            books = books.stream()
-                    .filter(book -> book.getBookName().toLowerCase()
-                            .contains(title.toLowerCase()))
-                    .collect(Collectors.toList());
+            books = titleSearchService.search(title);
             if(books.size()==0){
                 throw new NotFoundException("No Book Found");
             }
         }
+        else {
+            books = getAll();
+        }
         if(genre!=null){
             books = books.stream()
-                    .filter(book -> book.getGenre().getGenre().toLowerCase()
-                            .contains(genre.toLowerCase()))
+                    .filter(matches(null,genre))
                     .collect(Collectors.toList());
             if(books.size()==0){
                 throw new NotFoundException("No Book Found");
@@ -188,11 +217,77 @@ public class BookServiceImpl implements BookService {
         return books;
     }
 
+    @Override
+    public BookPage search(String title,String genre,boolean rateSort,boolean commentSort,int page,int size,String cursor) {
+        if(page<0 || size<1){
+            throw new IllegalArgumentException("Page must not be negative and size must be positive.");
+        }
+        size = Math.min(size,MAX_PAGE_SIZE);
+        if(rateSort || commentSort){
+            String type = rateSort ? RankingIndex.RATE : RankingIndex.COMMENT;
+            List<Book> books = sortService.findTop(type,matches(title,genre),page*size,size);
+            return new BookPage(books,page,size,null);
+        }
+
+        String[] after = cursor==null ? new String[2] : decodeCursor(cursor);
+        int skip = cursor==null ? page*size : 0;
+        if(title!=null){
+            // the title index picks the page, the database only loads the books on it
+            List<String> bookIds = titleSearchService.findIds(title,genre,after[0],after[1],skip,size);
+            List<Book> books = inOrder(bookIds);
+            String nextCursor = bookIds.size()<size || books.isEmpty() ? null : encodeCursor(books.get(books.size()-1));
+            return new BookPage(books,page,size,nextCursor);
+        }
+        List<Book> books = bookRepository.search(genre,after[0],after[1],skip,size);
+        String nextCursor = books.size()<size ? null : encodeCursor(books.get(books.size()-1));
+        return new BookPage(books,page,size,nextCursor);
+    }
+
+    private List<Book> inOrder(List<String> bookIds){
+        if(bookIds.isEmpty()){
+            return new ArrayList<>();
+        }
+        Map<String,Book> found = new HashMap<>();
+        bookRepository.findAllById(bookIds).forEach(book -> found.put(book.getId(),book));
+        return bookIds.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private String encodeCursor(Book last){
+        String key = last.getBookName() + CURSOR_SEPARATOR + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor){
+        String key = new String(Base64.getUrlDecoder().decode(cursor),StandardCharsets.UTF_8);
+        int separator = key.lastIndexOf(CURSOR_SEPARATOR);
+        if(separator<0){
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+        return new String[]{key.substring(0,separator),key.substring(separator+1)};
+    }
+
+    private Predicate<Book> matches(String title,String genre){
+        Predicate<Book> predicate = book -> true;
+        if(title!=null){
+            String lowerTitle = title.toLowerCase();
+            predicate = predicate.and(book -> book.getBookName().toLowerCase().contains(lowerTitle));
+        }
+        if(genre!=null){
+            predicate = predicate.and(book -> book.getGenre().getGenre().equalsIgnoreCase(genre));
+        }
+        return predicate;
+    }
+
     @Override
     public void delete(String bookId) throws NotFoundException {
-        KafkaMessage kafkaMessage = new KafkaMessage(DELETE_TOPIC,bookId);
+        KafkaMessage kafkaMessage = new KafkaMessage(DELETE_TOPIC,bookId,bookId);
         producer.deleteBook(kafkaMessage);
         bookRepository.delete(getById(bookId));
+        sortService.remove(bookId);
+        titleSearchService.remove(bookId);
     }
 
     @Override
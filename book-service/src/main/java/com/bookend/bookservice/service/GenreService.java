@@ -31,4 +31,13 @@ public interface GenreService {
      * BS-GSC-5 (SM_44)
      */
     Genre update(Genre genre) throws MandatoryFieldException, NotFoundException, AlreadyExist;
+    /**
+     * BS-GSC-6 (SM_103)
+     * Applies a genre published on adding-genre to the near-cache of this instance.
+     */
+    void refresh(Genre genre);
+    /**
+     * BS-GSC-7 (SM_104)
+     */
+    void loadGenres();
 }
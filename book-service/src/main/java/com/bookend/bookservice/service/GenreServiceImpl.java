@@ -3,11 +3,14 @@ package com.bookend.bookservice.service;
 import com.bookend.bookservice.exception.AlreadyExist;
 import com.bookend.bookservice.exception.MandatoryFieldException;
 import com.bookend.bookservice.exception.NotFoundException;
+import com.bookend.bookservice.index.GenreDictionary;
 import com.bookend.bookservice.kafka.Producer;
 import com.bookend.bookservice.model.Genre;
 import com.bookend.bookservice.model.KafkaMessage;
 import com.bookend.bookservice.repository.GenreRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -15,6 +18,7 @@ import java.util.List;
 @Service
 public class GenreServiceImpl implements GenreService{
     private static final String GENRE_TOPIC = "adding-genre";
+    private final GenreDictionary dictionary = new GenreDictionary();
     private Producer producer;
     @Autowired
     public void setProducer(Producer producer){this.producer=producer;}
@@ -24,9 +28,21 @@ public class GenreServiceImpl implements GenreService{
         this.genreRepository = genreRepository;
     }
 
+    /**
+     * A name missing from the snapshot may have been added by another instance whose event has not
+     * arrived yet, so misses still ask Mongo before a duplicate genre could be created.
+     */
     @Override
     public Genre findByGenre(String genre) {
-        return genreRepository.findByGenre(genre);
+        Genre cached = genres().byName(genre);
+        if(cached != null){
+            return cached;
+        }
+        Genre stored = genreRepository.findByGenre(genre);
+        if(stored != null){
+            dictionary.put(stored);
+        }
+        return stored;
     }
 
     @Override
@@ -39,7 +55,8 @@ public class GenreServiceImpl implements GenreService{
            newGenre = new Genre(genre);
 
            newGenre = genreRepository.save(newGenre);
-           KafkaMessage kafkaMessage = new KafkaMessage(GENRE_TOPIC,newGenre);
+           dictionary.put(newGenre);
+           KafkaMessage kafkaMessage = new KafkaMessage(GENRE_TOPIC,newGenre.getId(),newGenre);
            producer.publishGenre(kafkaMessage);
 
            return newGenre;
@@ -52,15 +69,20 @@ public class GenreServiceImpl implements GenreService{
 
     @Override
     public List<Genre> findAll() {
-        return genreRepository.findAll();
+        return genres().getGenres();
     }
 
     @Override
     public Genre findById(String id) throws NotFoundException {
-        Genre genre = genreRepository.findGenreById(id);
+        Genre genre = genres().byId(id);
+        if(genre != null){
+            return genre;
+        }
+        genre = genreRepository.findGenreById(id);
         if(genre == null){
             throw new NotFoundException("No genre is match with given id");
         }
+        dictionary.put(genre);
         return genre;
     }
 
@@ -79,8 +101,28 @@ public class GenreServiceImpl implements GenreService{
         }
         catch (Exception e){}
 
-        KafkaMessage kafkaMessage = new KafkaMessage(GENRE_TOPIC,genre);
+        KafkaMessage kafkaMessage = new KafkaMessage(GENRE_TOPIC,genre.getId(),genre);
         producer.publishGenre(kafkaMessage);
-        return genreRepository.save(genre);
+        Genre saved = genreRepository.save(genre);
+        dictionary.put(saved);
+        return saved;
+    }
+
+    @Override
+    public void refresh(Genre genre) {
+        if(genre != null && genre.getId() != null && genre.getGenre() != null){
+            dictionary.put(genre);
+        }
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadGenres() {
+        dictionary.load(dictionary.snapshot(),genreRepository.findAll());
+    }
+
+    private GenreDictionary.Snapshot genres() {
+        GenreDictionary.Snapshot snapshot = dictionary.snapshot();
+        return snapshot.isLoaded() ? snapshot : dictionary.load(snapshot,genreRepository.findAll());
     }
 }
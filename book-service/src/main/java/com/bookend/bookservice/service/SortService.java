@@ -1,7 +1,9 @@
 package com.bookend.bookservice.service;
 
 import com.bookend.bookservice.model.Book;
-import com.bookend.bookservice.model.SortedLists;
+
+import java.util.List;
+import java.util.function.Predicate;
 /**
  * BS-SSC stands for BookService-SortServiceClass
  * SM stands for ServiceMethod
@@ -10,18 +12,22 @@ public interface SortService {
     /**
      * BS-SSC-1 (SM_45)
      */
-    SortedLists add(Book book);
+    Book update(Book book);
 
     /**
      * BS-SSC-2 (SM_46)
      */
-    SortedLists sort(String type);
+    List<Book> findTop(String type, Predicate<Book> filter, int offset, int limit);
     /**
      * BS-SSC-3 (SM_47)
      */
-    SortedLists findOne();
+    void rebuild();
     /**
      * BS-SSC-4 (SM_48)
      */
-    SortedLists remove(Book book);
+    void remove(String bookId);
+    /**
+     * BS-SSC-5 (SM_92)
+     */
+    void updateAll(List<Book> books);
 }
@@ -1,54 +1,63 @@
 package com.bookend.bookservice.service;
 
+import com.bookend.bookservice.index.RankingIndex;
+import com.bookend.bookservice.index.SwappableIndex;
 import com.bookend.bookservice.model.Book;
-import com.bookend.bookservice.model.SortedLists;
-import com.bookend.bookservice.repository.SortedListRepo;
+import com.bookend.bookservice.repository.BookRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Example;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.function.Predicate;
+
 @Service
 public class SortServiceImpl implements SortService {
-    private SortedListRepo sortedListRepo;
+    // rates and comments arriving during a rebuild are carried over to the rebuilt ranking
+    private final SwappableIndex<RankingIndex> ranking = new SwappableIndex<>(new RankingIndex());
+    private BookRepository bookRepository;
 
 
     @Autowired
-    public void setSortedListRepo(SortedListRepo sortedListRepo) {
-        this.sortedListRepo = sortedListRepo;
+    public void setBookRepository(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
     }
 
 
     @Override
-    public SortedLists add(Book book) {
-        SortedLists sortedLists = findOne();
-        sortedLists = sortedListRepo.save(sortedLists.add(book));
-        return sortedLists;
-
+    public Book update(Book book) {
+        ranking.apply(index -> index.put(book));
+        return book;
     }
 
 
     @Override
-    public SortedLists sort(String type) {
-        SortedLists sortedLists = findOne();
-        sortedLists.sortByType(type);
-        sortedLists = sortedListRepo.save(sortedLists);
-        return sortedLists;
+    public List<Book> findTop(String type, Predicate<Book> filter, int offset, int limit) {
+        return ranking.get().top(type, filter, offset, limit);
     }
 
+    /**
+     * Ranks every stored book again. The engagement listeners keep moving books meanwhile, their moves
+     * are replayed on the new ranking before it is served.
+     */
     @Override
-    public SortedLists findOne() {
-
-        if(sortedListRepo.count()<1){
-            return  sortedListRepo.save(new SortedLists("target"));
-        }
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        ranking.reload(() -> {
+            RankingIndex rebuilt = new RankingIndex();
+            bookRepository.findAll().forEach(rebuilt::put);
+            return rebuilt;
+        });
+    }
 
-        return  sortedListRepo.findAll().get(0);
+    @Override
+    public void remove(String bookId) {
+        ranking.apply(index -> index.remove(bookId));
     }
 
     @Override
-    public SortedLists remove(Book book) {
-        SortedLists sortedLists=findOne();
-        sortedLists = sortedLists.remove(book);
-        return sortedListRepo.save(sortedLists) ;
+    public void updateAll(List<Book> books) {
+        ranking.apply(index -> index.putAll(books));
     }
 }
@@ -0,0 +1,33 @@
+package com.bookend.bookservice.service;
+
+import com.bookend.bookservice.model.Book;
+
+import java.util.List;
+/**
+ * BS-TSC stands for BookService-TitleSearchServiceClass
+ * SM stands for ServiceMethod
+ */
+public interface TitleSearchService {
+    /**
+     * BS-TSC-1 (SM_88)
+     */
+    void index(Book book);
+    /**
+     * BS-TSC-2 (SM_89)
+     */
+    void remove(String bookId);
+    /**
+     * BS-TSC-3 (SM_90)
+     */
+    List<Book> search(String title);
+    /**
+     * BS-TSC-4 (SM_91)
+     */
+    void rebuild();
+    /**
+     * BS-TSC-5 (SM_121)
+     * The ids of one page of title matches of the genre in (bookName, id) order, after the given book when
+     * there is one.
+     */
+    List<String> findIds(String title, String genre, String afterName, String afterId, int skip, int limit);
+}
@@ -0,0 +1,65 @@
+package com.bookend.bookservice.service;
+
+import com.bookend.bookservice.index.SwappableIndex;
+import com.bookend.bookservice.index.TitleIndex;
+import com.bookend.bookservice.model.Book;
+import com.bookend.bookservice.repository.BookRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+@Service
+public class TitleSearchServiceImpl implements TitleSearchService {
+    // books added, renamed or deleted while the index is rebuilt stay searchable or gone afterwards
+    private final SwappableIndex<TitleIndex> titles = new SwappableIndex<>(new TitleIndex());
+    private BookRepository bookRepository;
+
+    @Autowired
+    public void setBookRepository(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    @Override
+    public void index(Book book) {
+        titles.apply(index -> index.put(book));
+    }
+
+    @Override
+    public void remove(String bookId) {
+        titles.apply(index -> index.remove(bookId));
+    }
+
+    @Override
+    public List<Book> search(String title) {
+        List<String> bookIds = titles.get().search(title);
+        List<Book> books = new ArrayList<>(bookIds.size());
+        if (!bookIds.isEmpty()) {
+            bookRepository.findAllById(bookIds).forEach(books::add);
+        }
+        books.sort(Comparator.comparing(Book::getBookName));
+        return books;
+    }
+
+    @Override
+    public List<String> findIds(String title, String genre, String afterName, String afterId, int skip, int limit) {
+        return titles.get().page(title, genre, afterName, afterId, skip, limit);
+    }
+
+    /**
+     * Indexes the titles of every stored book into a fresh index, which replaces the served one once loaded.
+     */
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        titles.reload(() -> {
+            TitleIndex rebuilt = new TitleIndex();
+            bookRepository.findAll().forEach(rebuilt::put);
+            return rebuilt;
+        });
+    }
+}
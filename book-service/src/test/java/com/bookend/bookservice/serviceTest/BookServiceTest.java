@@ -6,12 +6,13 @@ import com.bookend.bookservice.kafka.Producer;
 import com.bookend.bookservice.model.Book;
 import com.bookend.bookservice.model.Genre;
 import com.bookend.bookservice.model.KafkaMessage;
-import com.bookend.bookservice.model.SortedLists;
+import com.bookend.bookservice.payload.BookPage;
 import com.bookend.bookservice.payload.BookRequest;
 import com.bookend.bookservice.repository.BookRepository;
 import com.bookend.bookservice.service.BookServiceImpl;
 import com.bookend.bookservice.service.GenreService;
 import com.bookend.bookservice.service.SortService;
+import com.bookend.bookservice.service.TitleSearchService;
 import io.swagger.models.auth.In;
 import org.junit.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -52,6 +53,8 @@ public class BookServiceTest {
     @Mock
     private SortService sortService;
     @Mock
+    private TitleSearchService titleSearchService;
+    @Mock
     private Producer producer;
     @InjectMocks
     private BookServiceImpl bookService;
@@ -132,6 +135,7 @@ public class BookServiceTest {
         bookService.delete(bookId);
         verify(bookRepository,times(1)).delete(any(Book.class));
         verify(producer).deleteBook(any()); //New Line added.
+        verify(titleSearchService).remove(bookId);
     }
 
     @Test
@@ -398,24 +402,16 @@ public class BookServiceTest {
 
     @Test
     public void shouldReturnSortedBooksByRate() throws NotFoundException {
-        final SortedLists sortedLists = new SortedLists();
         final Book book0 = new Book("ash2jhs45",Integer.valueOf("456"),new Genre("5asd23dfgf","Classics"),"...","Oblomov","Ivan Gonçarov","45afs34",true,"1234567891234");
         final Book book1 = new Book("ash2jhs25",Integer.valueOf("141"),new Genre("5asd24dsdgf","Fiction"),".....","Cocuk Kalbi","Edmondo de Amicis","44afs34",true,"1254566891234");
         final Book book2 = new Book("ash2sdhs44",Integer.valueOf("360"),new Genre("5asd25dfgf","Journal"),".....","Günlükler","Sylvia Plath","45afs84",false,"1234567891129");
-        final List<Book> sortedByRate = new ArrayList<>();
-        sortedByRate.add(book0);
-        sortedByRate.add(book1);
-        sortedByRate.add(book2);
-        final List<Book> sortedByComment = Arrays.asList(book1,book1,book0);
-        sortedLists.setSortedByComment(sortedByComment);
-        sortedLists.setSortedByRate(sortedByRate);
-        when(sortService.findOne()).thenReturn(sortedLists);
+        final List<Book> sortedByRate = Arrays.asList(book2,book1,book0);
+        when(sortService.findTop(eq("rate"),any(),eq(0),eq(Integer.MAX_VALUE))).thenReturn(sortedByRate);
         final List<Book> expected = bookService.search(null,null,true,false);
         assertNotNull(expected);
-        //assertEquals(expected.get(0),sortedByRate.get(2));
-        Collections.reverse(sortedByRate);
         assertEquals(expected.get(0).getBookName(),sortedByRate.get(0).getBookName());
         assertEquals(expected.get(2),sortedByRate.get(2));
+        verify(bookRepository,never()).findAll(any(Sort.class));
     }
 
     /*
@@ -436,7 +432,7 @@ public class BookServiceTest {
         when(bookRepository.findAll(Sort.by(Sort.Direction.ASC,"bookName"))).thenReturn(books);
         final List<Book> expected = bookService.search(null,null,false,false);
         assertNotNull(expected);
-        verify(sortService,never()).findOne();
+        verify(sortService,never()).findTop(any(),any(),anyInt(),anyInt());
 
     }
     private boolean compareTwoList(List<Book> l1,List<Book> l2){
@@ -450,20 +446,21 @@ public class BookServiceTest {
     }
     @Test
     public void shouldReturnSortedBooksByNumberOfComments() throws NotFoundException {
-        final SortedLists sortedLists = new SortedLists();
         final Book book0 = new Book("ash2jhs45",Integer.valueOf("456"),new Genre("5asd23dfgf","Classics"),"...","Oblomov","Ivan Gonçarov","45afs34",true,"1234567891234");
         final Book book1 = new Book("ash2jhs25",Integer.valueOf("141"),new Genre("5asd24dsdgf","Fiction"),".....","Cocuk Kalbi","Edmondo de Amicis","44afs34",true,"1254566891234");
-        final Book book2 = new Book("ash2sdhs44",Integer.valueOf("360"),new Genre("5asd25dfgf","Journal"),".....","Günlükler","Sylvia Plath","45afs84",false,"1234567891129");
-        final List<Book> sortedByRate = Arrays.asList(book0,book1,book2);
-        final List<Book> sortedByComment = Arrays.asList(book1,book1,book0);
-        sortedLists.setSortedByComment(sortedByComment);
-        sortedLists.setSortedByRate(sortedByRate);
-        when(sortService.findOne()).thenReturn(sortedLists);
+        final List<Book> sortedByComment = Arrays.asList(book0,book1,book1);
+        when(sortService.findTop(eq("comment"),any(),eq(0),eq(Integer.MAX_VALUE))).thenReturn(sortedByComment);
         final List<Book> expected = bookService.search(null,null,false,true);
         assertNotNull(expected);
-        Collections.reverse(sortedLists.getSortedByComment());
-        assertEquals(expected.get(0),sortedLists.getSortedByComment().get(0));
-        assertEquals(expected.get(2),sortedLists.getSortedByComment().get(2));
+        assertEquals(expected.get(0),sortedByComment.get(0));
+        assertEquals(expected.get(2),sortedByComment.get(2));
+    }
+    @Test
+    public void shouldFailToReturnSortedBooksIfNoneMatchesGivenTitle(){
+        when(sortService.findTop(eq("rate"),any(),eq(0),eq(Integer.MAX_VALUE))).thenReturn(new ArrayList<>());
+        assertThrows(NotFoundException.class,()->{
+            bookService.search("Kacıs",null,true,false);
+        });
     }
     //assertTrue(expected.equals(sortedLists.getSortedByComment()));
 
@@ -475,14 +472,12 @@ public class BookServiceTest {
     @Test
     public void shouldReturnBooksFilteredByGivenTitle() throws NotFoundException {
         final Book book0 = new Book("ash2jhs45",Integer.valueOf("456"),new Genre("5asd23dfgf","Classics"),"...","Oblomov","Ivan Gonçarov","45afs34",true,"1234567891234");
-        final Book book1 = new Book("ash2jhs25",Integer.valueOf("141"),new Genre("5asd24dsdgf","Fiction"),".....","Cocuk Kalbi","Edmondo de Amicis","44afs34",true,"1254566891234");
-        final Book book2 = new Book("ash2sdhs44",Integer.valueOf("360"),new Genre("5asd25dfgf","Journal"),".....","Günlükler","Sylvia Plath","45afs84",false,"1234567891129");
-        final List<Book> books = Arrays.asList(book0,book1,book2);
-        //Mockito.doReturn(books).when(bookServiceSpy).getAll();
-        when(bookRepository.findAll(Sort.by(Sort.Direction.ASC,"bookName"))).thenReturn(books);
+        when(titleSearchService.search("Ob")).thenReturn(Arrays.asList(book0));
         final List<Book> expected = bookService.search("Ob",null,false,false);
         assertNotNull(expected);
-        verify(sortService,never()).findOne();
+        assertEquals(Arrays.asList(book0),expected);
+        verify(sortService,never()).findTop(any(),any(),anyInt(),anyInt());
+        verify(bookRepository,never()).findAll(any(Sort.class));
 
     }
     @MockitoSettings(strictness = Strictness.WARN)
@@ -496,21 +491,24 @@ public class BookServiceTest {
         when(bookRepository.findAll(Sort.by(Sort.Direction.ASC,"bookName"))).thenReturn(books);
         final List<Book> expected = bookService.search(null,"Classics",false,false);
         assertNotNull(expected);
-        verify(sortService,never()).findOne();
+        verify(sortService,never()).findTop(any(),any(),anyInt(),anyInt());
     }
     @MockitoSettings(strictness = Strictness.WARN)
     @Test
     public void shouldFailToReturnBooksFilteredByGivenTitle()  {
-        final Book book0 = new Book("ash2jhs45",Integer.valueOf("456"),new Genre("5asd23dfgf","Classics"),"...","Oblomov","Ivan Gonçarov","45afs34",true,"1234567891234");
-        final Book book1 = new Book("ash2jhs25",Integer.valueOf("141"),new Genre("5asd24dsdgf","Fiction"),".....","Cocuk Kalbi","Edmondo de Amicis","44afs34",true,"1254566891234");
-        final Book book2 = new Book("ash2sdhs44",Integer.valueOf("360"),new Genre("5asd25dfgf","Journal"),".....","Günlükler","Sylvia Plath","45afs84",false,"1234567891129");
-        final List<Book> books = Arrays.asList(book0,book1,book2);
-        //Mockito.doReturn(books).when(bookServiceSpy).getAll();
-        when(bookRepository.findAll(Sort.by(Sort.Direction.ASC,"bookName"))).thenReturn(books);
+        when(titleSearchService.search("Kacıs")).thenReturn(new ArrayList<>());
         assertThrows(NotFoundException.class,()->{
             bookService.search("Kacıs",null,false,false);
         });
-        verify(sortService,never()).findOne();
+        verify(sortService,never()).findTop(any(),any(),anyInt(),anyInt());
+    }
+    @Test
+    public void shouldFilterTitleMatchesByGenre() throws NotFoundException {
+        final Book book0 = new Book("ash2jhs45",Integer.valueOf("456"),new Genre("5asd23dfgf","Classics"),"...","Oblomov","Ivan Gonçarov","45afs34",true,"1234567891234");
+        final Book book1 = new Book("ash2jhs25",Integer.valueOf("141"),new Genre("5asd24dsdgf","Fiction"),".....","Oblomovka","Edmondo de Amicis","44afs34",true,"1254566891234");
+        when(titleSearchService.search("Ob")).thenReturn(Arrays.asList(book0,book1));
+        final List<Book> expected = bookService.search("Ob","Fiction",false,false);
+        assertEquals(Arrays.asList(book1),expected);
     }
     @MockitoSettings(strictness = Strictness.WARN)
     @Test
@@ -524,7 +522,94 @@ public class BookServiceTest {
         assertThrows(NotFoundException.class,()->{
             bookService.search(null,"Science-Fiction",false,false);
         });
-        verify(sortService,never()).findOne();
+        verify(sortService,never()).findTop(any(),any(),anyInt(),anyInt());
+    }
+    @Test
+    public void shouldReturnFirstPageWithCursorWhenPageIsFull(){
+        final Book book0 = new Book("ash2jhs45",Integer.valueOf("456"),new Genre("5asd23dfgf","Classics"),"...","Oblomov","Ivan Gonçarov","45afs34",true,"1234567891234");
+        final Book book1 = new Book("ash2jhs25",Integer.valueOf("141"),new Genre("5asd23dfgf","Classics"),".....","Oblomovka","Ivan Gonçarov","45afs34",true,"1254566891234");
+        when(titleSearchService.findIds("Ob","Classics",null,null,0,2)).thenReturn(Arrays.asList(book0.getId(),book1.getId()));
+        when(bookRepository.findAllById(Arrays.asList(book0.getId(),book1.getId()))).thenReturn(Arrays.asList(book1,book0));
+        final BookPage expected = bookService.search("Ob","Classics",false,false,0,2,null);
+        assertNotNull(expected);
+        assertEquals(Arrays.asList(book0,book1),expected.getBooks());
+        assertNotNull(expected.getNextCursor());
+        verify(bookRepository,never()).findAll(any(Sort.class));
+        verify(bookRepository,never()).search(any(),any(),any(),anyInt(),anyInt());
+    }
+    @Test
+    public void shouldPageTitleMatchesAfterGivenCursor(){
+        final Book book0 = new Book("ash2jhs45",Integer.valueOf("456"),new Genre("5asd23dfgf","Classics"),"...","Oblomov","Ivan Gonçarov","45afs34",true,"1234567891234");
+        final Book book1 = new Book("ash2jhs25",Integer.valueOf("141"),new Genre("5asd23dfgf","Classics"),".....","Oblomovka","Ivan Gonçarov","45afs34",true,"1254566891234");
+        when(titleSearchService.findIds("Ob",null,null,null,0,1)).thenReturn(Arrays.asList(book0.getId()));
+        when(titleSearchService.findIds("Ob",null,"Oblomov","ash2jhs45",0,1)).thenReturn(Arrays.asList(book1.getId()));
+        when(bookRepository.findAllById(Arrays.asList(book0.getId()))).thenReturn(Arrays.asList(book0));
+        when(bookRepository.findAllById(Arrays.asList(book1.getId()))).thenReturn(Arrays.asList(book1));
+        final BookPage first = bookService.search("Ob",null,false,false,0,1,null);
+        final BookPage second = bookService.search("Ob",null,false,false,0,1,first.getNextCursor());
+        assertEquals(Arrays.asList(book1),second.getBooks());
+    }
+    @Test
+    public void shouldReturnEmptyPageWithoutQueryingWhenNoTitleMatches(){
+        when(titleSearchService.findIds("Kacıs",null,null,null,0,10)).thenReturn(new ArrayList<>());
+        final BookPage expected = bookService.search("Kacıs",null,false,false,0,10,null);
+        assertTrue(expected.getBooks().isEmpty());
+        assertNull(expected.getNextCursor());
+        verify(bookRepository,never()).search(any(),any(),any(),anyInt(),anyInt());
+        verify(bookRepository,never()).findAllById(any());
+    }
+    @Test
+    public void shouldContinueAfterGivenCursor(){
+        final Book book0 = new Book("ash2jhs45",Integer.valueOf("456"),new Genre("5asd23dfgf","Classics"),"...","Oblomov","Ivan Gonçarov","45afs34",true,"1234567891234");
+        final Book book1 = new Book("ash2jhs25",Integer.valueOf("141"),new Genre("5asd23dfgf","Classics"),".....","Oblomovka","Ivan Gonçarov","45afs34",true,"1254566891234");
+        when(bookRepository.search(null,null,null,0,1)).thenReturn(Arrays.asList(book0));
+        when(bookRepository.search(null,"Oblomov","ash2jhs45",0,1)).thenReturn(Arrays.asList(book1));
+        final BookPage first = bookService.search(null,null,false,false,0,1,null);
+        final BookPage second = bookService.search(null,null,false,false,0,1,first.getNextCursor());
+        assertEquals(Arrays.asList(book1),second.getBooks());
+    }
+    @Test
+    public void shouldNotReturnCursorOnLastPage(){
+        when(bookRepository.search(null,null,null,20,10)).thenReturn(new ArrayList<>());
+        final BookPage expected = bookService.search(null,null,false,false,2,10,null);
+        assertTrue(expected.getBooks().isEmpty());
+        assertNull(expected.getNextCursor());
+    }
+    @Test
+    public void shouldReturnRankedPageFromSortService(){
+        final Book book0 = new Book("ash2jhs45",Integer.valueOf("456"),new Genre("5asd23dfgf","Classics"),"...","Oblomov","Ivan Gonçarov","45afs34",true,"1234567891234");
+        when(sortService.findTop(eq("rate"),any(),eq(10),eq(10))).thenReturn(Arrays.asList(book0));
+        final BookPage expected = bookService.search(null,null,true,false,1,10,null);
+        assertEquals(Arrays.asList(book0),expected.getBooks());
+        verify(bookRepository,never()).search(any(),any(),any(),anyInt(),anyInt());
+    }
+    @Test
+    public void shouldFailToReturnPageIfSizeIsNotPositive(){
+        assertThrows(IllegalArgumentException.class,()->{
+            bookService.search(null,null,false,false,0,0,null);
+        });
+    }
+    @Test
+    public void shouldApplyCoalescedEventsWithOneBulkWrite(){
+        final Book book0 = new Book("ash2jhs45",Integer.valueOf("456"),new Genre("5asd23dfgf","Classics"),"...","Oblomov","Ivan Gonçarov","45afs34",true,"1234567891234");
+        final Book book1 = new Book("ash2jhs25",Integer.valueOf("141"),new Genre("5asd24dsdgf","Fiction"),".....","Cocuk Kalbi","Edmondo de Amicis","44afs34",true,"1254566891234");
+        final Map<String,Double> rates = new HashMap<>();
+        rates.put("ash2jhs45",4.5);
+        final Map<String,List<Long>> comments = new HashMap<>();
+        comments.put("ash2jhs25",Arrays.asList(12L,13L));
+        when(bookRepository.findAllById(any())).thenReturn(Arrays.asList(book0,book1));
+        final List<Book> expected = bookService.applyEngagement(rates,comments);
+        assertEquals(2,expected.size());
+        verify(bookRepository,times(1)).bulkUpdateEngagement(rates,comments);
+        verify(bookRepository,never()).save(any(Book.class));
+        verify(sortService,times(1)).updateAll(expected);
+    }
+    @Test
+    public void shouldNotWriteWhenThereAreNoEvents(){
+        final List<Book> expected = bookService.applyEngagement(new HashMap<>(),new HashMap<>());
+        assertTrue(expected.isEmpty());
+        verify(bookRepository,never()).bulkUpdateEngagement(any(),any());
+        verify(sortService,never()).updateAll(any());
     }
     @Test
     public void verifyBook() throws NotFoundException {
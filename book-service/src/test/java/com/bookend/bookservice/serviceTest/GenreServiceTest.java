@@ -201,4 +201,29 @@ public class GenreServiceTest {
         assertThat(expected).isNotNull();
         assertEquals(genre,expected);
     }
+    @MockitoSettings(strictness = Strictness.WARN)
+    @Test
+    public void shouldServeGenresFromTheSameSnapshot(){
+        final Genre genre = new Genre("5asd25dfgf","Journal");
+        when(genreRepository.findAll()).thenReturn(Arrays.asList(genre));
+        final List<Genre> first = genreService.findAll();
+        final List<Genre> second = genreService.findAll();
+        assertTrue(first == second);
+        assertEquals(genre,genreService.findByGenre("Journal"));
+        verify(genreRepository,times(1)).findAll();
+        verify(genreRepository,never()).findByGenre(any());
+    }
+    @MockitoSettings(strictness = Strictness.WARN)
+    @Test
+    public void shouldApplyRenamedGenreToSnapshot() throws NotFoundException {
+        final Genre genre = new Genre("5asd25dfgf","poem");
+        when(genreRepository.findAll()).thenReturn(Arrays.asList(genre));
+        genreService.loadGenres();
+        genreService.refresh(new Genre("5asd25dfgf","Poem"));
+        assertEquals(1,genreService.findAll().size());
+        assertEquals("Poem",genreService.findById("5asd25dfgf").getGenre());
+        assertEquals("Poem",genreService.findByGenre("Poem").getGenre());
+        verify(genreRepository,never()).findGenreById(any());
+        verify(genreRepository,never()).findByGenre(any());
+    }
 }
@@ -2,171 +2,105 @@ package com.bookend.bookservice.serviceTest;
 
 import com.bookend.bookservice.model.Book;
 import com.bookend.bookservice.model.Genre;
-import com.bookend.bookservice.model.SortedLists;
-import com.bookend.bookservice.repository.SortedListRepo;
+import com.bookend.bookservice.repository.BookRepository;
 import com.bookend.bookservice.service.SortServiceImpl;
 import org.junit.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
-import org.mockito.junit.jupiter.MockitoExtension;
-import org.mockito.junit.jupiter.MockitoSettings;
-import org.mockito.quality.Strictness;
-import org.springframework.util.Assert;
-import static org.hamcrest.core.IsNot.not;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.*;
-import static org.springframework.util.Assert.doesNotContain;
 import static org.mockito.Mockito.*;
 
 
 @RunWith(MockitoJUnitRunner.class)
-@MockitoSettings(strictness = Strictness.WARN)
 public class SortServiceTest {
     @Mock
-    private SortedListRepo sortedListRepo;
-    @Mock
-    private SortedLists sortedListsMock;
+    private BookRepository bookRepository;
     @InjectMocks
     private SortServiceImpl sortService;
-    @Spy
-    private SortServiceImpl sortServiceSpy;
-    @Test
-    public void shouldFindOneIfASortedListsAlreadyExist(){
-        final SortedLists sortedLists = new SortedLists();
-        when(sortedListRepo.count()).thenReturn(Long.valueOf(1));
-        when(sortedListRepo.findAll()).thenReturn(Arrays.asList(sortedLists));
-        final SortedLists expected = sortService.findOne();
-        assertNotNull(expected);
-        assertEquals(expected,sortedLists);
-        verify(sortedListRepo,never()).save(any(SortedLists.class));
+
+    private Book book(String id, double rate, int comments){
+        final Genre journal = new Genre("5asd25dfgf","Journal");
+        final Book book = new Book(id,Integer.valueOf("456"),journal,"...","Günlükler","Ivan Gonçarov","45afs34",true,"1234567891234");
+        book.setRate(rate);
+        final List<Long> commentIds = new ArrayList<>();
+        for(long i = 0; i < comments; i++){
+            commentIds.add(i);
+        }
+        book.setComments(commentIds);
+        return book;
     }
     @Test
-    public void shouldNotSaveWhenFindOneCalledAndIfCountGreaterThenOne(){
-        final SortedLists sortedLists = new SortedLists();
-        final SortedLists sortedLists2 = new SortedLists();
-        when(sortedListRepo.count()).thenReturn(Long.valueOf(2));
-        when(sortedListRepo.findAll()).thenReturn(Arrays.asList(sortedLists,sortedLists2));
-        final SortedLists expected = sortService.findOne();
-        assertNotNull(expected);
-        assertEquals(expected,sortedLists);
-        verify(sortedListRepo,never()).save(any(SortedLists.class));
+    public void shouldRebuildRankingFromRepository(){
+        final Book book0 = book("ash2jhs45",4.6,5);
+        final Book book1 = book("ash2jhs25",2.6,2);
+        final Book book2 = book("ash2sdhs44",4.7,4);
+        when(bookRepository.findAll()).thenReturn(Arrays.asList(book0,book1,book2));
+        sortService.rebuild();
+        assertEquals(Arrays.asList(book2,book0,book1),sortService.findTop("rate",b -> true,0,Integer.MAX_VALUE));
+        assertEquals(Arrays.asList(book0,book2,book1),sortService.findTop("comment",b -> true,0,Integer.MAX_VALUE));
     }
     @Test
-    public void shouldFindOneThatIsNewCreatedIfNoSortedListExists(){
-        final SortedLists sortedLists = new SortedLists();
-        when(sortedListRepo.count()).thenReturn(Long.valueOf(0));
-        when(sortedListRepo.save(any(SortedLists.class))).thenReturn(sortedLists);
-        final SortedLists expected = sortService.findOne();
-        assertNotNull(expected);
-        assertEquals(expected,sortedLists);
-        verify(sortedListRepo,times(1)).save(any(SortedLists.class));
+    public void shouldKeepUpdatesMadeWhileRebuilding(){
+        final Book book0 = book("ash2jhs45",4.6,5);
+        final Book rerated = book("ash2jhs45",1.1,5);
+        final Book book1 = book("ash2jhs25",2.6,2);
+        when(bookRepository.findAll()).thenAnswer(invocation -> {
+            sortService.update(rerated);
+            return Arrays.asList(book0,book1);
+        });
+        sortService.rebuild();
+        assertEquals(Arrays.asList(book1,rerated),sortService.findTop("rate",b -> true,0,Integer.MAX_VALUE));
     }
     @Test
-    public void shouldRemoveBookInTheSortedLists(){
-        final Genre journal = new Genre("5asd25dfgf","Journal");
-        final Book book0 = new Book("ash2jhs45",Integer.valueOf("456"),journal,"...","Günlükler","Ivan Gonçarov","45afs34",true,"1234567891234");
-        final Book book1 = new Book("ash2jhs25",Integer.valueOf("141"),journal,".....","Günlükler","Edmondo de Amicis","44afs34",true,"1254566891234");
-        final Book book2 = new Book("ash2sdhs44",Integer.valueOf("360"),journal,".....","Günlükler","Sylvia Plath","45afs84",false,"1234567891129");
-        final List<Book> sortedByRate = new ArrayList(Arrays.asList(book0,book1,book2));
-        final List<Book> sortedByComment = new ArrayList(Arrays.asList(book0,book1,book2));
-        final SortedLists sortedLists = new SortedLists(sortedByRate,sortedByComment,"target");
-        doReturn(sortedLists).when(sortServiceSpy).findOne();
-        when(sortedListRepo.count()).thenReturn(Long.valueOf(1));
-        when(sortedListRepo.findAll()).thenReturn(new ArrayList(Arrays.asList(sortedLists)));
-        when(sortedListRepo.save(sortedLists)).thenReturn(sortedLists);
-        final SortedLists expected = sortService.remove(book0);
-        assertNotNull(expected);
-        assertThat(expected.getSortedByComment()).doesNotContain(book0);
-        assertThat(expected.getSortedByRate()).doesNotContain(book0);
+    public void shouldMoveBookWhenItIsUpdated(){
+        final Book book0 = book("ash2jhs45",4.6,5);
+        final Book book1 = book("ash2jhs25",2.6,2);
+        sortService.update(book0);
+        sortService.update(book1);
+        final Book rerated = book("ash2jhs25",4.9,2);
+        sortService.update(rerated);
+        final List<Book> expected = sortService.findTop("rate",b -> true,0,Integer.MAX_VALUE);
+        assertEquals(Arrays.asList(rerated,book0),expected);
     }
     @Test
-    public void shouldSortSortedListWithGivenTypeRate(){
-        final List<Long> comments0 = new ArrayList(Arrays.asList(123,1231,1231,1221131,12313));
-        final List<Long> comments1 = new ArrayList(Arrays.asList(1233,12321));
-        final List<Long> comments2 = new ArrayList(Arrays.asList(1234,15231,17231,12213));
-        final Genre journal = new Genre("5asd25dfgf","Journal");
-        final Book book0 = new Book("ash2jhs45",Integer.valueOf("456"),journal,"...","Günlükler","Ivan Gonçarov","45afs34",true,"1234567891234");
-        final Book book1 = new Book("ash2jhs25",Integer.valueOf("141"),journal,".....","Günlükler","Edmondo de Amicis","44afs34",true,"1254566891234");
-        final Book book2 = new Book("ash2sdhs44",Integer.valueOf("360"),journal,".....","Günlükler","Sylvia Plath","45afs84",false,"1234567891129");
-        book0.setRate(Double.valueOf(4.6));
-        book0.setComments(comments0);
-        book1.setRate(Double.valueOf(2.6));
-        book1.setComments(comments1);
-        book2.setRate(Double.valueOf(4.7));
-        book2.setComments(comments2);
-        final List<Book> sortedByRate = new ArrayList(Arrays.asList(book1,book0,book2));
-        final List<Book> sortedByComment = new ArrayList(Arrays.asList(book1,book2,book0));
-        List<Book> shuffledRate = new ArrayList(sortedByRate);
-        List<Book> shuffledComment = new ArrayList(sortedByComment);
-        Collections.shuffle(shuffledComment);
-        Collections.shuffle(shuffledRate);
-        final SortedLists expected = new SortedLists(sortedByRate,sortedByComment,"target");
-        final SortedLists sortedLists = new SortedLists(shuffledRate,shuffledComment,"target");
-        when(sortedListRepo.count()).thenReturn(Long.valueOf(1));
-        when(sortedListRepo.findAll()).thenReturn(new ArrayList(Arrays.asList(sortedLists)));
-        when(sortedListRepo.save(sortedLists)).thenReturn(sortedLists);
-        final SortedLists returned = sortService.sort("rate");
-        assertNotNull(expected);
-        assertEquals(expected.getSortedByRate(),returned.getSortedByRate());
+    public void shouldRemoveBookFromRanking(){
+        final Book book0 = book("ash2jhs45",4.6,5);
+        final Book book1 = book("ash2jhs25",2.6,2);
+        sortService.update(book0);
+        sortService.update(book1);
+        sortService.remove(book0.getId());
+        assertThat(sortService.findTop("rate",b -> true,0,Integer.MAX_VALUE)).doesNotContain(book0);
+        assertThat(sortService.findTop("comment",b -> true,0,Integer.MAX_VALUE)).doesNotContain(book0);
     }
     @Test
-    public void shouldSortSortedListWithGivenTypeComment(){
-        final List<Long> comments0 = new ArrayList(Arrays.asList(123,1231,1231,1221131,12313));
-        final List<Long> comments1 = new ArrayList(Arrays.asList(1233,12321));
-        final List<Long> comments2 = new ArrayList(Arrays.asList(1234,15231,17231,12213));
-        final Genre journal = new Genre("5asd25dfgf","Journal");
-        final Book book0 = new Book("ash2jhs45",Integer.valueOf("456"),journal,"...","Günlükler","Ivan Gonçarov","45afs34",true,"1234567891234");
-        final Book book1 = new Book("ash2jhs25",Integer.valueOf("141"),journal,".....","Günlükler","Edmondo de Amicis","44afs34",true,"1254566891234");
-        final Book book2 = new Book("ash2sdhs44",Integer.valueOf("360"),journal,".....","Günlükler","Sylvia Plath","45afs84",false,"1234567891129");
-        book0.setRate(Double.valueOf(4.6));
-        book0.setComments(comments0);
-        book1.setRate(Double.valueOf(2.6));
-        book1.setComments(comments1);
-        book2.setRate(Double.valueOf(4.7));
-        book2.setComments(comments2);
-        final List<Book> sortedByRate = new ArrayList(Arrays.asList(book1,book0,book2));
-        final List<Book> sortedByComment = new ArrayList(Arrays.asList(book1,book2,book0));
-        List<Book> shuffledRate = new ArrayList(sortedByRate);
-        List<Book> shuffledComment = new ArrayList(sortedByComment);
-        Collections.shuffle(shuffledComment);
-        Collections.shuffle(shuffledRate);
-        final SortedLists expected = new SortedLists(sortedByRate,sortedByComment,"target");
-        final SortedLists sortedLists = new SortedLists(shuffledRate,shuffledComment,"target");
-        when(sortedListRepo.count()).thenReturn(Long.valueOf(1));
-        when(sortedListRepo.findAll()).thenReturn(new ArrayList(Arrays.asList(sortedLists)));
-        when(sortedListRepo.save(sortedLists)).thenReturn(sortedLists);
-        final SortedLists returned = sortService.sort("comment");
-        assertNotNull(expected);
-        assertEquals(expected.getSortedByComment(),returned.getSortedByComment());
+    public void shouldBreakTiesById(){
+        final Book book0 = book("b",3.0,1);
+        final Book book1 = book("a",3.0,1);
+        sortService.update(book0);
+        sortService.update(book1);
+        assertEquals(Arrays.asList(book0,book1),sortService.findTop("rate",b -> true,0,Integer.MAX_VALUE));
     }
     @Test
-    public void shouldAddBookToSortedLists(){
-        final Genre journal = new Genre("5asd25dfgf","Journal");
-        final Book book0 = new Book("ash2jhs45",Integer.valueOf("456"),journal,"...","Günlükler","Ivan Gonçarov","45afs34",true,"1234567891234");
-        final Book book1 = new Book("ash2jhs25",Integer.valueOf("141"),journal,".....","Günlükler","Edmondo de Amicis","44afs34",true,"1254566891234");
-        final Book book2 = new Book("ash2sdhs44",Integer.valueOf("360"),journal,".....","Günlükler","Sylvia Plath","45afs84",false,"1234567891129");
-        final List<Book> sortedByRate = new ArrayList(Arrays.asList(book1,book2));
-        final List<Book> sortedByComment = new ArrayList(Arrays.asList(book1,book2));
-        final SortedLists sortedLists = new SortedLists(sortedByRate,sortedByComment,"target");
-        doReturn(sortedLists).when(sortServiceSpy).findOne();
-        when(sortedListRepo.count()).thenReturn(Long.valueOf(1));
-        when(sortedListRepo.findAll()).thenReturn(new ArrayList(Arrays.asList(sortedLists)));
-        when(sortedListRepo.save(sortedLists)).thenReturn(sortedLists);
-        final SortedLists expected = sortService.add(book0);
-        assertNotNull(expected);
-        assertTrue(expected.getSortedByComment().contains(book0));
-        assertTrue(expected.getSortedByRate().contains(book0));
-
+    public void shouldReturnRequestedPageOfFilteredRanking(){
+        final Book book0 = book("ash2jhs45",4.6,5);
+        final Book book1 = book("ash2jhs25",2.6,2);
+        final Book book2 = book("ash2sdhs44",4.7,4);
+        final Book book3 = book("ash2sdhs43",1.2,0);
+        book3.setBookName("Oblomov");
+        sortService.update(book0);
+        sortService.update(book1);
+        sortService.update(book2);
+        sortService.update(book3);
+        final List<Book> expected = sortService.findTop("rate",b -> b.getBookName().equals("Günlükler"),1,1);
+        assertEquals(Arrays.asList(book0),expected);
     }
 
 }
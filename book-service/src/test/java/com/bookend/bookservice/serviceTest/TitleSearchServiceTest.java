@@ -0,0 +1,152 @@
+package com.bookend.bookservice.serviceTest;
+
+import com.bookend.bookservice.model.Book;
+import com.bookend.bookservice.model.Genre;
+import com.bookend.bookservice.repository.BookRepository;
+import com.bookend.bookservice.service.TitleSearchServiceImpl;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TitleSearchServiceTest {
+    @Mock
+    private BookRepository bookRepository;
+    @InjectMocks
+    private TitleSearchServiceImpl titleSearchService;
+
+    private Book book(String id, String name){
+        return book(id,name,"Classics");
+    }
+    private Book book(String id, String name, String genre){
+        return new Book(id,Integer.valueOf("456"),new Genre("5asd23dfgf",genre),"...",name,"Ivan Gonçarov","45afs34",true,"1234567891234");
+    }
+    // the index only keeps ids, the hits are loaded from the repository
+    private void stored(Book... books){
+        final Map<String,Book> byId = new HashMap<>();
+        for(Book book : books){
+            byId.put(book.getId(),book);
+        }
+        when(bookRepository.findAllById(any())).thenAnswer(invocation -> {
+            final List<Book> found = new ArrayList<>();
+            for(Object id : (Iterable<?>) invocation.getArgument(0)){
+                found.add(byId.get(id));
+            }
+            return found;
+        });
+    }
+    @Test
+    public void shouldFindBooksContainingGivenTitleIgnoringCase(){
+        final Book book0 = book("ash2jhs45","Oblomov");
+        final Book book1 = book("ash2jhs25","Cocuk Kalbi");
+        final Book book2 = book("ash2sdhs44","Oblomov'un Rüyası");
+        when(bookRepository.findAll()).thenReturn(Arrays.asList(book0,book1,book2));
+        stored(book0,book1,book2);
+        titleSearchService.rebuild();
+        final List<Book> expected = titleSearchService.search("BLOMOV");
+        assertEquals(Arrays.asList(book0,book2),expected);
+    }
+    @Test
+    public void shouldFindShortQueries(){
+        final Book book0 = book("ash2jhs45","Oblomov");
+        final Book book1 = book("ash2jhs25","Cocuk Kalbi");
+        titleSearchService.index(book0);
+        titleSearchService.index(book1);
+        stored(book0,book1);
+        assertEquals(Arrays.asList(book1),titleSearchService.search("ka"));
+        assertEquals(Arrays.asList(book1),titleSearchService.search("i"));
+    }
+    @Test
+    public void shouldNotMatchShortQueriesWithTypos(){
+        final Book book0 = book("ash2jhs45","Oblomov");
+        final Book book1 = book("ash2jhs25","Cocuk Kalbi");
+        titleSearchService.index(book0);
+        titleSearchService.index(book1);
+        assertTrue(titleSearchService.search("q").isEmpty());
+        assertTrue(titleSearchService.search("qx").isEmpty());
+        assertTrue(titleSearchService.search("obx").isEmpty());
+        verify(bookRepository,never()).findAllById(any());
+    }
+    @Test
+    public void shouldKeepChangesMadeWhileRebuilding(){
+        final Book book0 = book("ash2jhs45","Oblomov");
+        final Book late = book("ash2jhs25","Cocuk Kalbi");
+        when(bookRepository.findAll()).thenAnswer(invocation -> {
+            titleSearchService.index(late);
+            return Arrays.asList(book0);
+        });
+        stored(book0,late);
+        titleSearchService.rebuild();
+        assertEquals(Arrays.asList(late),titleSearchService.search("Kalbi"));
+        assertEquals(Arrays.asList(book0),titleSearchService.search("Oblomov"));
+    }
+    @Test
+    public void shouldTolerateOneTypo(){
+        final Book book0 = book("ash2jhs45","Fahrenheit 451");
+        final Book book1 = book("ash2jhs25","Cocuk Kalbi");
+        titleSearchService.index(book0);
+        titleSearchService.index(book1);
+        stored(book0,book1);
+        assertEquals(Arrays.asList(book0),titleSearchService.search("Fahrenhet"));
+    }
+    @Test
+    public void shouldReindexRenamedBook(){
+        final Book book0 = book("ash2jhs45","Oblomov");
+        titleSearchService.index(book0);
+        final Book renamed = book("ash2jhs45","Günlükler");
+        titleSearchService.index(renamed);
+        stored(renamed);
+        assertTrue(titleSearchService.search("Oblomov").isEmpty());
+        assertEquals(Arrays.asList(renamed),titleSearchService.search("Günlük"));
+    }
+    @Test
+    public void shouldPageCommonMatchesInNameOrder(){
+        for(int i = 10; i < 40; i++){
+            titleSearchService.index(book("id"+i,"Kitap "+i));
+        }
+        titleSearchService.index(book("id99","Oblomov"));
+        assertEquals(Arrays.asList("id10","id11","id12"),titleSearchService.findIds("kitap",null,null,null,0,3));
+        assertEquals(Arrays.asList("id13","id14","id15"),titleSearchService.findIds("kitap",null,"Kitap 12","id12",0,3));
+        assertEquals(Arrays.asList("id16","id17"),titleSearchService.findIds("kitap",null,null,null,6,2));
+        assertEquals(Arrays.asList("id38","id39"),titleSearchService.findIds("kitap",null,"Kitap 37","id37",0,5));
+        verify(bookRepository,never()).findAllById(any());
+    }
+    @Test
+    public void shouldPageRareMatchesOfGenre(){
+        titleSearchService.index(book("ash2jhs45","Oblomov'un Rüyası","Classics"));
+        titleSearchService.index(book("ash2jhs25","Oblomov","Classics"));
+        titleSearchService.index(book("ash2sdhs44","Oblomovka","Fiction"));
+        for(int i = 10; i < 40; i++){
+            titleSearchService.index(book("id"+i,"Kitap "+i));
+        }
+        assertEquals(Arrays.asList("ash2jhs25","ash2jhs45"),titleSearchService.findIds("oblomov","classics",null,null,0,10));
+        assertEquals(Arrays.asList("ash2jhs45"),titleSearchService.findIds("oblomov","Classics","Oblomov","ash2jhs25",0,10));
+        assertEquals(Arrays.asList("ash2sdhs44"),titleSearchService.findIds("oblomov","Fiction",null,null,0,10));
+    }
+    @Test
+    public void shouldPageTitlesWithinOneTypoWhenNothingMatchesExactly(){
+        titleSearchService.index(book("ash2jhs45","Oblomov"));
+        titleSearchService.index(book("ash2jhs25","Cocuk Kalbi"));
+        assertEquals(Arrays.asList("ash2jhs45"),titleSearchService.findIds("Oblonov",null,null,null,0,10));
+        assertTrue(titleSearchService.findIds("Oblonov",null,"Oblomov","ash2jhs45",0,10).isEmpty());
+    }
+    @Test
+    public void shouldNotFindRemovedBook(){
+        final Book book0 = book("ash2jhs45","Oblomov");
+        titleSearchService.index(book0);
+        titleSearchService.remove(book0.getId());
+        assertTrue(titleSearchService.search("Oblomov").isEmpty());
+        verify(bookRepository,never()).findAll();
+    }
+}
@@ -1,7 +1,5 @@
 package com.mailservice.mailservice.kafka;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mailservice.mailservice.payload.KafkaUserRegistered;
 import com.mailservice.mailservice.payload.MailRequest;
 import com.mailservice.mailservice.service.EmailMailSender;
@@ -10,8 +8,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
-import java.io.IOException;
-
 @Component
 public class MailListener {
 
@@ -21,64 +17,32 @@ public class MailListener {
     UserService userService;
 
     @KafkaListener(topics = "confirmation-mail",
-            groupId ="mailservice")
-    public void consumeConfirmMail(String message) {
-        System.out.println(message);
-        ObjectMapper mapper = new ObjectMapper();
-        try {
-            MailRequest mailRequest = mapper.readValue(message, MailRequest.class);
-            emailMailSender.sendConfirmationMailRequestsMail(mailRequest);
-        } catch (JsonProcessingException e) {
-            e.printStackTrace();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+            groupId ="mailservice",
+            concurrency = "${bookend.kafka.concurrency.confirmation-mail:1}")
+    public void consumeConfirmMail(MailRequest mailRequest) {
+        emailMailSender.sendConfirmationMailRequestsMail(mailRequest);
     }
 
     @KafkaListener(topics = "Mail",
-            groupId ="mailservice")
-    public void consumeMail(String message) {
-        System.out.println(message);
-        ObjectMapper mapper = new ObjectMapper();
-        try {
-            MailRequest mailRequest = mapper.readValue(message, MailRequest.class);
-            emailMailSender.sendMailRequestsMail(mailRequest);
-        } catch (JsonProcessingException e) {
-            e.printStackTrace();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+            groupId ="mailservice",
+            concurrency = "${bookend.kafka.concurrency.mail:1}")
+    public void consumeMail(MailRequest mailRequest) {
+        emailMailSender.sendMailRequestsMail(mailRequest);
     }
 
     @KafkaListener(topics = "user-registered",
-            groupId ="mailservice")
-    public void saveUser(String message) {
-        System.out.println(message);
-        ObjectMapper mapper = new ObjectMapper();
-        try {
-            KafkaUserRegistered kafkaUserRegistered = mapper.readValue(message, KafkaUserRegistered.class);
-            userService.save(kafkaUserRegistered.getId(),kafkaUserRegistered.getMail());
-        } catch (JsonProcessingException e) {
-            e.printStackTrace();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+            groupId ="mailservice",
+            concurrency = "${bookend.kafka.concurrency.user-registered:1}")
+    public void saveUser(KafkaUserRegistered kafkaUserRegistered) {
+        userService.save(kafkaUserRegistered.getId(),kafkaUserRegistered.getMail());
     }
-    
+
 
     @KafkaListener(topics = "resetPassword-mail",
-            groupId ="mailservice")
-    public void consumeResetPasswordMail(String message) {
-        System.out.println(message);
-        ObjectMapper mapper = new ObjectMapper();
-        try {
-            MailRequest mailRequest = mapper.readValue(message, MailRequest.class);
-            emailMailSender.sendResetPasswordMailRequestsMail(mailRequest);
-        } catch (JsonProcessingException e) {
-            e.printStackTrace();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+            groupId ="mailservice",
+            concurrency = "${bookend.kafka.concurrency.reset-password-mail:1}")
+    public void consumeResetPasswordMail(MailRequest mailRequest) {
+        emailMailSender.sendResetPasswordMailRequestsMail(mailRequest);
     }
 
 
@@ -4,9 +4,8 @@ import com.mailservice.mailservice.model.User;
 import com.mailservice.mailservice.payload.MailRequest;
 import com.mailservice.mailservice.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 /**
  * MAILS-MSC stands for MailService-MailSenderClass
@@ -16,17 +15,22 @@ import org.springframework.stereotype.Service;
 public class EmailMailSender {
 
     @Autowired
-    private JavaMailSender javaMailSender;
+    private MailDispatcher mailDispatcher;
 
     @Autowired
     private UserRepository userRepository;
 
     /**
      * MAILS-MSC-1 (SM_49)
+     * Hands the mail to the dispatcher, the caller only waits while its queue is full.
      */
-    @Async
     public void sendEmail(SimpleMailMessage email) {
-        javaMailSender.send(email);
+        try {
+            mailDispatcher.submit(email);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MailSendException("Interrupted while queueing mail", e);
+        }
     }
 
     /**
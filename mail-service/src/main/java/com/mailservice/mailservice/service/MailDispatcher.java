@@ -0,0 +1,393 @@
+package com.mailservice.mailservice.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MAILS-MDC stands for MailService-MailDispatcherClass
+ * SM stands for ServiceMethod
+ *
+ * Sends mails from a bounded queue on a small pool of workers. Each worker drains up to a batch of queued
+ * mails and hands them to {@link JavaMailSender#send(SimpleMailMessage...)}, which delivers the whole batch
+ * over one SMTP connection. Recipient domains are rate limited with a token bucket each, and mails that
+ * fail are retried with exponential backoff; both wait in a delay queue and never block a worker. Only the
+ * mails a failed send lists as failed are retried, the rest of the batch was already delivered. A bucket
+ * that has been idle long enough to fill up again holds no state and is dropped.
+ *
+ * The Kafka offset of a mail is committed once it is queued, so stopping waits a bounded time for the
+ * queued mails and the pending retries to go out before the workers are interrupted.
+ */
+@Service
+public class MailDispatcher {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MailDispatcher.class);
+
+    private JavaMailSender javaMailSender;
+    private int capacity = 1000;
+    private int workers = 2;
+    private int batchSize = 50;
+    private int maxAttempts = 5;
+    private long backoffMillis = 1000;
+    private long maxBackoffMillis = 60000;
+    private double domainRatePerSecond = 10;
+    private int domainBurst = 20;
+    private long shutdownTimeoutMillis = 30000;
+
+    private Semaphore permits;
+    private final BlockingQueue<Outgoing> ready = new LinkedBlockingQueue<>();
+    private final DelayQueue<Outgoing> delayed = new DelayQueue<>();
+    // least recently used first, so the idle buckets are found at the head
+    private final Map<String, TokenBucket> buckets = new LinkedHashMap<>(16, 0.75f, true);
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+    private volatile boolean stopping;
+
+    @Autowired
+    public void setJavaMailSender(JavaMailSender javaMailSender) {
+        this.javaMailSender = javaMailSender;
+    }
+
+    @Value("${bookend.mail.queue-capacity:1000}")
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Value("${bookend.mail.workers:2}")
+    public void setWorkers(int workers) {
+        this.workers = workers;
+    }
+
+    @Value("${bookend.mail.batch-size:50}")
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    @Value("${bookend.mail.max-attempts:5}")
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Value("${bookend.mail.backoff-ms:1000}")
+    public void setBackoffMillis(long backoffMillis) {
+        this.backoffMillis = backoffMillis;
+    }
+
+    @Value("${bookend.mail.max-backoff-ms:60000}")
+    public void setMaxBackoffMillis(long maxBackoffMillis) {
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    @Value("${bookend.mail.domain-rate-per-second:10}")
+    public void setDomainRatePerSecond(double domainRatePerSecond) {
+        this.domainRatePerSecond = domainRatePerSecond;
+    }
+
+    @Value("${bookend.mail.domain-burst:20}")
+    public void setDomainBurst(int domainBurst) {
+        this.domainBurst = domainBurst;
+    }
+
+    @Value("${bookend.mail.shutdown-timeout-ms:30000}")
+    public void setShutdownTimeoutMillis(long shutdownTimeoutMillis) {
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+    }
+
+    /**
+     * MAILS-MDC-1 (SM_111)
+     * Queues the mail, waiting while the queue is full so a burst slows the Kafka consumer down instead
+     * of piling up in memory. Refuses the mail once the dispatcher is stopping.
+     */
+    public void submit(SimpleMailMessage mail) throws InterruptedException {
+        if (stopping) {
+            throw new MailSendException("Mail dispatcher is stopping");
+        }
+        permits().acquire();
+        ready.put(new Outgoing(mail, domainOf(mail)));
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        permits();
+        stopping = false;
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            threads.add(daemon("mail-worker-" + i, this::work));
+        }
+        threads.add(daemon("mail-delay", this::release));
+    }
+
+    /**
+     * Keeps the workers sending until every queued mail and retry is done or the shutdown timeout has
+     * passed. Waiting retries and rate limited mails are sent right away, later retries back off by the
+     * initial backoff only. The Kafka listener containers are stopped before this runs, so nothing new is
+     * queued meanwhile.
+     */
+    @PreDestroy
+    public void stop() {
+        synchronized (delayed) {
+            stopping = true;
+            flushDelayed();
+        }
+        if (running) {
+            try {
+                awaitDrained(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(shutdownTimeoutMillis));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            running = false;
+            threads.forEach(Thread::interrupt);
+            threads.clear();
+        }
+        int unsent = pending();
+        if (unsent > 0) {
+            LOGGER.error("stopped with {} mails not sent", unsent);
+        }
+    }
+
+    /**
+     * Mails that are queued, waiting for a retry or being sent.
+     */
+    public int pending() {
+        return capacity - permits().availablePermits();
+    }
+
+    private void flushDelayed() {
+        for (Outgoing outgoing : delayed.toArray(new Outgoing[0])) {
+            // the delay thread may have released it already
+            if (delayed.remove(outgoing)) {
+                ready.add(outgoing);
+            }
+        }
+    }
+
+    private void awaitDrained(long deadline) throws InterruptedException {
+        while (pending() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private synchronized Semaphore permits() {
+        if (permits == null) {
+            permits = new Semaphore(capacity);
+        }
+        return permits;
+    }
+
+    private void work() {
+        List<Outgoing> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                admit(ready.take(), batch);
+                Outgoing next;
+                while (batch.size() < batchSize && (next = ready.poll()) != null) {
+                    admit(next, batch);
+                }
+                if (!batch.isEmpty()) {
+                    send(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                LOGGER.error("mail worker failed", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void admit(Outgoing outgoing, List<Outgoing> batch) {
+        long wait = bucket(outgoing.domain).take();
+        if (wait == 0) {
+            batch.add(outgoing);
+        } else {
+            defer(outgoing, wait);
+        }
+    }
+
+    private void send(List<Outgoing> batch) {
+        SimpleMailMessage[] mails = new SimpleMailMessage[batch.size()];
+        for (int i = 0; i < mails.length; i++) {
+            mails[i] = batch.get(i).mail;
+        }
+        try {
+            javaMailSender.send(mails);
+            batch.forEach(this::done);
+        } catch (MailSendException e) {
+            // JavaMailSenderImpl lists every mail it did not deliver, with none listed only closing the connection failed
+            Map<Object, Exception> failed = e.getFailedMessages();
+            if (failed.isEmpty()) {
+                LOGGER.warn("mail batch was delivered but the connection failed afterwards", e);
+            }
+            for (Outgoing outgoing : batch) {
+                if (failed.containsKey(outgoing.mail)) {
+                    retry(outgoing, e);
+                } else {
+                    done(outgoing);
+                }
+            }
+        } catch (MailException e) {
+            batch.forEach(outgoing -> retry(outgoing, e));
+        }
+    }
+
+    private void retry(Outgoing outgoing, Exception cause) {
+        outgoing.attempts++;
+        if (outgoing.attempts >= maxAttempts) {
+            LOGGER.error("giving up on mail to '{}' after {} attempts", outgoing.domain, outgoing.attempts, cause);
+            done(outgoing);
+            return;
+        }
+        long backoff = Math.min(maxBackoffMillis, backoffMillis << Math.min(outgoing.attempts - 1, 20));
+        LOGGER.warn("mail to '{}' failed, retrying in {} ms", outgoing.domain, backoff);
+        defer(outgoing, backoff);
+    }
+
+    private void defer(Outgoing outgoing, long millis) {
+        synchronized (delayed) {
+            // a long backoff would outlast the shutdown timeout
+            long delay = stopping ? Math.min(millis, backoffMillis) : millis;
+            outgoing.dueAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+            delayed.put(outgoing);
+        }
+    }
+
+    private void release() {
+        while (running) {
+            try {
+                ready.put(delayed.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void done(Outgoing outgoing) {
+        permits().release();
+    }
+
+    private TokenBucket bucket(String domain) {
+        synchronized (buckets) {
+            long now = System.nanoTime();
+            Iterator<TokenBucket> eldest = buckets.values().iterator();
+            while (eldest.hasNext() && eldest.next().isFull(now)) {
+                eldest.remove();
+            }
+            return buckets.computeIfAbsent(domain, d -> new TokenBucket(domainRatePerSecond, domainBurst));
+        }
+    }
+
+    /**
+     * Mails waiting for a retry or for a token of their domain.
+     */
+    public int countDelayed() {
+        return delayed.size();
+    }
+
+    /**
+     * Domains that currently hold a rate limiting bucket.
+     */
+    public int countBuckets() {
+        synchronized (buckets) {
+            return buckets.size();
+        }
+    }
+
+    private static String domainOf(SimpleMailMessage mail) {
+        String[] to = mail.getTo();
+        if (to == null || to.length == 0 || to[0] == null) {
+            return "";
+        }
+        return to[0].substring(to[0].lastIndexOf('@') + 1).trim().toLowerCase();
+    }
+
+    private static Thread daemon(String name, Runnable task) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private static final class Outgoing implements Delayed {
+        private final SimpleMailMessage mail;
+        private final String domain;
+        private int attempts;
+        private long dueAt;
+
+        private Outgoing(SimpleMailMessage mail, String domain) {
+            this.mail = mail;
+            this.domain = domain;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAt - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueAt, ((Outgoing) other).dueAt);
+        }
+    }
+
+    private static final class TokenBucket {
+        private final double ratePerNano;
+        private final double burst;
+        private double tokens;
+        private long refilledAt;
+
+        private TokenBucket(double ratePerSecond, int burst) {
+            this.ratePerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.burst = burst;
+            this.tokens = burst;
+            this.refilledAt = System.nanoTime();
+        }
+
+        /**
+         * Whether the bucket has refilled completely, and would behave exactly like a new one.
+         */
+        private synchronized boolean isFull(long now) {
+            return tokens + (now - refilledAt) * ratePerNano >= burst;
+        }
+
+        /**
+         * Takes a token and returns 0, or returns how many milliseconds to wait for the next one.
+         */
+        private synchronized long take() {
+            long now = System.nanoTime();
+            tokens = Math.min(burst, tokens + (now - refilledAt) * ratePerNano);
+            refilledAt = now;
+            if (tokens >= 1) {
+                tokens--;
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((1 - tokens) / ratePerNano / TimeUnit.MILLISECONDS.toNanos(1)));
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.mailservice.mailservice.model.User;
 import com.mailservice.mailservice.payload.MailRequest;
 import com.mailservice.mailservice.repository.UserRepository;
 import com.mailservice.mailservice.service.EmailMailSender;
+import com.mailservice.mailservice.service.MailDispatcher;
 import org.aspectj.lang.annotation.Before;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,7 +16,6 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 
 import javax.mail.Message;
 import javax.mail.MessagingException;
@@ -35,7 +35,7 @@ public class EMailMailSenderServiceTest {
     @InjectMocks
     private EmailMailSender emailMailSender;
     @Mock
-    private JavaMailSender javaMailSender;
+    private MailDispatcher mailDispatcher;
     MailRequest mailRequest;
     User user;
     public EMailMailSenderServiceTest() {
@@ -55,34 +55,30 @@ public class EMailMailSenderServiceTest {
     }
     @MockitoSettings(strictness = Strictness.WARN)
     @Test
-    public void sendSuccessfullyRequestMail()  {
+    public void sendSuccessfullyRequestMail() throws InterruptedException {
 
         when(userRepository.findById(mailRequest.getId())).thenReturn(Optional.of(user));
         emailMailSender.sendMailRequestsMail(mailRequest);
-        doNothing().when(javaMailSender).send(any(SimpleMailMessage.class));
-        verify(javaMailSender, times(1)).send(any(SimpleMailMessage.class));
+        verify(mailDispatcher, times(1)).submit(any(SimpleMailMessage.class));
     }
     @MockitoSettings(strictness = Strictness.WARN)
     @Test
-    public void sendSuccessfullyConfirmationMailRequestsMail()  {
+    public void sendSuccessfullyConfirmationMailRequestsMail() throws InterruptedException {
 
         emailMailSender.sendConfirmationMailRequestsMail(mailRequest);
-        doNothing().when(javaMailSender).send(any(SimpleMailMessage.class));
-        verify(javaMailSender, times(1)).send(any(SimpleMailMessage.class));
+        verify(mailDispatcher, times(1)).submit(any(SimpleMailMessage.class));
     }
     @MockitoSettings(strictness = Strictness.WARN)
     @Test
-    public void sendSuccessfullyResetPasswordMailRequestsMail()  {
+    public void sendSuccessfullyResetPasswordMailRequestsMail() throws InterruptedException {
         emailMailSender.sendResetPasswordMailRequestsMail(mailRequest);
-        doNothing().when(javaMailSender).send(any(SimpleMailMessage.class));
-        verify(javaMailSender, times(1)).send(any(SimpleMailMessage.class));
+        verify(mailDispatcher, times(1)).submit(any(SimpleMailMessage.class));
     }
     @MockitoSettings(strictness = Strictness.WARN)
     @Test
-    public void sendSuccessfullyMail()  {
+    public void sendSuccessfullyMail() throws InterruptedException {
         final  SimpleMailMessage mailMessage = new SimpleMailMessage();
         emailMailSender.sendEmail(mailMessage);
-        doNothing().when(javaMailSender).send(any(SimpleMailMessage.class));
-        verify(javaMailSender, times(1)).send(any(SimpleMailMessage.class));
+        verify(mailDispatcher, times(1)).submit(any(SimpleMailMessage.class));
     }
 }
@@ -0,0 +1,215 @@
+package com.mailservice.mailservice.serviceTest;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.mailservice.mailservice.service.MailDispatcher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import javax.mail.MessagingException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MailDispatcherTest {
+
+    private GreenMail greenMail;
+    private CountingSender sender;
+    private MailDispatcher mailDispatcher;
+
+    @BeforeEach
+    void setUp() {
+        greenMail = new GreenMail(ServerSetupTest.SMTP);
+        greenMail.start();
+        sender = new CountingSender();
+        sender.setHost("localhost");
+        sender.setPort(ServerSetupTest.SMTP.getPort());
+        mailDispatcher = new MailDispatcher();
+        mailDispatcher.setJavaMailSender(sender);
+        mailDispatcher.setWorkers(1);
+        mailDispatcher.setBatchSize(10);
+        mailDispatcher.setBackoffMillis(10);
+        mailDispatcher.setMaxBackoffMillis(50);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mailDispatcher.stop();
+        greenMail.stop();
+    }
+
+    @Test
+    public void shouldSendQueuedMailsOverOneConnection() throws InterruptedException {
+        for (int i = 0; i < 5; i++) {
+            mailDispatcher.submit(mail("reader" + i + "@mail.com"));
+        }
+        mailDispatcher.start();
+        assertTrue(greenMail.waitForIncomingEmail(5000, 5));
+        assertEquals(1, sender.calls.get());
+    }
+
+    @Test
+    public void shouldRetryFailedMailWithBackoff() throws InterruptedException {
+        sender.failures.set(2);
+        mailDispatcher.start();
+        mailDispatcher.submit(mail("reader@mail.com"));
+        assertTrue(greenMail.waitForIncomingEmail(5000, 1));
+        assertEquals(3, sender.calls.get());
+    }
+
+    @Test
+    public void shouldGiveUpAfterMaxAttempts() throws InterruptedException {
+        sender.failures.set(Integer.MAX_VALUE);
+        mailDispatcher.setMaxAttempts(2);
+        mailDispatcher.start();
+        mailDispatcher.submit(mail("reader@mail.com"));
+        for (int i = 0; i < 100 && mailDispatcher.pending() > 0; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, mailDispatcher.pending());
+        assertEquals(2, sender.calls.get());
+        assertEquals(0, greenMail.getReceivedMessages().length);
+    }
+
+    @Test
+    public void shouldRateLimitEachRecipientDomain() throws InterruptedException {
+        mailDispatcher.setDomainRatePerSecond(20);
+        mailDispatcher.setDomainBurst(1);
+        mailDispatcher.submit(mail("first@mail.com"));
+        mailDispatcher.submit(mail("second@mail.com"));
+        mailDispatcher.submit(mail("other@club.com"));
+        mailDispatcher.start();
+        assertTrue(greenMail.waitForIncomingEmail(5000, 3));
+        // the second mail to mail.com has to wait for a token, so it goes out in a later batch
+        assertEquals(2, sender.calls.get());
+    }
+
+    @Test
+    public void shouldRetryOnlyTheFailedMailsOfABatch() throws InterruptedException {
+        sender.rejected.add("bad@mail.com");
+        mailDispatcher.submit(mail("good@mail.com"));
+        mailDispatcher.submit(mail("bad@mail.com"));
+        mailDispatcher.start();
+        assertTrue(greenMail.waitForIncomingEmail(5000, 2));
+        for (int i = 0; i < 100 && mailDispatcher.pending() > 0; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(2, sender.calls.get());
+        assertEquals(2, greenMail.getReceivedMessages().length);
+    }
+
+    @Test
+    public void shouldNotResendBatchWhenNoMailIsListedAsFailed() throws InterruptedException {
+        sender.failAfterSending = true;
+        mailDispatcher.submit(mail("reader@mail.com"));
+        mailDispatcher.start();
+        assertTrue(greenMail.waitForIncomingEmail(5000, 1));
+        for (int i = 0; i < 100 && mailDispatcher.pending() > 0; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, mailDispatcher.pending());
+        assertEquals(1, sender.calls.get());
+        assertEquals(1, greenMail.getReceivedMessages().length);
+    }
+
+    @Test
+    public void shouldSendRetryingMailBeforeStopping() throws InterruptedException {
+        sender.failures.set(1);
+        mailDispatcher.setBackoffMillis(60000);
+        mailDispatcher.setMaxBackoffMillis(60000);
+        mailDispatcher.setShutdownTimeoutMillis(5000);
+        mailDispatcher.start();
+        mailDispatcher.submit(mail("reader@mail.com"));
+        for (int i = 0; i < 100 && mailDispatcher.countDelayed() == 0; i++) {
+            Thread.sleep(20);
+        }
+        mailDispatcher.stop();
+        assertEquals(0, mailDispatcher.pending());
+        assertEquals(2, sender.calls.get());
+        assertEquals(1, greenMail.getReceivedMessages().length);
+        assertThrows(MailSendException.class, () -> mailDispatcher.submit(mail("late@mail.com")));
+    }
+
+    @Test
+    public void shouldStopAfterShutdownTimeoutWhenMailsCannotBeSent() throws InterruptedException {
+        sender.failures.set(Integer.MAX_VALUE);
+        mailDispatcher.setMaxAttempts(Integer.MAX_VALUE);
+        mailDispatcher.setShutdownTimeoutMillis(100);
+        mailDispatcher.start();
+        mailDispatcher.submit(mail("reader@mail.com"));
+        long started = System.nanoTime();
+        mailDispatcher.stop();
+        assertTrue(System.nanoTime() - started < 5_000_000_000L);
+        assertEquals(1, mailDispatcher.pending());
+    }
+
+    @Test
+    public void shouldDropBucketsOfIdleDomains() throws InterruptedException {
+        mailDispatcher.setDomainRatePerSecond(100);
+        mailDispatcher.setDomainBurst(1);
+        mailDispatcher.start();
+        mailDispatcher.submit(mail("first@mail.com"));
+        mailDispatcher.submit(mail("second@club.com"));
+        assertTrue(greenMail.waitForIncomingEmail(5000, 2));
+        Thread.sleep(50);
+        mailDispatcher.submit(mail("third@shelf.com"));
+        assertTrue(greenMail.waitForIncomingEmail(5000, 3));
+        assertEquals(1, mailDispatcher.countBuckets());
+    }
+
+    private static SimpleMailMessage mail(String to) {
+        SimpleMailMessage mail = new SimpleMailMessage();
+        mail.setTo(to);
+        mail.setFrom("bookend@mail.com");
+        mail.setSubject("SubjectTest");
+        mail.setText("TestText....");
+        return mail;
+    }
+
+    private static class CountingSender extends JavaMailSenderImpl {
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+        // recipients whose next mail is refused
+        private final Set<String> rejected = ConcurrentHashMap.newKeySet();
+        private volatile boolean failAfterSending;
+
+        @Override
+        public void send(SimpleMailMessage... simpleMessages) {
+            calls.incrementAndGet();
+            Map<Object, Exception> failed = new LinkedHashMap<>();
+            if (failures.getAndDecrement() > 0) {
+                for (SimpleMailMessage mail : simpleMessages) {
+                    failed.put(mail, new MessagingException("SMTP server unavailable"));
+                }
+                throw new MailSendException(failed);
+            }
+            List<SimpleMailMessage> accepted = new ArrayList<>();
+            for (SimpleMailMessage mail : simpleMessages) {
+                if (rejected.remove(mail.getTo()[0])) {
+                    failed.put(mail, new MessagingException("mailbox unavailable"));
+                } else {
+                    accepted.add(mail);
+                }
+            }
+            if (!accepted.isEmpty()) {
+                super.send(accepted.toArray(new SimpleMailMessage[0]));
+            }
+            if (!failed.isEmpty()) {
+                throw new MailSendException(failed);
+            }
+            if (failAfterSending) {
+                throw new MailSendException("Failed to close server connection after message sending");
+            }
+        }
+    }
+}
@@ -1,9 +1,16 @@
 package com.bookend.messageservice.config;
 
 import com.bookend.messageservice.model.Message;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
 
 import com.bookend.messageservice.repository.MessageRepository;
@@ -14,6 +21,39 @@ import java.util.Date;
 @EnableMongoRepositories(basePackageClasses = MessageRepository.class)
 @Configuration
 public class MongoDBConfig {
+    private MongoTemplate mongoTemplate;
+    private MessageRepository messageRepository;
+
+    @Autowired
+    public void setMongoTemplate(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Autowired
+    public void setMessageRepository(MessageRepository messageRepository) {
+        this.messageRepository = messageRepository;
+    }
+
+    /**
+     * A chat page is read newest first along (conversationKey, sendDate, _id) and stops once it is filled,
+     * so its cost depends on the page size only; inbox and sent pages do the same along receiver and sender.
+     * Messages saved before the key existed get it here.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        IndexOperations messages = mongoTemplate.indexOps(Message.class);
+        messages.ensureIndex(new Index().on("conversationKey", Sort.Direction.ASC)
+                .on("sendDate", Sort.Direction.DESC).on("_id", Sort.Direction.DESC)
+                .named("conversationKey_sendDate"));
+        messages.ensureIndex(new Index().on("receiver", Sort.Direction.ASC)
+                .on("sendDate", Sort.Direction.DESC).on("_id", Sort.Direction.DESC)
+                .named("receiver_sendDate"));
+        messages.ensureIndex(new Index().on("sender", Sort.Direction.ASC)
+                .on("sendDate", Sort.Direction.DESC).on("_id", Sort.Direction.DESC)
+                .named("sender_sendDate"));
+        messageRepository.backfillConversationKeys();
+    }
+
     //after running one time make the method as comment
     /*
     @Bean
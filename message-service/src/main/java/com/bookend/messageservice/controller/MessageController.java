@@ -6,21 +6,25 @@ import java.util.List;
 
 import com.bookend.messageservice.exception.MandatoryFieldException;
 import com.bookend.messageservice.exception.MessageNotFound;
-import com.bookend.messageservice.exception.UserNotFound;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 
+import com.bookend.messageservice.payload.MessagePage;
 import com.bookend.messageservice.payload.MessageResponse;
+import com.bookend.messageservice.payload.UnreadCount;
+import com.bookend.messageservice.push.MessagePushHub;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.security.oauth2.provider.OAuth2Authentication;
 import com.bookend.messageservice.model.Message;
 import com.bookend.messageservice.service.MessageService;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 /**
  * MS-MC stands for MessageService-MessageController
  * CM stands for ControllerMethod
@@ -31,6 +35,11 @@ import org.springframework.web.server.ResponseStatusException;
 public class MessageController {
 
     private MessageService messageService;
+    private MessagePushHub messagePushHub;
+    @Autowired
+    public void setMessagePushHub(MessagePushHub messagePushHub){
+        this.messagePushHub=messagePushHub;
+    }
     @Autowired
     public void setMessageService(MessageService messageService){
         this.messageService=messageService;
@@ -45,8 +54,12 @@ public class MessageController {
     }
     )
     @GetMapping("/{messageid}")
-    public Message getMessage(@PathVariable("messageid") String messageId) throws MessageNotFound {
-        return messageService.getById(messageId);
+    public Message getMessage(@PathVariable("messageid") String messageId,OAuth2Authentication auth) throws MessageNotFound {
+        Message message = messageService.getById(messageId);
+        if(auth != null){
+            messageService.markRead(message,auth.getName());
+        }
+        return message;
     }
     /**
      * MS-MC-2 (CM_37)
@@ -84,6 +97,73 @@ public class MessageController {
         Collections.reverse(chat);
         return chat;
     }
+    /**
+     * MS-MC-8 (CM_68)
+     */
+    @ApiOperation(value = "View user's inbox newest first one page at a time", response = MessagePage.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully retrieved message page"),
+            @ApiResponse(code = 400, message = "Size or cursor is not valid."),
+            @ApiResponse(code = 401, message = "You are not authorized to view the resource"),
+    }
+    )
+    @GetMapping(value = "/inbox", params = "size")
+    public MessagePage getInboxPage(OAuth2Authentication auth
+            ,@RequestParam int size
+            ,@RequestParam(required = false) String before) {
+        try {
+            return messageService.findInbox(auth.getUserAuthentication().getName(),size,before);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,e.getMessage());
+        }
+    }
+    /**
+     * MS-MC-9 (CM_69)
+     */
+    @ApiOperation(value = "View user's sent messages newest first one page at a time", response = MessagePage.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully retrieved message page"),
+            @ApiResponse(code = 400, message = "Size or cursor is not valid."),
+            @ApiResponse(code = 401, message = "You are not authorized to view the resource"),
+    }
+    )
+    @GetMapping(value = "/sent", params = "size")
+    public MessagePage getSentPage(OAuth2Authentication auth
+            ,@RequestParam int size
+            ,@RequestParam(required = false) String before) {
+        try {
+            return messageService.findSent(auth.getUserAuthentication().getName(),size,before);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,e.getMessage());
+        }
+    }
+    /**
+     * MS-MC-10 (CM_70)
+     */
+    @ApiOperation(value = "Get the number of user's unread messages", response = UnreadCount.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully retrieved unread count"),
+            @ApiResponse(code = 401, message = "You are not authorized to view the resource"),
+    }
+    )
+    @GetMapping("/unread")
+    public UnreadCount getUnreadCount(OAuth2Authentication auth) {
+        return new UnreadCount(messageService.countUnread(auth.getUserAuthentication().getName()));
+    }
+    /**
+     * MS-MC-11 (CM_71)
+     * Browsers cannot set headers on an EventSource, so the token may be passed as access_token instead.
+     */
+    @ApiOperation(value = "Stream user's new messages as server-sent events", response = SseEmitter.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully opened message stream"),
+            @ApiResponse(code = 401, message = "You are not authorized to view the resource"),
+    }
+    )
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(OAuth2Authentication auth) {
+        return messagePushHub.subscribe(auth.getUserAuthentication().getName());
+    }
     /**
      * MS-MC-4 (CM_39)
      */
@@ -111,16 +191,17 @@ public class MessageController {
     @ApiOperation(value = "Delete a specific message")
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "Successfully deleted message"),
-            @ApiResponse(code = 401, message = "You are not authorized to delete the resource")
+            @ApiResponse(code = 401, message = "You are not authorized to delete the resource"),
+            @ApiResponse(code = 404, message = "Message is not found.")
     }
     )
     @DeleteMapping("/delete/{messageid}")
-    public ResponseEntity<?> deleteMessage(@PathVariable("messageid")  String messageId,OAuth2Authentication auth) throws MessageNotFound, UserNotFound {
-        Message message = messageService.getById(messageId);
-        if(message== null){
+    public ResponseEntity<?> deleteMessage(@PathVariable("messageid")  String messageId,OAuth2Authentication auth) {
+        try {
+            messageService.deleteMessage(messageId,auth.getName());
+        } catch (MessageNotFound e) {
             throw  new ResponseStatusException(HttpStatus.NOT_FOUND,"Message is not found.");
         }
-        messageService.deleteMessage(message,auth.getName());
         return ResponseEntity.ok(new MessageResponse("Successfully deleted."));
     }
     /**
@@ -137,5 +218,25 @@ public class MessageController {
     public List<Message> getChat(OAuth2Authentication auth,@PathVariable("userName") String userName) throws MessageNotFound {
     	return messageService.findChatByUserName(auth.getName(),userName);
     }
+    /**
+     * MS-MC-7 (CM_67)
+     */
+    @ApiOperation(value = "View user's newest messages with another user one page at a time", response = MessagePage.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully retrieved message page"),
+            @ApiResponse(code = 400, message = "Size or cursor is not valid."),
+            @ApiResponse(code = 401, message = "You are not authorized to view the resource"),
+    }
+    )
+    @GetMapping(value = "/chat/{userName}", params = "size")
+    public MessagePage getChatPage(OAuth2Authentication auth,@PathVariable("userName") String userName
+            ,@RequestParam int size
+            ,@RequestParam(required = false) String before) {
+        try {
+            return messageService.findChat(auth.getName(),userName,size,before);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,e.getMessage());
+        }
+    }
 
 }
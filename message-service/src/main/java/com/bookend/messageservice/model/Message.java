@@ -15,6 +15,9 @@ public class Message implements Comparable<Message> {
     private String subject;
 	private String text;
 	private Date sendDate;
+	private String conversationKey;
+	// null on messages stored before read state was tracked, those are never counted as unread
+	private Boolean read;
 
 	public Message() {
 		super();
@@ -87,6 +90,32 @@ public class Message implements Comparable<Message> {
 		this.sendDate = sendDate;
 	}
 
+	public Boolean getRead() {
+		return read;
+	}
+
+	public void setRead(Boolean read) {
+		this.read = read;
+	}
+
+	public String getConversationKey() {
+		return conversationKey;
+	}
+
+	public void setConversationKey(String conversationKey) {
+		this.conversationKey = conversationKey;
+	}
+
+	/**
+	 * Key shared by every message between the two users whichever of them sent it. Names are compared
+	 * ignoring case, the same way chats were matched before the key existed.
+	 */
+	public static String conversationKey(String userName1, String userName2) {
+		String first = userName1.toLowerCase();
+		String second = userName2.toLowerCase();
+		return first.compareTo(second) <= 0 ? first + "\n" + second : second + "\n" + first;
+	}
+
 	@Override
 	public int compareTo(Message o) {
 	    return getSendDate().compareTo(o.getSendDate());
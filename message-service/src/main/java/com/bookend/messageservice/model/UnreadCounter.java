@@ -0,0 +1,31 @@
+package com.bookend.messageservice.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Number of unread messages of a user, kept up to date on every send, read and delete so the
+ * client can poll it without loading the inbox.
+ */
+@Document(collection = "unread_counters")
+public class UnreadCounter {
+	@Id
+	private String id;
+	private long count;
+
+	public UnreadCounter() {
+	}
+
+	public UnreadCounter(String id, long count) {
+		this.id = id;
+		this.count = count;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public long getCount() {
+		return count;
+	}
+}
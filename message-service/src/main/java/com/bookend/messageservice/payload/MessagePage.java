@@ -0,0 +1,44 @@
+package com.bookend.messageservice.payload;
+
+import com.bookend.messageservice.model.Message;
+
+import java.util.List;
+
+public class MessagePage {
+    private List<Message> messages;
+    private Integer size;
+    private String nextCursor;
+
+    public MessagePage() {
+    }
+
+    public MessagePage(List<Message> messages, Integer size, String nextCursor) {
+        this.messages = messages;
+        this.size = size;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Message> getMessages() {
+        return messages;
+    }
+
+    public void setMessages(List<Message> messages) {
+        this.messages = messages;
+    }
+
+    public Integer getSize() {
+        return size;
+    }
+
+    public void setSize(Integer size) {
+        this.size = size;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,14 @@
+package com.bookend.messageservice.payload;
+
+public class UnreadCount {
+    private long unread;
+
+    public UnreadCount(long unread) {
+        this.unread = unread;
+    }
+
+    public long getUnread() {
+        return unread;
+    }
+
+}
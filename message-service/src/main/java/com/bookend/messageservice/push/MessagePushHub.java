@@ -0,0 +1,274 @@
+package com.bookend.messageservice.push;
+
+import com.bookend.messageservice.model.Message;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fans new messages out to the server-sent event streams their receivers hold open. An idle stream
+ * holds nothing but its emitter. Messages wait in a small per-stream buffer and a few shared sender
+ * threads write them out, so saving a message never blocks on a client. When a client falls so far
+ * behind that its buffer is full, the buffered messages are dropped and the client is sent a
+ * {@value #RESYNC_EVENT} event instead, after which it reloads the first page of its inbox. A write
+ * that is still blocked on its client after the write timeout is interrupted and its stream closed,
+ * so a stalled connection cannot hold one of the sender threads for long.
+ */
+@Component
+public class MessagePushHub {
+    public static final String MESSAGE_EVENT = "message";
+    public static final String RESYNC_EVENT = "resync";
+
+    // receiver name in lower case -> open streams, names are matched ignoring case like chats are
+    private final Map<String, Set<Stream>> streams = new ConcurrentHashMap<>();
+    private final AtomicLong opened = new AtomicLong();
+    private int bufferSize;
+    private long timeout;
+    private int maxStreamsPerUser;
+    private int senderThreads;
+    private long writeTimeout;
+    private ExecutorService senders;
+    private ScheduledExecutorService watchdog;
+
+    @Value("${bookend.push.buffer-size:32}")
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    @Value("${bookend.push.timeout-ms:1800000}")
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+
+    @Value("${bookend.push.max-streams-per-user:5}")
+    public void setMaxStreamsPerUser(int maxStreamsPerUser) {
+        this.maxStreamsPerUser = maxStreamsPerUser;
+    }
+
+    @Value("${bookend.push.sender-threads:2}")
+    public void setSenderThreads(int senderThreads) {
+        this.senderThreads = senderThreads;
+    }
+
+    @Value("${bookend.push.write-timeout-ms:10000}")
+    public void setWriteTimeout(long writeTimeout) {
+        this.writeTimeout = writeTimeout;
+    }
+
+    @PostConstruct
+    public void start() {
+        senders = Executors.newFixedThreadPool(senderThreads);
+        watchdog = Executors.newSingleThreadScheduledExecutor();
+        long period = Math.max(writeTimeout / 2, 100);
+        watchdog.scheduleWithFixedDelay(this::expireStalledWrites, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        watchdog.shutdownNow();
+        senders.shutdownNow();
+        streams.values().forEach(userStreams -> userStreams.forEach(Stream::close));
+    }
+
+    /**
+     * Opens a stream for {@code userName}. Once the user has too many streams open the oldest one is closed.
+     */
+    public SseEmitter subscribe(String userName) {
+        String key = userName.toLowerCase();
+        SseEmitter emitter = new SseEmitter(timeout);
+        Stream stream = new Stream(key, emitter, opened.incrementAndGet());
+        emitter.onCompletion(stream::close);
+        emitter.onTimeout(stream::close);
+        emitter.onError(error -> stream.close());
+        Set<Stream> userStreams = streams.compute(key, (user, held) -> {
+            Set<Stream> set = held == null ? ConcurrentHashMap.newKeySet() : held;
+            set.add(stream);
+            return set;
+        });
+        if (userStreams.size() > maxStreamsPerUser) {
+            userStreams.stream().min(Comparator.comparingLong(held -> held.sequence)).ifPresent(Stream::close);
+        }
+        return emitter;
+    }
+
+    /**
+     * Queues the message on every stream of its receiver.
+     */
+    public void publish(Message message) {
+        if (message.getReceiver() == null) {
+            return;
+        }
+        Set<Stream> userStreams = streams.get(message.getReceiver().toLowerCase());
+        if (userStreams == null) {
+            return;
+        }
+        for (Stream stream : userStreams) {
+            if (stream.offer(message)) {
+                try {
+                    senders.execute(stream::drain);
+                } catch (RejectedExecutionException e) {
+                    stream.close();
+                }
+            }
+        }
+    }
+
+    public int countStreams(String userName) {
+        Set<Stream> userStreams = streams.get(userName.toLowerCase());
+        return userStreams == null ? 0 : userStreams.size();
+    }
+
+    private void expireStalledWrites() {
+        long deadline = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(writeTimeout);
+        streams.values().forEach(userStreams -> userStreams.forEach(stream -> stream.expireWriteStartedBefore(deadline)));
+    }
+
+    private void remove(Stream stream) {
+        streams.computeIfPresent(stream.user, (user, held) -> {
+            held.remove(stream);
+            return held.isEmpty() ? null : held;
+        });
+    }
+
+    private final class Stream {
+        private final String user;
+        private final SseEmitter emitter;
+        private final long sequence;
+        // allocated only while messages are waiting, an idle stream keeps no buffer
+        private ArrayDeque<Message> pending;
+        private boolean overflowed;
+        private boolean scheduled;
+        private boolean closed;
+        private boolean expired;
+        // the sender thread and start time of the write in progress, the writer is null between writes
+        private Thread writer;
+        private long writeStarted;
+
+        private Stream(String user, SseEmitter emitter, long sequence) {
+            this.user = user;
+            this.emitter = emitter;
+            this.sequence = sequence;
+        }
+
+        /**
+         * Buffers the message, and returns true when the caller has to schedule a drain.
+         */
+        private synchronized boolean offer(Message message) {
+            if (closed) {
+                return false;
+            }
+            if (pending == null) {
+                pending = new ArrayDeque<>(Math.min(bufferSize, 4));
+            }
+            if (pending.size() >= bufferSize) {
+                pending.clear();
+                overflowed = true;
+            }
+            if (!overflowed) {
+                pending.add(message);
+            }
+            if (scheduled) {
+                return false;
+            }
+            scheduled = true;
+            return true;
+        }
+
+        private void drain() {
+            while (true) {
+                Message next = null;
+                boolean resync;
+                synchronized (this) {
+                    if (closed) {
+                        return;
+                    }
+                    resync = overflowed;
+                    overflowed = false;
+                    if (resync) {
+                        pending = null;
+                    } else if (pending != null) {
+                        next = pending.poll();
+                    }
+                    if (!resync && next == null) {
+                        pending = null;
+                        scheduled = false;
+                        return;
+                    }
+                    writer = Thread.currentThread();
+                    writeStarted = System.nanoTime();
+                }
+                boolean failed = false;
+                try {
+                    if (resync) {
+                        emitter.send(SseEmitter.event().name(RESYNC_EVENT).data(""));
+                    } else {
+                        emitter.send(SseEmitter.event().name(MESSAGE_EVENT).id(next.getId())
+                                .data(next, MediaType.APPLICATION_JSON));
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    failed = true;
+                }
+                boolean timedOut;
+                synchronized (this) {
+                    writer = null;
+                    timedOut = expired;
+                }
+                if (timedOut) {
+                    // the interrupt was meant for this write only, the pooled thread must not carry it on
+                    Thread.interrupted();
+                    emitter.complete();
+                    return;
+                }
+                if (failed) {
+                    close();
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Gives up on the write in progress when it started before {@code deadline}. The stream stops taking
+         * messages at once, the sender thread is interrupted and completes the emitter once its write returns.
+         */
+        private void expireWriteStartedBefore(long deadline) {
+            synchronized (this) {
+                if (writer == null || closed || writeStarted - deadline > 0) {
+                    return;
+                }
+                closed = true;
+                expired = true;
+                pending = null;
+                writer.interrupt();
+            }
+            remove(this);
+        }
+
+        private void close() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                pending = null;
+            }
+            remove(this);
+            emitter.complete();
+        }
+    }
+}
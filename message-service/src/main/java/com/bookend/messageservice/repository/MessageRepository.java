@@ -8,9 +8,10 @@ import com.bookend.messageservice.model.Message;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface MessageRepository extends MongoRepository<Message, String>  {
+public interface MessageRepository extends MongoRepository<Message, String>, MessageRepositoryCustom  {
 	Message findMessageById(String id);
 	List<Message>  findMessageBySender(String sender);
 	List<Message> findMessageByReceiver(String receiver);
+	List<Message> findByConversationKeyOrderBySendDateDesc(String conversationKey);
 
 }
@@ -0,0 +1,46 @@
+package com.bookend.messageservice.repository;
+
+import com.bookend.messageservice.model.Message;
+
+import java.util.Date;
+import java.util.List;
+
+public interface MessageRepositoryCustom {
+    /**
+     * Returns at most {@code limit} messages of a conversation, newest first by (sendDate, id).
+     * When {@code beforeDate}/{@code beforeId} are given only older messages are returned.
+     */
+    List<Message> findChat(String conversationKey, Date beforeDate, String beforeId, int limit);
+
+    /**
+     * Same as {@link #findChat} for the messages received by {@code receiver}.
+     */
+    List<Message> findReceived(String receiver, Date beforeDate, String beforeId, int limit);
+
+    /**
+     * Same as {@link #findChat} for the messages sent by {@code sender}.
+     */
+    List<Message> findSent(String sender, Date beforeDate, String beforeId, int limit);
+
+    /**
+     * Marks the message read if {@code receiver} received it and had not read it yet, and returns whether it did.
+     */
+    boolean markRead(String id, String receiver);
+
+    /**
+     * Adds {@code delta} to the unread counter of {@code receiver}, creating it when missing.
+     */
+    void incrementUnread(String receiver, long delta);
+
+    long countUnread(String receiver);
+
+    /**
+     * Deletes the message if {@code username} sent or received it, and returns the deleted message or null.
+     */
+    Message deleteOwned(String id, String username);
+
+    /**
+     * Sets the conversation key of every message stored before the key existed, and returns how many were updated.
+     */
+    int backfillConversationKeys();
+}
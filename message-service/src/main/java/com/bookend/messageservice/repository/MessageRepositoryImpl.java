@@ -0,0 +1,109 @@
+package com.bookend.messageservice.repository;
+
+import com.bookend.messageservice.model.Message;
+import com.bookend.messageservice.model.UnreadCounter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+
+import java.util.Date;
+import java.util.List;
+
+public class MessageRepositoryImpl implements MessageRepositoryCustom {
+    private static final int BULK_SIZE = 1000;
+
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    public void setMongoTemplate(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<Message> findChat(String conversationKey, Date beforeDate, String beforeId, int limit) {
+        return newestFirst(Criteria.where("conversationKey").is(conversationKey), beforeDate, beforeId, limit);
+    }
+
+    @Override
+    public List<Message> findReceived(String receiver, Date beforeDate, String beforeId, int limit) {
+        return newestFirst(Criteria.where("receiver").is(receiver), beforeDate, beforeId, limit);
+    }
+
+    @Override
+    public List<Message> findSent(String sender, Date beforeDate, String beforeId, int limit) {
+        return newestFirst(Criteria.where("sender").is(sender), beforeDate, beforeId, limit);
+    }
+
+    @Override
+    public boolean markRead(String id, String receiver) {
+        Query query = Query.query(Criteria.where("id").is(id).and("receiver").is(receiver).and("read").is(false));
+        return mongoTemplate.updateFirst(query, Update.update("read", true), Message.class).getModifiedCount() > 0;
+    }
+
+    @Override
+    public void incrementUnread(String receiver, long delta) {
+        mongoTemplate.upsert(Query.query(Criteria.where("id").is(receiver)),
+                new Update().inc("count", delta), UnreadCounter.class);
+    }
+
+    @Override
+    public long countUnread(String receiver) {
+        UnreadCounter counter = mongoTemplate.findById(receiver, UnreadCounter.class);
+        return counter == null ? 0 : Math.max(0, counter.getCount());
+    }
+
+    @Override
+    public Message deleteOwned(String id, String username) {
+        Query query = Query.query(Criteria.where("id").is(id)
+                .orOperator(Criteria.where("sender").is(username), Criteria.where("receiver").is(username)));
+        return mongoTemplate.findAndRemove(query, Message.class);
+    }
+
+    private List<Message> newestFirst(Criteria criteria, Date beforeDate, String beforeId, int limit) {
+        if (beforeDate != null && beforeId != null) {
+            criteria.orOperator(
+                    Criteria.where("sendDate").lt(beforeDate),
+                    new Criteria().andOperator(Criteria.where("sendDate").is(beforeDate),
+                            Criteria.where("id").lt(beforeId)));
+        }
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "sendDate").and(Sort.by(Sort.Direction.DESC, "id")))
+                .limit(limit);
+        return mongoTemplate.find(query, Message.class);
+    }
+
+    @Override
+    public int backfillConversationKeys() {
+        Query query = Query.query(Criteria.where("conversationKey").exists(false)
+                .and("sender").ne(null).and("receiver").ne(null));
+        query.fields().include("sender").include("receiver");
+        int updated = 0;
+        BulkOperations operations = null;
+        int pending = 0;
+        try (CloseableIterator<Message> messages = mongoTemplate.stream(query, Message.class)) {
+            while (messages.hasNext()) {
+                Message message = messages.next();
+                if (operations == null) {
+                    operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Message.class);
+                }
+                operations.updateOne(Query.query(Criteria.where("id").is(message.getId())),
+                        Update.update("conversationKey",
+                                Message.conversationKey(message.getSender(), message.getReceiver())));
+                if (++pending == BULK_SIZE) {
+                    updated += operations.execute().getModifiedCount();
+                    operations = null;
+                    pending = 0;
+                }
+            }
+        }
+        if (operations != null) {
+            updated += operations.execute().getModifiedCount();
+        }
+        return updated;
+    }
+}
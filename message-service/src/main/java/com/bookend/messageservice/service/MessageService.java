@@ -4,8 +4,8 @@ import java.util.List;
 
 import com.bookend.messageservice.exception.MandatoryFieldException;
 import com.bookend.messageservice.exception.MessageNotFound;
-import com.bookend.messageservice.exception.UserNotFound;
 import com.bookend.messageservice.model.Message;
+import com.bookend.messageservice.payload.MessagePage;
 import org.springframework.stereotype.Service;
 /**
  * MS-MSC stands for MessageService-MessageServiceClass
@@ -31,9 +31,31 @@ public interface MessageService {
 	/**
 	 * MS-MSC-5 (SM_58)
 	 */
-	 void deleteMessage(Message messageId, String username) throws UserNotFound, MessageNotFound;
+	 void deleteMessage(String messageId, String username) throws MessageNotFound;
 	/**
 	 * MS-MSC-6 (SM_59)
 	 */
 	 List<Message> findChatByUserName(String userName,String userName2) throws MessageNotFound;
+	/**
+	 * MS-MSC-7 (SM_106)
+	 * Newest {@code size} messages between the two users, older than {@code before} when it is given.
+	 */
+	 MessagePage findChat(String userName,String userName2,int size,String before);
+	/**
+	 * MS-MSC-8 (SM_107)
+	 */
+	 MessagePage findInbox(String userName,int size,String before);
+	/**
+	 * MS-MSC-9 (SM_108)
+	 */
+	 MessagePage findSent(String userName,int size,String before);
+	/**
+	 * MS-MSC-10 (SM_109)
+	 */
+	 long countUnread(String userName);
+	/**
+	 * MS-MSC-11 (SM_110)
+	 * Marks the message read when the given user is its receiver.
+	 */
+	 void markRead(Message message,String userName);
 }
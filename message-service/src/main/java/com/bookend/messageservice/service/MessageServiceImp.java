@@ -1,22 +1,28 @@
 package com.bookend.messageservice.service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 
 import com.bookend.messageservice.exception.MandatoryFieldException;
 import com.bookend.messageservice.exception.MessageNotFound;
-import com.bookend.messageservice.exception.UserNotFound;
 import com.bookend.messageservice.model.Message;
+import com.bookend.messageservice.payload.MessagePage;
+import com.bookend.messageservice.push.MessagePushHub;
 import com.bookend.messageservice.repository.MessageRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 @Service
 public class MessageServiceImp implements MessageService{
+	private static final int MAX_PAGE_SIZE = 100;
+	private static final String CURSOR_SEPARATOR = "\n";
 	
 	private MessageRepository messageRepository;
 	@Autowired
@@ -25,8 +31,11 @@ public class MessageServiceImp implements MessageService{
 		this.messageRepository=messageRepository;
 	}
 
-	private List<Message> messagesFromSender;
-	private List<Message> messagesFromReceiver;
+	private MessagePushHub messagePushHub;
+	@Autowired
+	public void setMessagePushHub(MessagePushHub messagePushHub){
+		this.messagePushHub=messagePushHub;
+	}
 
 	@Override
 	public Message getById(String id) throws MessageNotFound {
@@ -76,68 +85,105 @@ public class MessageServiceImp implements MessageService{
 		}
 
 
-		return messageRepository.save(message);
+		boolean sent = message.getId()==null;
+		if(sent){
+			message.setRead(false);
+		}
+		message.setConversationKey(Message.conversationKey(message.getSender(),message.getReceiver()));
+		Message saved = messageRepository.save(message);
+		if(sent){
+			messageRepository.incrementUnread(saved.getReceiver(),1);
+			messagePushHub.publish(saved);
+		}
+		return saved;
 	}
 
+	/**
+	 * Deletes in one indexed round trip and only when the user sent or received the message, so a
+	 * message that does not exist and one that belongs to someone else look the same to the caller.
+	 */
 	@Override
-	public void deleteMessage(Message message, String username) throws UserNotFound, MessageNotFound {
-		this.messagesFromSender = messageRepository.findMessageBySender(username);
-		this.messagesFromReceiver = messageRepository.findMessageByReceiver(username);
-		if((messagesFromSender==null || messagesFromSender.isEmpty()) && (messagesFromReceiver==null || messagesFromReceiver.isEmpty()) ){
-			throw new UserNotFound("User does not found..");
-		}
-		Message msg = messageRepository.findMessageById(message.getId());
-		if(msg == null){
+	public void deleteMessage(String messageId, String username) throws MessageNotFound {
+		Message deleted = messageRepository.deleteOwned(messageId,username);
+		if(deleted == null){
 			throw new MessageNotFound("Message does not found..");
 		}
-		messageRepository.delete(message);
+		if(Boolean.FALSE.equals(deleted.getRead())){
+			messageRepository.incrementUnread(deleted.getReceiver(),-1);
+		}
+	}
+
+
+
+	public List<Message> findChatByUserName(String userName1,String userName2) throws MessageNotFound {
+		return messageRepository.findByConversationKeyOrderBySendDateDesc(Message.conversationKey(userName1,userName2));
 	}
 
-	/*
 	@Override
-	public void deleteMessage(Message message, String username) throws UserNotFound, MessageNotFound {
-		List<Message> messagesFromSender = messageRepository.findMessageBySender(username);
-		List<Message> messagesFromReceiver = messageRepository.findMessageByReceiver(username);
-		if((messagesFromSender!=null && !messagesFromSender.isEmpty()) || (messagesFromReceiver!=null && !messagesFromReceiver.isEmpty()) ){
-			Message msg = messageRepository.findMessageById(message.getId());
-			if(msg == null){
-				throw new MessageNotFound("Message does not found..");
-			}
-			messageRepository.delete(message);
-		}
-		else{
-			throw new UserNotFound("User does not found..");
-		}
-	}*/
+	public MessagePage findChat(String userName1,String userName2,int size,String before) {
+		String conversationKey = Message.conversationKey(userName1,userName2);
+		return page(size,before,(beforeDate,beforeId,limit) -> messageRepository.findChat(conversationKey,beforeDate,beforeId,limit));
+	}
 
+	@Override
+	public MessagePage findInbox(String userName,int size,String before) {
+		return page(size,before,(beforeDate,beforeId,limit) -> messageRepository.findReceived(userName,beforeDate,beforeId,limit));
+	}
 
+	@Override
+	public MessagePage findSent(String userName,int size,String before) {
+		return page(size,before,(beforeDate,beforeId,limit) -> messageRepository.findSent(userName,beforeDate,beforeId,limit));
+	}
 
-	public List<Message> findChatByUserName(String userName1,String userName2) throws MessageNotFound {
-		
-		 List<Message> sent =  this.findMessageBySender(userName1);
-		 List<Message> chat = new ArrayList<Message>();
-		 
-		 for (int i = 0; i < sent.size(); i++) {
-			Message msg = sent.get(i);
-			if (msg.getReceiver().equalsIgnoreCase(userName2)) {
-				
-				chat.add(msg);
-			}
+	@Override
+	public long countUnread(String userName) {
+		return messageRepository.countUnread(userName);
+	}
+
+	@Override
+	public void markRead(Message message,String userName) {
+		if(Boolean.FALSE.equals(message.getRead()) && messageRepository.markRead(message.getId(),userName)){
+			messageRepository.incrementUnread(userName,-1);
+			message.setRead(true);
 		}
-		 
-		List<Message> recieved = this.findMessageBySender(userName2);
-		 for (int i = 0; i < recieved.size(); i++) {
-			Message msg = recieved.get(i);
-			if (msg.getReceiver().equalsIgnoreCase(userName1)) {
-				
-				chat.add(msg);
+	}
+
+	private interface NewestFirst {
+		List<Message> find(Date beforeDate,String beforeId,int limit);
+	}
+
+	/**
+	 * Reads one page newest first. The cursor holds the send date and id of the oldest message of the
+	 * previous page, so the next page starts right below it in the index.
+	 */
+	private MessagePage page(int size,String before,NewestFirst query) {
+		if(size<1){
+			throw new IllegalArgumentException("Size must be positive.");
+		}
+		size = Math.min(size,MAX_PAGE_SIZE);
+		Date beforeDate = null;
+		String beforeId = null;
+		if(before!=null){
+			String key = new String(Base64.getUrlDecoder().decode(before),StandardCharsets.UTF_8);
+			int separator = key.indexOf(CURSOR_SEPARATOR);
+			if(separator<0){
+				throw new IllegalArgumentException("Invalid cursor.");
+			}
+			try {
+				beforeDate = new Date(Long.parseLong(key.substring(0,separator)));
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Invalid cursor.");
 			}
+			beforeId = key.substring(separator+1);
+		}
+		List<Message> messages = query.find(beforeDate,beforeId,size);
+		String nextCursor = null;
+		if(messages.size()==size){
+			Message last = messages.get(messages.size()-1);
+			String key = last.getSendDate().getTime() + CURSOR_SEPARATOR + last.getId();
+			nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
 		}
-		
-		Collections.sort(chat, (o1, o2) -> o1.getSendDate().compareTo(o2.getSendDate()));
-		Collections.reverse(chat);
-		return chat;
-		
+		return new MessagePage(messages,size,nextCursor);
 	}
 
 
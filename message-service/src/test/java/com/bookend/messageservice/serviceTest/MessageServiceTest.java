@@ -2,8 +2,9 @@ package com.bookend.messageservice.serviceTest;
 
 import com.bookend.messageservice.exception.MandatoryFieldException;
 import com.bookend.messageservice.exception.MessageNotFound;
-import com.bookend.messageservice.exception.UserNotFound;
 import com.bookend.messageservice.model.Message;
+import com.bookend.messageservice.payload.MessagePage;
+import com.bookend.messageservice.push.MessagePushHub;
 import com.bookend.messageservice.repository.MessageRepository;
 import com.bookend.messageservice.service.MessageServiceImp;
 import org.junit.Test;
@@ -14,6 +15,7 @@ import org.mockito.junit.MockitoJUnitRunner;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
@@ -22,6 +24,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.BDDMockito.given;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -32,9 +36,7 @@ public class MessageServiceTest {
     @Mock
     private MessageRepository messageRepository;
     @Mock
-    private List<Message> messagesFromSender;
-    @Mock
-    private List<Message> messagesFromReceiver;
+    private MessagePushHub messagePushHub;
     @InjectMocks
     private MessageServiceImp messageService;
     @Test
@@ -154,82 +156,153 @@ public class MessageServiceTest {
     }
 
     @Test
-    public void shouldDeleteMessageSuccessfully() throws UserNotFound, MessageNotFound {
-        List<Message> msgList = new ArrayList<>();
-        List<Message> msgList2 = new ArrayList<>();
+    public void shouldDeleteMessageSuccessfully() throws MessageNotFound {
         Message msg = new Message("ajsdhj23e","huri","didem","hi","how are you",new Date());
-        Message msg2 = new Message("ajsdhj45","didem","huri","hi","how are you",new Date());
-        msgList.add(msg);
-        msgList2.add(msg2);
-        given(messageRepository.findMessageBySender("huri")).willReturn(msgList);
-        given(messageRepository.findMessageByReceiver("huri")).willReturn(msgList2);
-        given(messageRepository.findMessageById(msg.getId())).willReturn(msg);
-        messageService.deleteMessage(msg,"huri");
-        verify(messageRepository,times(1)).delete(msg);
+        given(messageRepository.deleteOwned("ajsdhj23e","huri")).willReturn(msg);
+        messageService.deleteMessage("ajsdhj23e","huri");
+        verify(messageRepository,times(1)).deleteOwned("ajsdhj23e","huri");
+        verify(messageRepository,never()).findMessageBySender(any());
+        verify(messageRepository,never()).findMessageByReceiver(any());
     }
 
     @Test
-    public void failToDeleteMessageIfGivenMessageDoesNotExist() throws UserNotFound, MessageNotFound {
-        Message msg = new Message("huri","didem","hi","how are you",new Date());
-        given(messageRepository.findMessageBySender("huri")).willReturn(null);
-        assertThrows(UserNotFound.class,() -> {
-            messageService.deleteMessage(msg,"huri");
-        });
+    public void shouldDecrementUnreadWhenUnreadMessageIsDeleted() throws MessageNotFound {
+        Message msg = new Message("ajsdhj23e","huri","didem","hi","how are you",new Date());
+        msg.setRead(false);
+        given(messageRepository.deleteOwned("ajsdhj23e","didem")).willReturn(msg);
+        messageService.deleteMessage("ajsdhj23e","didem");
+        verify(messageRepository).incrementUnread("didem",-1);
     }
 
     @Test
-    public void failToDeleteMessageIfGivenMessageDoesNotExistReceiver() throws UserNotFound, MessageNotFound {
-        Message msg = new Message("huri","didem","hi","how are you",new Date());
-        given(messageRepository.findMessageByReceiver("huri")).willReturn(null);
-        assertThrows(UserNotFound.class,() -> {
-            messageService.deleteMessage(msg,"huri");
+    public void failToDeleteMessageIfUserDoesNotOwnIt() {
+        given(messageRepository.deleteOwned("ajsdhj23e","ece")).willReturn(null);
+        assertThrows(MessageNotFound.class,() -> {
+            messageService.deleteMessage("ajsdhj23e","ece");
         });
     }
+
     @Test
-    public void failToDeleteMessageIfMessageDoesNotExist() throws UserNotFound, MessageNotFound {
-        Message msg = new Message("sad","huri","didem","hi","how are you",new Date());
-        Message msg1 = new Message("ajsdhj23e","huri","didem","hi","how are you",new Date());
-        Message msg2 = new Message("ajsdhj45","didem","huri","hi","how are you",new Date());
-        List<Message> msg1List = new ArrayList<>();
-        List<Message> msg2List = new ArrayList<>();
-        msg1List.add(msg1);
-        msg2List.add(msg2);
-        given(messageRepository.findMessageBySender("huri")).willReturn(msg1List);
-        given(messageRepository.findMessageByReceiver("huri")).willReturn(msg2List);
-        given(messageRepository.findMessageById(msg.getId())).willReturn(null);
+    public void failToDeleteMessageIfMessageDoesNotExist() {
+        given(messageRepository.deleteOwned("sad","huri")).willReturn(null);
         assertThrows(MessageNotFound.class,() -> {
-            messageService.deleteMessage(msg,"huri");
+            messageService.deleteMessage("sad","huri");
         });
+        verify(messageRepository,never()).incrementUnread(any(),anyLong());
     }
 
 
     @Test
     public void findChatByUserName() throws MessageNotFound {
-        List<Message> msg1 = new ArrayList<>();
-        msg1.add(new Message("huri","didem","hi","how are you",new Date()));
-        List<Message> msg2 = new ArrayList<>();
-        msg2.add( new Message("didem","huri","hi","Fine",new Date()));
-        List<Message> chat = new ArrayList<>();
-        for(Message msg:msg1){
-            if(msg.getReceiver().equalsIgnoreCase("didem")){
-                chat.add(msg);
-            }
-        }
-        for(Message msg:msg2){
-            if(msg.getReceiver().equalsIgnoreCase("huri")){
-                chat.add(msg);
-            }
-        }
-
-        given(messageRepository.findMessageBySender("huri")).willReturn(msg1);
-        given(messageRepository.findMessageBySender("didem")).willReturn(msg2);
-        final List<Message> expected = messageService.findChatByUserName("huri", "didem");
-        Collections.sort(chat, (o1, o2) -> o1.getSendDate().compareTo(o2.getSendDate()));
-        Collections.reverse(chat);
+        Message sent = new Message("huri","didem","hi","how are you",new Date(1000));
+        Message received = new Message("didem","huri","hi","Fine",new Date(2000));
+        List<Message> chat = Arrays.asList(received,sent);
+        given(messageRepository.findByConversationKeyOrderBySendDateDesc("didem\nhuri")).willReturn(chat);
+        final List<Message> expected = messageService.findChatByUserName("Huri", "didem");
         assertNotNull(expected);
         assertEquals(chat,expected);
+        verify(messageRepository,never()).findMessageBySender(any());
+    }
+
+    @Test
+    public void shouldStoreConversationKeyWhenSaving() throws MandatoryFieldException {
+        Message msg = new Message("huri","Didem","hi","how are you",new Date());
+        given(messageRepository.save(msg)).willReturn(msg);
+        messageService.saveOrUpdate(msg);
+        assertEquals("didem\nhuri",msg.getConversationKey());
+    }
+
+    @Test
+    public void shouldReturnChatPageWithCursorOfOldestMessage() {
+        Message newest = new Message("m2","didem","huri","hi","Fine",new Date(2000));
+        newest.setId("m2");
+        Message older = new Message("m1","huri","didem","hi","how are you",new Date(1000));
+        older.setId("m1");
+        given(messageRepository.findChat("didem\nhuri",null,null,2)).willReturn(Arrays.asList(newest,older));
+        final MessagePage page = messageService.findChat("huri","didem",2,null);
+        assertEquals(Arrays.asList(newest,older),page.getMessages());
+        assertNotNull(page.getNextCursor());
+
+        given(messageRepository.findChat("didem\nhuri",new Date(1000),"m1",2)).willReturn(new ArrayList<>());
+        final MessagePage next = messageService.findChat("huri","didem",2,page.getNextCursor());
+        assertTrue(next.getMessages().isEmpty());
+        assertNull(next.getNextCursor());
+    }
+
+    @Test
+    public void failToGetChatPageIfCursorIsInvalid() {
+        assertThrows(IllegalArgumentException.class,() -> {
+            messageService.findChat("huri","didem",20,"bm90LWEtY3Vyc29y");
+        });
+        verify(messageRepository,never()).findChat(any(),any(),any(),anyInt());
+    }
+
+    @Test
+    public void shouldReturnInboxPageNewestFirst() {
+        Message newest = new Message("huri","didem","hi","Fine",new Date(2000));
+        newest.setId("m2");
+        given(messageRepository.findReceived("didem",null,null,1)).willReturn(Arrays.asList(newest));
+        final MessagePage page = messageService.findInbox("didem",1,null);
+        assertEquals(Arrays.asList(newest),page.getMessages());
+        assertNotNull(page.getNextCursor());
+        verify(messageRepository,never()).findMessageByReceiver(any());
+    }
 
+    @Test
+    public void shouldReturnLastSentPageWithoutCursor() {
+        Message older = new Message("huri","didem","hi","how are you",new Date(1000));
+        given(messageRepository.findSent("huri",null,null,20)).willReturn(Arrays.asList(older));
+        final MessagePage page = messageService.findSent("huri",20,null);
+        assertEquals(Arrays.asList(older),page.getMessages());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    public void shouldCountSentMessageAsUnreadForReceiver() throws MandatoryFieldException {
+        Message msg = new Message("huri","didem","hi","how are you",new Date());
+        msg.setRead(true);
+        given(messageRepository.save(msg)).willReturn(msg);
+        messageService.saveOrUpdate(msg);
+        assertEquals(false,msg.getRead());
+        verify(messageRepository).incrementUnread("didem",1);
+    }
+
+    @Test
+    public void shouldPushSentMessageToReceiver() throws MandatoryFieldException {
+        Message msg = new Message("huri","didem","hi","how are you",new Date());
+        given(messageRepository.save(msg)).willReturn(msg);
+        messageService.saveOrUpdate(msg);
+        verify(messagePushHub).publish(msg);
+    }
 
+    @Test
+    public void shouldNotPushUpdatedMessage() throws MandatoryFieldException {
+        Message msg = new Message("huri","didem","hi","how are you",new Date());
+        msg.setId("m1");
+        given(messageRepository.save(msg)).willReturn(msg);
+        messageService.saveOrUpdate(msg);
+        verify(messagePushHub,never()).publish(any());
+    }
+
+    @Test
+    public void shouldDecrementUnreadOnlyWhenReceiverReadsMessage() {
+        Message msg = new Message("huri","didem","hi","how are you",new Date());
+        msg.setId("m1");
+        msg.setRead(false);
+        given(messageRepository.markRead("m1","huri")).willReturn(false);
+        messageService.markRead(msg,"huri");
+        verify(messageRepository,never()).incrementUnread(any(),anyLong());
+
+        given(messageRepository.markRead("m1","didem")).willReturn(true);
+        messageService.markRead(msg,"didem");
+        assertTrue(msg.getRead());
+        verify(messageRepository).incrementUnread("didem",-1);
+    }
+
+    @Test
+    public void shouldReturnUnreadCount() {
+        given(messageRepository.countUnread("didem")).willReturn(3L);
+        assertEquals(3L,messageService.countUnread("didem"));
     }
 
 }
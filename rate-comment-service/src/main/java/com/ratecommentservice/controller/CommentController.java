@@ -5,6 +5,7 @@ import com.ratecommentservice.exception.CommentNotFound;
 import com.ratecommentservice.model.Book;
 import com.ratecommentservice.model.Comment;
 import com.ratecommentservice.model.Rate;
+import com.ratecommentservice.payload.CommentPage;
 import com.ratecommentservice.payload.CommentRequest;
 import com.ratecommentservice.payload.MessageResponse;
 import com.ratecommentservice.service.BookService;
@@ -52,6 +53,26 @@ public class CommentController {
     public List<Comment> getBookComments(@PathVariable("bookid") String bookId) throws BookNotFound {
         return commentService.getBookComments(bookId);
     }
+    /**
+     * RCS-CC-6 (CM_62)
+     */
+    @ApiOperation(value = "Get a page of book's comments, newest first", response = CommentPage.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully retrieved comment page"),
+            @ApiResponse(code = 400, message = "Size or cursor is not accepted."),
+            @ApiResponse(code = 401, message = "You are not authorized to view the resource")
+    }
+    )
+    @GetMapping(value = "/{bookid}", params = "size")
+    public CommentPage getBookCommentPage(@PathVariable("bookid") String bookId
+            ,@RequestParam int size
+            ,@RequestParam(required = false) String cursor) throws BookNotFound {
+        try {
+            return commentService.getBookComments(bookId,size,cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,e.getMessage());
+        }
+    }
     /**
      * RCS-CC-2 (CM_43)
      */
@@ -66,6 +87,26 @@ public class CommentController {
 
         return commentService.getUserComments(auth.getName());
     }
+    /**
+     * RCS-CC-7 (CM_63)
+     */
+    @ApiOperation(value = "View a page of user's comments, newest first", response = CommentPage.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully retrieved comment page"),
+            @ApiResponse(code = 400, message = "Size or cursor is not accepted."),
+            @ApiResponse(code = 401, message = "You are not authorized to view the resource"),
+    }
+    )
+    @GetMapping(value = "/user", params = "size")
+    public CommentPage getUserCommentPage(OAuth2Authentication auth
+            ,@RequestParam int size
+            ,@RequestParam(required = false) String cursor){
+        try {
+            return commentService.getUserComments(auth.getName(),size,cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,e.getMessage());
+        }
+    }
     /**
      * RCS-CC-3 (CM_44)
      */
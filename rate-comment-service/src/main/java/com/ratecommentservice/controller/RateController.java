@@ -29,6 +29,7 @@ import java.util.stream.Collectors;
 @RestController
 @RequestMapping("/api/rate")
 public class RateController {
+    private static final int MAX_LIMIT = 100;
 
     private RateService rateService;
     @Autowired
@@ -129,9 +130,19 @@ public class RateController {
     /**
      * RCS-RC-5 (CM_52)
      */
+    @ApiOperation(value = "List ids of the best rated books", response = String.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully retrieved list"),
+            @ApiResponse(code = 400, message = "Offset or limit is out of range.")
+    }
+    )
     @GetMapping("/sort/")
-    public List<String> listBookIDs(){
-        return bookService.findAll();
+    public List<String> listBookIDs(@RequestParam(value = "offset", defaultValue = "0") int offset,
+                                    @RequestParam(value = "limit", defaultValue = "20") int limit){
+        if(offset < 0 || limit < 1 || limit > MAX_LIMIT){
+            throw  new ResponseStatusException(HttpStatus.BAD_REQUEST,"Offset must be positive and limit between 1 and "+MAX_LIMIT+".");
+        }
+        return bookService.findTopRated(offset,limit);
     }
 }
 
@@ -0,0 +1,143 @@
+package com.ratecommentservice.index;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Bounded, in-memory prefix of the rate ranking (average rate descending, then book id). It always holds
+ * the true top entries of the ranking: a book is only admitted when it beats the lowest entry held,
+ * and a held book that falls below that entry is dropped, so the prefix may shrink but is never wrong.
+ */
+public class TopRatedIndex {
+    private final int capacity;
+    private final TreeSet<Entry> ranking = new TreeSet<>();
+    private final Map<String, Entry> entries = new HashMap<>();
+    // true while the index holds every rated book, then any book may be admitted
+    private boolean complete;
+    // rate changes made since a reload read its snapshot, null while no reload runs
+    private List<Entry> sinceSnapshot;
+
+    public TopRatedIndex(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Starts recording rate changes, to be called before the snapshot for {@link #load} is read.
+     */
+    public synchronized void beginLoad() {
+        sinceSnapshot = new ArrayList<>();
+    }
+
+    /**
+     * Stops recording rate changes after the snapshot for {@link #load} could not be read.
+     */
+    public synchronized void abortLoad() {
+        sinceSnapshot = null;
+    }
+
+    /**
+     * Replaces the contents with {@code top}, the first rows of the ranking as stored in the database.
+     * Rate changes recorded since {@link #beginLoad} may be missing from that snapshot, so they are
+     * applied again on top of it.
+     */
+    public synchronized void load(List<Entry> top) {
+        ranking.clear();
+        entries.clear();
+        for (Entry entry : top) {
+            if (ranking.size() == capacity) {
+                break;
+            }
+            ranking.add(entry);
+            entries.put(entry.bookId, entry);
+        }
+        complete = top.size() < capacity;
+        List<Entry> changes = sinceSnapshot;
+        sinceSnapshot = null;
+        if (changes != null) {
+            for (Entry change : changes) {
+                update(change.bookId, change.averageRate);
+            }
+        }
+    }
+
+    /**
+     * Moves a book to its new average rate, a null rate removes it from the ranking.
+     */
+    public synchronized void update(String bookId, Double averageRate) {
+        if (sinceSnapshot != null) {
+            sinceSnapshot.add(new Entry(bookId, averageRate));
+        }
+        Entry old = entries.remove(bookId);
+        if (old != null) {
+            ranking.remove(old);
+        }
+        if (averageRate == null) {
+            return;
+        }
+        Entry entry = new Entry(bookId, averageRate);
+        // a held book that moved up still beats every book outside the index
+        boolean admitted = complete
+                || (old != null && entry.compareTo(old) <= 0)
+                || (!ranking.isEmpty() && entry.compareTo(ranking.last()) < 0);
+        if (admitted) {
+            ranking.add(entry);
+            entries.put(bookId, entry);
+            if (ranking.size() > capacity) {
+                entries.remove(ranking.pollLast().bookId);
+                complete = false;
+            }
+        }
+    }
+
+    /**
+     * Book ids from {@code offset} to {@code offset + limit} of the ranking, or null when the index
+     * does not hold that range and the caller has to ask the database.
+     */
+    public synchronized List<String> top(int offset, int limit) {
+        if (!complete && (long) offset + limit > ranking.size()) {
+            return null;
+        }
+        List<String> ids = new ArrayList<>(Math.min(limit, ranking.size()));
+        int position = 0;
+        for (Entry entry : ranking) {
+            if (ids.size() == limit) {
+                break;
+            }
+            if (position++ >= offset) {
+                ids.add(entry.bookId);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * True when so many entries were dropped that the index should be reloaded.
+     */
+    public synchronized boolean isDepleted() {
+        return !complete && ranking.size() < capacity / 2;
+    }
+
+    public synchronized int size() {
+        return ranking.size();
+    }
+
+    public static final class Entry implements Comparable<Entry> {
+        private final String bookId;
+        // null only for a recorded removal, never for an entry in the ranking
+        private final Double averageRate;
+
+        public Entry(String bookId, Double averageRate) {
+            this.bookId = bookId;
+            this.averageRate = averageRate;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byRate = Double.compare(other.averageRate, averageRate);
+            return byRate != 0 ? byRate : bookId.compareTo(other.bookId);
+        }
+    }
+}
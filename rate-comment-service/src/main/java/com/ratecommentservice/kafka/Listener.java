@@ -1,25 +1,19 @@
 package com.ratecommentservice.kafka;
 
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ratecommentservice.exception.PostCommentNotFound;
 import com.ratecommentservice.model.PostComment;
 import com.ratecommentservice.payload.PostCommentRequest;
-import com.ratecommentservice.service.CommentService;
+import com.ratecommentservice.service.BookService;
 import com.ratecommentservice.service.PostCommentService;
-import com.ratecommentservice.service.RateService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
-import java.io.IOException;
-
 @Component
 public class Listener {
 
-    private RateService rateService;
-    private CommentService commentService;
+    private BookService bookService;
     private PostCommentService postCommentService;
     @Autowired
     public void setPostCommentService(PostCommentService postCommentService) {
@@ -27,40 +21,27 @@ public class Listener {
     }
 
     @Autowired
-    public void setCommentService(CommentService commentService) {
-        this.commentService = commentService;
-    }
-    @Autowired
-    public void setRateService(RateService rateService) {
-        this.rateService = rateService;
+    public void setBookService(BookService bookService) {
+        this.bookService = bookService;
     }
 
     @KafkaListener(topics = "deleting-book",
-            groupId ="bookend-rate-commentservice")
-    public void consumeBook(String message) {
-        System.out.println(message);
-        String[] splited = message.split("\"");
-        rateService.deleteRateByBookId(splited[1]);
-        commentService.deleteCommentByBookId(splited[1]);
+            groupId ="bookend-rate-commentservice",
+            concurrency = "${bookend.kafka.concurrency.deleting-book:1}")
+    public void consumeBook(String bookId) {
+        bookService.deleteBook(bookId);
 
 
     }
     @KafkaListener(topics = "comment",
-            groupId ="bookend-rate-commentservice")
-    public void consumeComment(String message) {
-        System.out.println(message);
-        String[] splited = message.split("\"");
-        ObjectMapper mapper = new ObjectMapper();
+            groupId ="bookend-rate-commentservice",
+            concurrency = "${bookend.kafka.concurrency.comment:1}")
+    public void consumeComment(PostCommentRequest commentRequest) {
         try {
-            PostCommentRequest commentRequest = mapper.readValue(message, PostCommentRequest.class);
             PostComment postComment  = new PostComment(commentRequest.getPostID()
                                                     ,commentRequest.getUsername()
                                                     ,commentRequest.getComment());
             postCommentService.commentPost(postComment);
-        } catch (JsonProcessingException e) {
-            e.printStackTrace();
-        } catch (IOException e) {
-            e.printStackTrace();
         } catch (PostCommentNotFound postCommentNotFound) {
             postCommentNotFound.printStackTrace();
         }
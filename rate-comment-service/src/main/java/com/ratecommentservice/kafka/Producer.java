@@ -17,11 +17,11 @@ public class Producer {
 
     public void publishNewComment(KafkaMessage kafkaMessage) {
         LOGGER.info("sending comment='{}' to topic='{}'", kafkaMessage.getMessage(), kafkaMessage.getTopic());
-        kafkaTemplate.send(kafkaMessage.getTopic(), kafkaMessage.getMessage());
+        kafkaTemplate.send(kafkaMessage.getTopic(), kafkaMessage.getKey(), kafkaMessage.getMessage());
     }
     public void publishNewRate(KafkaMessage kafkaMessage) {
         LOGGER.info("sending rate='{}' to topic='{}'", kafkaMessage.getMessage(), kafkaMessage.getTopic());
-        kafkaTemplate.send(kafkaMessage.getTopic(), kafkaMessage.getMessage());
+        kafkaTemplate.send(kafkaMessage.getTopic(), kafkaMessage.getKey(), kafkaMessage.getMessage());
     }
 
 
@@ -1,15 +1,16 @@
 package com.ratecommentservice.model;
 
-import com.fasterxml.jackson.annotation.JsonGetter;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Entity
-@Table(name = "book")
+@Table(name = "book", indexes = {
+        @Index(name = "idx_book_book_id", columnList = "bookId"),
+        @Index(name = "idx_book_average_rate", columnList = "averageRate DESC, bookId")
+})
 public class Book {
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
@@ -23,6 +24,8 @@ public class Book {
             fetch = FetchType.LAZY,mappedBy = "book")
     private List<Rate> rates;
     private Double averageRate;
+    @Embedded
+    private RateStats rateStats;
     @Column
     @JsonIgnore
     @OneToMany(cascade = CascadeType.ALL,mappedBy = "book")
@@ -36,6 +39,7 @@ public class Book {
         this.bookname = bookname;
         this.comments = new ArrayList<>();
         this.rates = new ArrayList<>();
+        this.rateStats = new RateStats();
     }
 
     public Double getAverageRate() {
@@ -84,15 +88,14 @@ public class Book {
     public void setComments(List<Comment> comments) {
         this.comments = comments;
     }
-    public Double calAv(){
-
-        List<Double> rates = this.getRates().stream()
-                .map(p -> p.getRate())
-                .collect(Collectors.toList());
-        if(rates==null){
-            return 0.0;
-        }
-        return rates.stream().mapToDouble(a -> a)
-                .average().getAsDouble();
+    /**
+     * Null for books stored before the running aggregate existed.
+     */
+    public RateStats getRateStats() {
+        return rateStats;
+    }
+
+    public void setRateStats(RateStats rateStats) {
+        this.rateStats = rateStats;
     }
 }
@@ -7,7 +7,10 @@ import javax.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name ="comments")
+@Table(name ="comments", indexes = {
+        @Index(name = "idx_comments_book_date", columnList = "book_id, date, commentId"),
+        @Index(name = "idx_comments_username_date", columnList = "username, date, commentId")
+})
 public class Comment {
 
     @Id
@@ -70,4 +73,8 @@ public class Comment {
     public void setComment(String comment) {
         this.comment = comment;
     }
+
+    public LocalDateTime getDate() {
+        return date;
+    }
 }
@@ -0,0 +1,109 @@
+package com.ratecommentservice.model;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import java.util.Collection;
+
+/**
+ * Running aggregate of a book's rates. Every insert, update and delete of a rate adjusts it in
+ * constant time so the average never has to be recomputed from the rate table.
+ */
+@Embeddable
+public class RateStats {
+    @Column(name = "rateCount")
+    private Long count;
+    @Column(name = "rateSum")
+    private Double sum;
+    @Column(name = "oneStar")
+    private Long oneStar;
+    @Column(name = "twoStar")
+    private Long twoStar;
+    @Column(name = "threeStar")
+    private Long threeStar;
+    @Column(name = "fourStar")
+    private Long fourStar;
+    @Column(name = "fiveStar")
+    private Long fiveStar;
+
+    public RateStats() {
+        this.count = 0L;
+        this.sum = 0.0;
+        this.oneStar = 0L;
+        this.twoStar = 0L;
+        this.threeStar = 0L;
+        this.fourStar = 0L;
+        this.fiveStar = 0L;
+    }
+
+    public static RateStats of(Collection<Double> rates) {
+        RateStats stats = new RateStats();
+        rates.forEach(stats::add);
+        return stats;
+    }
+
+    public void add(double rate) {
+        count++;
+        sum += rate;
+        adjustStar(rate, 1);
+    }
+
+    public void remove(double rate) {
+        if (count == 0) {
+            return;
+        }
+        count--;
+        sum = count == 0 ? 0.0 : sum - rate;
+        adjustStar(rate, -1);
+    }
+
+    public void replace(double oldRate, double newRate) {
+        sum += newRate - oldRate;
+        adjustStar(oldRate, -1);
+        adjustStar(newRate, 1);
+    }
+
+    /**
+     * Average of all rates, or null when the book has not been rated yet.
+     */
+    public Double average() {
+        return count == 0 ? null : sum / count;
+    }
+
+    private void adjustStar(double rate, long delta) {
+        switch ((int) Math.max(1, Math.min(5, Math.round(rate)))) {
+            case 1: oneStar = Math.max(0, oneStar + delta); break;
+            case 2: twoStar = Math.max(0, twoStar + delta); break;
+            case 3: threeStar = Math.max(0, threeStar + delta); break;
+            case 4: fourStar = Math.max(0, fourStar + delta); break;
+            default: fiveStar = Math.max(0, fiveStar + delta); break;
+        }
+    }
+
+    public Long getCount() {
+        return count;
+    }
+
+    public Double getSum() {
+        return sum;
+    }
+
+    public Long getOneStar() {
+        return oneStar;
+    }
+
+    public Long getTwoStar() {
+        return twoStar;
+    }
+
+    public Long getThreeStar() {
+        return threeStar;
+    }
+
+    public Long getFourStar() {
+        return fourStar;
+    }
+
+    public Long getFiveStar() {
+        return fiveStar;
+    }
+}
@@ -0,0 +1,42 @@
+package com.ratecommentservice.payload;
+
+import java.util.List;
+
+public class CommentPage {
+    private List<CommentView> comments;
+    private Integer size;
+    private String nextCursor;
+
+    public CommentPage() {
+    }
+
+    public CommentPage(List<CommentView> comments, Integer size, String nextCursor) {
+        this.comments = comments;
+        this.size = size;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<CommentView> getComments() {
+        return comments;
+    }
+
+    public void setComments(List<CommentView> comments) {
+        this.comments = comments;
+    }
+
+    public Integer getSize() {
+        return size;
+    }
+
+    public void setSize(Integer size) {
+        this.size = size;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,65 @@
+package com.ratecommentservice.payload;
+
+import java.time.LocalDateTime;
+
+/**
+ * A comment as listed in comment feeds, without the commented book entity.
+ */
+public class CommentView {
+    private Long commentId;
+    private String bookId;
+    private String username;
+    private String comment;
+    private LocalDateTime date;
+
+    public CommentView() {
+    }
+
+    public CommentView(Long commentId, String bookId, String username, String comment, LocalDateTime date) {
+        this.commentId = commentId;
+        this.bookId = bookId;
+        this.username = username;
+        this.comment = comment;
+        this.date = date;
+    }
+
+    public Long getCommentId() {
+        return commentId;
+    }
+
+    public void setCommentId(Long commentId) {
+        this.commentId = commentId;
+    }
+
+    public String getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(String bookId) {
+        this.bookId = bookId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getComment() {
+        return comment;
+    }
+
+    public void setComment(String comment) {
+        this.comment = comment;
+    }
+
+    public LocalDateTime getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDateTime date) {
+        this.date = date;
+    }
+}
@@ -0,0 +1,10 @@
+package com.ratecommentservice.payload;
+
+/**
+ * Book id and average rate read straight from the rate ranking index.
+ */
+public interface RatedBook {
+    String getBookId();
+
+    Double getAverageRate();
+}
@@ -1,16 +1,40 @@
 package com.ratecommentservice.repository;
 
 import com.ratecommentservice.model.Book;
-import org.springframework.data.domain.Sort;
-import org.springframework.data.jpa.repository.JpaRepository;
+import com.ratecommentservice.payload.RatedBook;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
 import java.util.List;
 
 @Repository
 public interface BookRepository extends CrudRepository<Book, Long> {
     Book findBookByBookId(String id);
 
+    /**
+     * Loads the book with a row lock so concurrent rates of the same book update its aggregate one
+     * after another. Must be called inside a transaction.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Book b where b.bookId = :bookId")
+    Book findBookByBookIdForUpdate(@Param("bookId") String bookId);
+
     List<Book> findAll();
+
+    @Query(value = "select b.bookId from book b where b.averageRate is not null " +
+            "order by b.averageRate desc, b.bookId limit :limit offset :offset", nativeQuery = true)
+    List<String> findTopRatedBookIds(@Param("offset") int offset, @Param("limit") int limit);
+
+    @Query(value = "select b.bookId as bookId, b.averageRate as averageRate from book b where b.averageRate is not null " +
+            "order by b.averageRate desc, b.bookId limit :limit", nativeQuery = true)
+    List<RatedBook> findTopRated(@Param("limit") int limit);
+
+    @Modifying
+    @Query("delete from Book b where b.id = :id")
+    int deleteBookById(@Param("id") Long id);
 }
@@ -3,9 +3,15 @@ package com.ratecommentservice.repository;
 import com.ratecommentservice.model.Book;
 import com.ratecommentservice.model.Comment;
 
+import com.ratecommentservice.payload.CommentView;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -14,4 +20,28 @@ public interface CommentRepository extends JpaRepository<Comment,Long> {
     List<Comment> findByBook(Book bookId);
     List<Comment> findCommentByUsername(String username);
     Comment findByCommentId(Long commentId);
+
+    @Query("select new com.ratecommentservice.payload.CommentView(c.commentId, c.book.bookId, c.username, c.comment, c.date) " +
+            "from Comment c where c.book = :book order by c.date desc, c.commentId desc")
+    List<CommentView> findBookFeed(@Param("book") Book book, Pageable pageable);
+
+    @Query("select new com.ratecommentservice.payload.CommentView(c.commentId, c.book.bookId, c.username, c.comment, c.date) " +
+            "from Comment c where c.book = :book and (c.date < :date or (c.date = :date and c.commentId < :commentId)) " +
+            "order by c.date desc, c.commentId desc")
+    List<CommentView> findBookFeedBefore(@Param("book") Book book, @Param("date") LocalDateTime date,
+                                         @Param("commentId") Long commentId, Pageable pageable);
+
+    @Query("select new com.ratecommentservice.payload.CommentView(c.commentId, c.book.bookId, c.username, c.comment, c.date) " +
+            "from Comment c where c.username = :username order by c.date desc, c.commentId desc")
+    List<CommentView> findUserFeed(@Param("username") String username, Pageable pageable);
+
+    @Query("select new com.ratecommentservice.payload.CommentView(c.commentId, c.book.bookId, c.username, c.comment, c.date) " +
+            "from Comment c where c.username = :username and (c.date < :date or (c.date = :date and c.commentId < :commentId)) " +
+            "order by c.date desc, c.commentId desc")
+    List<CommentView> findUserFeedBefore(@Param("username") String username, @Param("date") LocalDateTime date,
+                                         @Param("commentId") Long commentId, Pageable pageable);
+
+    @Modifying
+    @Query(value = "delete from comments where book_id = :bookId limit :limit", nativeQuery = true)
+    int deleteChunkByBook(@Param("bookId") Long bookId, @Param("limit") int limit);
 }
@@ -3,6 +3,9 @@ package com.ratecommentservice.repository;
 import com.ratecommentservice.model.Book;
 import com.ratecommentservice.model.Rate;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -13,4 +16,11 @@ public interface RateRepository extends JpaRepository<Rate,Long> {
     Rate findByRateId(Long rateId);
 
     Rate findByBookAndUsername(Book book,String username);
+
+    @Query("select r.rate from Rate r where r.book = :book")
+    List<Double> findRateValuesByBook(@Param("book") Book book);
+
+    @Modifying
+    @Query(value = "delete from rate where book_id = :bookId limit :limit", nativeQuery = true)
+    int deleteChunkByBook(@Param("bookId") Long bookId, @Param("limit") int limit);
 }
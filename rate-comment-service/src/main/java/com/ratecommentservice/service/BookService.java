@@ -19,6 +19,20 @@ public interface BookService {
     Book findBookByBookID( String bookid) throws BookNotFound;
     /**
      * RCS-BSC-3 (SM_62)
+     * Ids of the best rated books, from {@code offset} on and at most {@code limit} of them.
      */
-    List<String> findAll();
+    List<String> findTopRated(int offset, int limit);
+    /**
+     * RCS-BSC-4 (SM_94)
+     */
+    void updateRanking(Book book);
+    /**
+     * RCS-BSC-5 (SM_95)
+     */
+    void refreshRanking();
+    /**
+     * RCS-BSC-6 (SM_98)
+     * Deletes the book with all of its rates and comments.
+     */
+    void deleteBook(String bookId);
 }
@@ -1,26 +1,89 @@
 package com.ratecommentservice.service;
 
 import com.ratecommentservice.exception.BookNotFound;
+import com.ratecommentservice.index.TopRatedIndex;
 import com.ratecommentservice.model.Book;
 import com.ratecommentservice.repository.BookRepository;
+import com.ratecommentservice.repository.CommentRepository;
+import com.ratecommentservice.repository.RateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import org.springframework.data.domain.Sort;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.ArrayList;
-import java.util.Comparator;
+import javax.annotation.PreDestroy;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 @Service
 public class BookServiceImpl implements BookService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BookServiceImpl.class);
+    private static final int DEFAULT_TOP_K = 100;
+    private static final int DEFAULT_DELETE_CHUNK = 1000;
     private BookRepository bookRepository;
+    private RateRepository rateRepository;
+    private CommentRepository commentRepository;
+    private TransactionTemplate transactionTemplate;
+    private int deleteChunk = DEFAULT_DELETE_CHUNK;
+    private int topK = DEFAULT_TOP_K;
+    private volatile TopRatedIndex topRated = new TopRatedIndex(DEFAULT_TOP_K);
+    // a depleted ranking is reloaded in the background, never more than one reload at a time
+    private final ExecutorService background = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "top-rated-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Executor refresher = background;
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+    private final Object refreshes = new Object();
     @Autowired
     public void setBookRepository(BookRepository bookRepository) {
         this.bookRepository = bookRepository;
     }
 
+    @Autowired
+    public void setRateRepository(RateRepository rateRepository) {
+        this.rateRepository = rateRepository;
+    }
+    @Autowired
+    public void setCommentRepository(CommentRepository commentRepository) {
+        this.commentRepository = commentRepository;
+    }
+    @Autowired
+    public void setTransactionTemplate(TransactionTemplate transactionTemplate) {
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Value("${bookend.delete.chunk-size:1000}")
+    public void setDeleteChunk(int deleteChunk) {
+        this.deleteChunk = deleteChunk;
+    }
+
+    @Value("${bookend.rate.top-k:100}")
+    public void setTopK(int topK) {
+        this.topK = topK;
+        this.topRated = new TopRatedIndex(topK);
+    }
+
+    public void setRefresher(Executor refresher) {
+        this.refresher = refresher;
+    }
+
+    @PreDestroy
+    public void stop() {
+        background.shutdownNow();
+    }
+
     @Override
     public Book save(Book book) {
         return bookRepository.save(book);
@@ -37,14 +100,84 @@ public class BookServiceImpl implements BookService {
     }
 
     @Override
-    public List<String> findAll() {
-        List<Book> books=bookRepository.findAll().stream()
-                .sorted(Comparator.comparingDouble(Book::getAverageRate).reversed())
-                .collect(Collectors.toList());
+    public List<String> findTopRated(int offset, int limit) {
+        List<String> bookids = topRated.top(offset,limit);
+        if(bookids == null){
+            bookids = bookRepository.findTopRatedBookIds(offset,limit);
+            if(topRated.isDepleted()){
+                scheduleRefresh();
+            }
+        }
+        return bookids;
+    }
+
+    @Override
+    public void updateRanking(Book book) {
+        topRated.update(book.getBookid(),book.getAverageRate());
+    }
 
-        List<String> bookids = books.stream().map(book -> book.getBookid()).collect(Collectors.toList());
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    public void refreshRanking() {
+        synchronized (refreshes) {
+            TopRatedIndex index = topRated;
+            index.beginLoad();
+            List<TopRatedIndex.Entry> top;
+            try {
+                top = bookRepository.findTopRated(topK).stream()
+                        .map(book -> new TopRatedIndex.Entry(book.getBookId(),book.getAverageRate()))
+                        .collect(Collectors.toList());
+            } catch (RuntimeException e) {
+                index.abortLoad();
+                throw e;
+            }
+            index.load(top);
+        }
+    }
 
-        return bookids ;
+    private void scheduleRefresh() {
+        if(!refreshScheduled.compareAndSet(false,true)){
+            return;
+        }
+        try {
+            refresher.execute(() -> {
+                try {
+                    refreshRanking();
+                } catch (RuntimeException e) {
+                    LOGGER.error("could not reload the top rated books", e);
+                } finally {
+                    refreshScheduled.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshScheduled.set(false);
+        }
+    }
+
+    /**
+     * Rates and comments are removed with set based deletes of at most {@code deleteChunk} rows each,
+     * every chunk in its own short transaction so a heavily reviewed book never holds locks for long.
+     * The book row goes in the same transaction as the last chunk.
+     */
+    @Override
+    public void deleteBook(String bookId) {
+        Book book = bookRepository.findBookByBookId(bookId);
+        if(book == null){
+            return;
+        }
+        Boolean done;
+        do {
+            done = transactionTemplate.execute(status -> {
+                int rates = rateRepository.deleteChunkByBook(book.getId(),deleteChunk);
+                int comments = commentRepository.deleteChunkByBook(book.getId(),deleteChunk);
+                if(rates < deleteChunk && comments < deleteChunk){
+                    bookRepository.deleteBookById(book.getId());
+                    return true;
+                }
+                return false;
+            });
+        } while (!Boolean.TRUE.equals(done));
+        topRated.update(bookId,null);
     }
 
 }
@@ -3,6 +3,7 @@ package com.ratecommentservice.service;
 import com.ratecommentservice.exception.BookNotFound;
 import com.ratecommentservice.exception.CommentNotFound;
 import com.ratecommentservice.model.Comment;
+import com.ratecommentservice.payload.CommentPage;
 import com.ratecommentservice.payload.CommentRequest;
 
 import java.util.List;
@@ -27,12 +28,17 @@ public interface CommentService {
      * RCS-CSC-4 (SM_66)
      */
     void deleteComment(Comment comment);
-    /**
-     * RCS-CSC-5 (SM_67)
-     */
-    void deleteCommentByBookId(String bookId);
     /**
      * RCS-CSC-6 (SM_68)
      */
     Comment findCommentId(Long commentId) throws CommentNotFound;
+    /**
+     * RCS-CSC-7 (SM_96)
+     * Newest comments of a book, continuing after {@code cursor} when it is given.
+     */
+    CommentPage getBookComments(String bookId, int size, String cursor) throws BookNotFound;
+    /**
+     * RCS-CSC-8 (SM_97)
+     */
+    CommentPage getUserComments(String username, int size, String cursor);
 }
@@ -5,13 +5,20 @@ import com.ratecommentservice.exception.CommentNotFound;
 import com.ratecommentservice.kafka.Producer;
 import com.ratecommentservice.model.Book;
 import com.ratecommentservice.model.Comment;
+import com.ratecommentservice.payload.CommentPage;
 import com.ratecommentservice.payload.CommentRequest;
+import com.ratecommentservice.payload.CommentView;
 import com.ratecommentservice.payload.KafkaMessage;
 import com.ratecommentservice.repository.BookRepository;
 import com.ratecommentservice.repository.CommentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -19,6 +26,8 @@ import java.util.Map;
 @Service
 public class CommentServiceImpl implements CommentService {
     private static final String COMMENT_TOPIC = "new-comment";
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final String CURSOR_SEPARATOR = "\n";
     private CommentRepository commentRepository;
     private BookRepository bookRepository;
     private BookService bookService;
@@ -57,6 +66,38 @@ public class CommentServiceImpl implements CommentService {
         return commentRepository.findByBook(book);
     }
 
+    @Override
+    public CommentPage getBookComments(String bookId, int size, String cursor) throws BookNotFound {
+        checkSize(size);
+        Book book = bookRepository.findBookByBookId(bookId);
+        if(book == null){
+            throw new BookNotFound("Book is not found..");
+        }
+        List<CommentView> comments;
+        if(cursor != null){
+            CommentView after = decodeCursor(cursor);
+            comments = commentRepository.findBookFeedBefore(book,after.getDate(),after.getCommentId(),PageRequest.of(0,size));
+        }
+        else {
+            comments = commentRepository.findBookFeed(book,PageRequest.of(0,size));
+        }
+        return page(comments,size);
+    }
+
+    @Override
+    public CommentPage getUserComments(String username, int size, String cursor) {
+        checkSize(size);
+        List<CommentView> comments;
+        if(cursor != null){
+            CommentView after = decodeCursor(cursor);
+            comments = commentRepository.findUserFeedBefore(username,after.getDate(),after.getCommentId(),PageRequest.of(0,size));
+        }
+        else {
+            comments = commentRepository.findUserFeed(username,PageRequest.of(0,size));
+        }
+        return page(comments,size);
+    }
+
     @Override
     public Comment commentBook(CommentRequest commentRequest, String username) {
 
@@ -76,7 +117,7 @@ public class CommentServiceImpl implements CommentService {
         Map<String, String> message= new HashMap<String, String>();
         message.put("book",book.getBookid());
         message.put("comment",comment.getCommentId().toString());
-        KafkaMessage kafkaMessage = new KafkaMessage(COMMENT_TOPIC,message);
+        KafkaMessage kafkaMessage = new KafkaMessage(COMMENT_TOPIC,book.getBookid(),message);
         producer.publishNewRate(kafkaMessage);
         return comment;
     }
@@ -86,14 +127,6 @@ public class CommentServiceImpl implements CommentService {
         commentRepository.delete(comment);
     }
 
-    @Override
-    public void deleteCommentByBookId(String bookId)
-    {
-        Book book = bookRepository.findBookByBookId(bookId);
-        List<Comment> comments = commentRepository.findByBook(book);
-        comments.forEach(comment -> commentRepository.delete(comment));
-    }
-
     @Override
     public Comment findCommentId(Long commentId) throws CommentNotFound {
         Comment comment = commentRepository.findByCommentId(commentId);
@@ -102,4 +135,37 @@ public class CommentServiceImpl implements CommentService {
         }
         return comment;
     }
+
+    private void checkSize(int size){
+        if(size<1 || size>MAX_PAGE_SIZE){
+            throw new IllegalArgumentException("Size must be between 1 and "+MAX_PAGE_SIZE+".");
+        }
+    }
+
+    private CommentPage page(List<CommentView> comments, int size){
+        String nextCursor = comments.size()<size ? null : encodeCursor(comments.get(comments.size()-1));
+        return new CommentPage(comments,size,nextCursor);
+    }
+
+    private String encodeCursor(CommentView last){
+        String key = last.getDate() + CURSOR_SEPARATOR + last.getCommentId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the (date, commentId) position encoded in {@code cursor}.
+     */
+    private CommentView decodeCursor(String cursor){
+        String key = new String(Base64.getUrlDecoder().decode(cursor),StandardCharsets.UTF_8);
+        int separator = key.lastIndexOf(CURSOR_SEPARATOR);
+        if(separator<0){
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+        try {
+            return new CommentView(Long.valueOf(key.substring(separator+1)),null,null,null,
+                    LocalDateTime.parse(key.substring(0,separator)));
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+    }
 }
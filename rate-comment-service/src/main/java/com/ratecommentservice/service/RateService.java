@@ -27,10 +27,6 @@ public interface RateService {
      * RCS-RSC-4 (SM_74)
      */
     void deleteRate(Rate rate);
-    /**
-     * RCS-RSC-5 (SM_75)
-     */
-    void deleteRateByBookId(String bookId);
     /**
      * RCS-RSC-6 (SM_76)
      */
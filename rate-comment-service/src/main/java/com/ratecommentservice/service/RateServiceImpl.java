@@ -5,17 +5,20 @@ import com.ratecommentservice.exception.RateNotFound;
 import com.ratecommentservice.kafka.Producer;
 import com.ratecommentservice.model.Book;
 import com.ratecommentservice.model.Rate;
+import com.ratecommentservice.model.RateStats;
 import com.ratecommentservice.payload.KafkaMessage;
 import com.ratecommentservice.payload.RateRequest;
 import com.ratecommentservice.repository.BookRepository;
 import com.ratecommentservice.repository.RateRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @Service
 public class RateServiceImpl implements RateService {
@@ -23,6 +26,11 @@ public class RateServiceImpl implements RateService {
     private RateRepository rateRepository;
     private BookRepository bookRepository;
     private Producer producer;
+    private BookService bookService;
+    @Autowired
+    public void setBookService(BookService bookService) {
+        this.bookService = bookService;
+    }
     @Autowired
     public void setProducer(Producer producer) {
         this.producer = producer;
@@ -55,46 +63,46 @@ public class RateServiceImpl implements RateService {
     }
 
     @Override
+    @Transactional
     public Rate save(RateRequest rateRequest, String username) {
         Rate rate;
-        Book book = bookRepository.findBookByBookId(rateRequest.getBookId());
+        Book book = bookRepository.findBookByBookIdForUpdate(rateRequest.getBookId());
         if(book==null){
             book = new Book(rateRequest.getBookId(),rateRequest.getBookname());
             bookRepository.save(book);
 
         }
+        RateStats stats = statsOf(book);
         rate = rateRepository.findByBookAndUsername(book,username);
         if(rate == null){
-            rate = rateRepository.save(new Rate(book,username,rateRequest.getRate()));
+            rate = new Rate(book,username,rateRequest.getRate());
+            stats.add(rate.getRate());
         }else{
+            stats.replace(rate.getRate(),rateRequest.getRate());
             rate.setRate(rateRequest.getRate());
         }
-        book.getRates().add(rate);
-        book.setAverageRate(book.calAv());
-        Map<String, String> message= new HashMap<String, String>();
-        message.put("book",book.getBookid());
-        message.put("rate",book.getAverageRate().toString());
-
-        KafkaMessage kafkaMessage = new KafkaMessage(RATE_TOPIC,message);
-        producer.publishNewRate(kafkaMessage);
+        book.setAverageRate(stats.average());
         bookRepository.save(book);
+        Rate saved = rateRepository.save(rate);
+        afterCommit(book);
 
-        return rateRepository.save(rate);
+        return saved;
     }
 
     @Override
+    @Transactional
     public void deleteRate(Rate rate) {
-
+        Book book = bookRepository.findBookByBookIdForUpdate(rate.getBookId().getBookid());
+        if(book != null){
+            RateStats stats = statsOf(book);
+            stats.remove(rate.getRate());
+            book.setAverageRate(stats.average());
+            bookRepository.save(book);
+            afterCommit(book);
+        }
         rateRepository.delete(rate);
     }
 
-    @Override
-    public void deleteRateByBookId(String bookId) {
-        Book book = bookRepository.findBookByBookId(bookId);
-        List<Rate> rates = rateRepository.findByBook(book);
-        rates.forEach(rate -> rateRepository.delete(rate));
-    }
-
     @Override
     public Rate findByRateID(Long rateId) throws RateNotFound {
         Rate rate = rateRepository.findByRateId(rateId);
@@ -117,4 +125,46 @@ public class RateServiceImpl implements RateService {
         return rate;
     }
 
+    /**
+     * Books stored before the running aggregate existed get it built once from their rates.
+     */
+    private RateStats statsOf(Book book) {
+        if(book.getRateStats() == null){
+            book.setRateStats(RateStats.of(rateRepository.findRateValuesByBook(book)));
+        }
+        return book.getRateStats();
+    }
+
+    /**
+     * The ranking and the new-rate event only ever see committed averages, a rolled back change reaches neither.
+     * Without a surrounding transaction they are updated right away.
+     */
+    private void afterCommit(Book book) {
+        if(!TransactionSynchronizationManager.isSynchronizationActive()){
+            announce(book);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                announce(book);
+            }
+        });
+    }
+
+    private void announce(Book book) {
+        bookService.updateRanking(book);
+        publishRate(book);
+    }
+
+    private void publishRate(Book book) {
+        Double averageRate = book.getAverageRate() == null ? 0.0 : book.getAverageRate();
+        Map<String, String> message= new HashMap<String, String>();
+        message.put("book",book.getBookid());
+        message.put("rate",averageRate.toString());
+
+        KafkaMessage kafkaMessage = new KafkaMessage(RATE_TOPIC,book.getBookid(),message);
+        producer.publishNewRate(kafkaMessage);
+    }
+
 }
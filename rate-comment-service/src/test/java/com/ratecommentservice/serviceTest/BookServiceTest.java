@@ -2,7 +2,10 @@ package com.ratecommentservice.serviceTest;
 
 import com.ratecommentservice.exception.BookNotFound;
 import com.ratecommentservice.model.Book;
+import com.ratecommentservice.payload.RatedBook;
 import com.ratecommentservice.repository.BookRepository;
+import com.ratecommentservice.repository.CommentRepository;
+import com.ratecommentservice.repository.RateRepository;
 import com.ratecommentservice.service.BookServiceImpl;
 import org.junit.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -11,8 +14,12 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -22,7 +29,10 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.junit.Assert.assertNotNull;
 @RunWith(MockitoJUnitRunner.class)
@@ -30,6 +40,12 @@ public class BookServiceTest {
 
     @Mock
     private BookRepository bookRepository;
+    @Mock
+    private RateRepository rateRepository;
+    @Mock
+    private CommentRepository commentRepository;
+    @Mock
+    private TransactionTemplate transactionTemplate;
     @InjectMocks
     private BookServiceImpl bookService;
 
@@ -64,23 +80,127 @@ public class BookServiceTest {
     }
 
 
-    //getAverageRate inin null olma durumu kontrol edilmesi gerekiyor testte, rate verilmemiş olabilir çünkü
     @Test
-    public void shouldFindAllBookIds(){
-        List<Book> bookList = new ArrayList<>();
+    public void shouldServeTopRatedBooksFromMemory(){
+        final RatedBook first = ratedBook("5",5.0);
+        final RatedBook second = ratedBook("6",4.0);
+        given(bookRepository.findTopRated(100)).willReturn(Arrays.asList(first,second));
+        bookService.refreshRanking();
+        final List<String> expected = bookService.findTopRated(0,2);
+        assertEquals(Arrays.asList("5","6"),expected);
+        verify(bookRepository,never()).findTopRatedBookIds(anyInt(),anyInt());
+    }
+
+    @Test
+    public void shouldMoveBookInRankingWhenItIsRated(){
+        given(bookRepository.findTopRated(100)).willReturn(new ArrayList<>());
+        bookService.refreshRanking();
         final Book book1 = new Book("5","Yuzbasının Kızı");
-        book1.setAverageRate(5.0);
+        book1.setAverageRate(4.0);
         final Book book2 = new Book("6","Madame Bovary");
-        book2.setAverageRate(4.0);
-        bookList.add(book1);
-        bookList.add(book2);
-        //given(bookRepository.findAll()).willReturn(bookList);
-        given(bookRepository.findAll().stream()
-                .sorted(Comparator.comparingDouble(Book::getAverageRate).reversed())
-                .collect(Collectors.toList())).willReturn(bookList);
-        List<String> bookids = bookList.stream().map(book -> book.getBookid()).collect(Collectors.toList());
-        final List<String> expected = bookService.findAll();
-        assertEquals(bookids,expected);
+        book2.setAverageRate(3.0);
+        bookService.updateRanking(book1);
+        bookService.updateRanking(book2);
+        book2.setAverageRate(4.5);
+        bookService.updateRanking(book2);
+        assertEquals(Arrays.asList("6","5"),bookService.findTopRated(0,20));
+        book2.setAverageRate(null);
+        bookService.updateRanking(book2);
+        assertEquals(Arrays.asList("5"),bookService.findTopRated(0,20));
+    }
+
+    @Test
+    public void shouldAskDatabaseBeyondRankingHeldInMemory(){
+        bookService.setTopK(2);
+        given(bookRepository.findTopRated(2)).willReturn(Arrays.asList(ratedBook("5",5.0),ratedBook("6",4.0)));
+        bookService.refreshRanking();
+        given(bookRepository.findTopRatedBookIds(1,2)).willReturn(Arrays.asList("6","7"));
+        final List<String> expected = bookService.findTopRated(1,2);
+        assertEquals(Arrays.asList("6","7"),expected);
+    }
+
+    @Test
+    public void shouldKeepRatesChangedWhileRankingReloads(){
+        final Book book = new Book("5","Yuzbasının Kızı");
+        book.setAverageRate(1.0);
+        given(bookRepository.findTopRated(100)).willAnswer(invocation -> {
+            // committed after the snapshot below was read
+            bookService.updateRanking(book);
+            return Arrays.asList(ratedBook("5",5.0),ratedBook("6",4.0));
+        });
+        bookService.refreshRanking();
+        assertEquals(Arrays.asList("6","5"),bookService.findTopRated(0,2));
+    }
+
+    @Test
+    public void shouldReloadDepletedRankingOnce(){
+        final List<Runnable> scheduled = new ArrayList<>();
+        bookService.setRefresher(scheduled::add);
+        bookService.setTopK(4);
+        given(bookRepository.findTopRated(4)).willReturn(Arrays.asList(ratedBook("1",5.0),ratedBook("2",4.5),
+                ratedBook("3",4.0),ratedBook("4",3.5)));
+        bookService.refreshRanking();
+        for(String bookId : Arrays.asList("1","2","3")){
+            final Book book = new Book(bookId,"Yuzbasının Kızı");
+            bookService.updateRanking(book);
+        }
+        given(bookRepository.findTopRatedBookIds(0,4)).willReturn(Arrays.asList("4","7"));
+        bookService.findTopRated(0,4);
+        bookService.findTopRated(0,4);
+        assertEquals(1,scheduled.size());
+        verify(bookRepository,times(1)).findTopRated(4);
+        scheduled.get(0).run();
+        verify(bookRepository,times(2)).findTopRated(4);
+    }
+
+    @Test
+    public void shouldDeleteSmallBookInOneTransaction(){
+        final Book book = new Book("5","Yuzbasının Kızı");
+        given(bookRepository.findBookByBookId("5")).willReturn(book);
+        given(transactionTemplate.execute(any())).willAnswer(inTransaction());
+        given(rateRepository.deleteChunkByBook(book.getId(),1000)).willReturn(12);
+        given(commentRepository.deleteChunkByBook(book.getId(),1000)).willReturn(3);
+        bookService.deleteBook("5");
+        verify(transactionTemplate,times(1)).execute(any());
+        verify(bookRepository).deleteBookById(book.getId());
+    }
+
+    @Test
+    public void shouldDeleteLargeBookInChunks(){
+        bookService.setDeleteChunk(10);
+        final Book book = new Book("5","Yuzbasının Kızı");
+        given(bookRepository.findBookByBookId("5")).willReturn(book);
+        given(transactionTemplate.execute(any())).willAnswer(inTransaction());
+        given(rateRepository.deleteChunkByBook(book.getId(),10)).willReturn(10,10,4);
+        given(commentRepository.deleteChunkByBook(book.getId(),10)).willReturn(10,0,0);
+        bookService.deleteBook("5");
+        verify(transactionTemplate,times(3)).execute(any());
+        verify(bookRepository,times(1)).deleteBookById(book.getId());
+    }
+
+    @Test
+    public void shouldIgnoreDeletingUnknownBook(){
+        given(bookRepository.findBookByBookId("5")).willReturn(null);
+        bookService.deleteBook("5");
+        verify(transactionTemplate,never()).execute(any());
+    }
+
+    private Answer<Object> inTransaction(){
+        return invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null);
+    }
+
+    private RatedBook ratedBook(String bookId, Double averageRate){
+        return new RatedBook() {
+            @Override
+            public String getBookId() {
+                return bookId;
+            }
+
+            @Override
+            public Double getAverageRate() {
+                return averageRate;
+            }
+        };
     }
 
 }
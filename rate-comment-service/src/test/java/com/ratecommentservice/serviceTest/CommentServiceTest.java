@@ -5,7 +5,9 @@ import com.ratecommentservice.exception.CommentNotFound;
 import com.ratecommentservice.kafka.Producer;
 import com.ratecommentservice.model.Book;
 import com.ratecommentservice.model.Comment;
+import com.ratecommentservice.payload.CommentPage;
 import com.ratecommentservice.payload.CommentRequest;
+import com.ratecommentservice.payload.CommentView;
 import com.ratecommentservice.repository.BookRepository;
 import com.ratecommentservice.repository.CommentRepository;
 import com.ratecommentservice.service.BookServiceImpl;
@@ -19,14 +21,18 @@ import org.mockito.junit.MockitoJUnitRunner;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.data.domain.PageRequest;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.times;
@@ -109,20 +115,6 @@ public class CommentServiceTest {
         verify(commentRepository,times(1)).delete(any(Comment.class));
     }
 
-    @Test
-    public void shouldDeleteBookCommentsWithGivenBookId()  {
-        List<Comment> comments = new ArrayList<>();
-        final Long id = Long.valueOf(7);
-        final Book book = new Book("5", "Yuzbasının Kızı");
-        final Comment comment = new Comment(id,book, "huri", "Very Good");
-        comments.add(comment);
-        given(bookRepository.findBookByBookId("5")).willReturn(book);
-        given(commentRepository.findByBook(book)).willReturn(comments);
-        //comments.forEach(comm -> commentRepository.delete(comm));
-        commentService.deleteCommentByBookId("5");
-        verify(commentRepository,times(1)).delete(any(Comment.class));
-    }
-
     @MockitoSettings(strictness = Strictness.WARN)
     @Test
     public void shouldSaveGivenBookAndCommentSuccessfully() throws BookNotFound {
@@ -141,5 +133,52 @@ public class CommentServiceTest {
         verify(producer).publishNewRate(any());//New line added.
     }
 
+    @Test
+    public void shouldReturnFirstPageOfBookCommentsWithCursor() throws BookNotFound {
+        final Book book = new Book("5", "Yuzbasının Kızı");
+        final LocalDateTime date = LocalDateTime.of(2020,12,1,10,30);
+        final CommentView first = new CommentView(9L,"5","huri","Very Good",date.plusMinutes(1));
+        final CommentView second = new CommentView(8L,"5","ali","Good",date);
+        given(bookRepository.findBookByBookId("5")).willReturn(book);
+        given(commentRepository.findBookFeed(book,PageRequest.of(0,2))).willReturn(Arrays.asList(first,second));
+        final CommentPage page = commentService.getBookComments("5",2,null);
+        assertEquals(Arrays.asList(first,second),page.getComments());
+        assertNotNull(page.getNextCursor());
+
+        given(commentRepository.findBookFeedBefore(book,date,8L,PageRequest.of(0,2))).willReturn(new ArrayList<>());
+        final CommentPage next = commentService.getBookComments("5",2,page.getNextCursor());
+        assertEquals(0,next.getComments().size());
+        assertNull(next.getNextCursor());
+    }
+
+    @Test
+    public void failToGetBookCommentPageIfBookIdDoesNotMatch() {
+        given(bookRepository.findBookByBookId("5")).willReturn(null);
+        assertThrows(BookNotFound.class,()->{
+            commentService.getBookComments("5",10,null);
+        });
+    }
+
+    @Test
+    public void shouldContinueUserCommentsAfterCursor() {
+        final LocalDateTime date = LocalDateTime.of(2020,12,1,10,30);
+        final CommentView last = new CommentView(8L,"5","huri","Good",date);
+        given(commentRepository.findUserFeed("huri",PageRequest.of(0,1))).willReturn(Arrays.asList(last));
+        final CommentPage page = commentService.getUserComments("huri",1,null);
+        final CommentView older = new CommentView(3L,"6","huri","Not bad",date.minusDays(1));
+        given(commentRepository.findUserFeedBefore("huri",date,8L,PageRequest.of(0,1))).willReturn(Arrays.asList(older));
+        final CommentPage next = commentService.getUserComments("huri",1,page.getNextCursor());
+        assertEquals(Arrays.asList(older),next.getComments());
+    }
+
+    @Test
+    public void failToGetCommentPageWithInvalidCursorOrSize() {
+        assertThrows(IllegalArgumentException.class,()->{
+            commentService.getUserComments("huri",0,null);
+        });
+        assertThrows(IllegalArgumentException.class,()->{
+            commentService.getUserComments("huri",10,"bm90LWEtY3Vyc29y");
+        });
+    }
 
 }
@@ -13,6 +13,7 @@ import com.ratecommentservice.payload.KafkaMessage;
 import com.ratecommentservice.payload.RateRequest;
 import com.ratecommentservice.repository.BookRepository;
 import com.ratecommentservice.repository.RateRepository;
+import com.ratecommentservice.service.BookService;
 import com.ratecommentservice.service.BookServiceImpl;
 import com.ratecommentservice.service.RateServiceImpl;
 import org.junit.Test;
@@ -24,6 +25,8 @@ import org.mockito.junit.MockitoJUnitRunner;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.*;
 
@@ -46,6 +49,8 @@ public class RateServiceTest {
     @Mock
     private Producer producer;
     @Mock
+    private BookService bookService;
+    @Mock
     private Book bookMock;
 
     private static final String RATE_TOPIC = "new-rate";
@@ -140,41 +145,111 @@ public class RateServiceTest {
         verify(rateRepository,times(1)).delete(any(Rate.class));
     }
 
-    @Test
-    public void shouldDeleteRatesWithGivenBookId()  {
-        List<Rate> rates = new ArrayList<>();
-        final Long rateId = Long.valueOf(7);
-        final Book book = new Book("5", "Yuzbasının Kızı");
-        final Rate rate = new Rate(rateId,book,"huri",3.0 );
-        rates.add(rate);
-        given(bookRepository.findBookByBookId("5")).willReturn(book);
-        given(rateRepository.findByBook(book)).willReturn(rates);
-        //rates.forEach(ra -> rateRepository.delete(ra));
-        rateService.deleteRateByBookId("5");
-        verify(rateRepository,times(1)).delete(any(Rate.class));
-    }
-
     @Test
     public void shouldSaveGivenRateSuccessfully() throws BookNotFound, RateNotFound {
         String id = "5";
         final Long rateId = Long.valueOf(7);
         final Book book = new Book(id, "Yuzbasının Kızı");
+        book.getRateStats().add(3.0);
         final Rate rate = new Rate(rateId,book,"huri",3.0 );
-        final RateRequest rateRequest = new RateRequest(3.0, id, "Yuzbasının Kızı");
-        given(bookRepository.findBookByBookId(rateRequest.getBookId())).willReturn(book);
+        final RateRequest rateRequest = new RateRequest(5.0, id, "Yuzbasının Kızı");
+        given(bookRepository.findBookByBookIdForUpdate(rateRequest.getBookId())).willReturn(book);
         given(rateRepository.findByBookAndUsername(book,"huri")).willReturn(rate);
-        rate.setRate(rateRequest.getRate());
-        book.getRates().add(rate);
-        book.setAverageRate(book.calAv());
-        when(bookRepository.save(any(Book.class))).thenReturn(book);
         when(rateRepository.save(any(Rate.class))).thenReturn(rate);
         final Rate saved = rateService.save(rateRequest, "huri");
         assertNotNull(saved);
+        assertEquals(Double.valueOf(5.0),saved.getRate());
+        assertEquals(Long.valueOf(1),book.getRateStats().getCount());
+        assertEquals(Double.valueOf(5.0),book.getAverageRate());
+        assertEquals(Long.valueOf(0),book.getRateStats().getThreeStar());
+        assertEquals(Long.valueOf(1),book.getRateStats().getFiveStar());
         verify(rateRepository).save(any(Rate.class));
         verify(producer).publishNewRate(any()); // New Line added
     }
 
+    @Test
+    public void shouldAddNewRateToRunningAggregate() {
+        final String id = "5";
+        final Book book = new Book(id, "Yuzbasının Kızı");
+        book.getRateStats().add(2.0);
+        book.getRateStats().add(4.0);
+        final RateRequest rateRequest = new RateRequest(5.0, id, "Yuzbasının Kızı");
+        given(bookRepository.findBookByBookIdForUpdate(id)).willReturn(book);
+        given(rateRepository.findByBookAndUsername(book,"huri")).willReturn(null);
+        rateService.save(rateRequest, "huri");
+        assertEquals(Long.valueOf(3),book.getRateStats().getCount());
+        assertEquals(Double.valueOf(11.0/3),book.getAverageRate());
+        verify(rateRepository,never()).findRateValuesByBook(any(Book.class));
+    }
+
+    @Test
+    public void shouldBuildAggregateOnceForBookWithoutIt() {
+        final String id = "5";
+        final Book book = new Book(id, "Yuzbasının Kızı");
+        book.setRateStats(null);
+        final RateRequest rateRequest = new RateRequest(1.0, id, "Yuzbasının Kızı");
+        given(bookRepository.findBookByBookIdForUpdate(id)).willReturn(book);
+        given(rateRepository.findRateValuesByBook(book)).willReturn(Arrays.asList(4.0,5.0));
+        given(rateRepository.findByBookAndUsername(book,"huri")).willReturn(null);
+        rateService.save(rateRequest, "huri");
+        assertEquals(Long.valueOf(3),book.getRateStats().getCount());
+        assertEquals(Double.valueOf(10.0/3),book.getAverageRate());
+    }
+
+    @Test
+    public void shouldRemoveDeletedRateFromAggregate() {
+        final Book book = new Book("5", "Yuzbasının Kızı");
+        book.getRateStats().add(2.0);
+        book.getRateStats().add(4.0);
+        final Rate rate = new Rate(Long.valueOf(7),book,"huri",4.0 );
+        given(bookRepository.findBookByBookIdForUpdate("5")).willReturn(book);
+        rateService.deleteRate(rate);
+        assertEquals(Long.valueOf(1),book.getRateStats().getCount());
+        assertEquals(Double.valueOf(2.0),book.getAverageRate());
+        verify(rateRepository).delete(rate);
+        verify(producer).publishNewRate(any());
+    }
+
+
+
+    @Test
+    public void shouldUpdateRankingAndPublishRateOnlyAfterCommit() {
+        final String id = "5";
+        final Book book = new Book(id, "Yuzbasının Kızı");
+        final RateRequest rateRequest = new RateRequest(4.0, id, "Yuzbasının Kızı");
+        given(bookRepository.findBookByBookIdForUpdate(id)).willReturn(book);
+        given(rateRepository.findByBookAndUsername(book,"huri")).willReturn(null);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            rateService.save(rateRequest, "huri");
+            verify(bookService,never()).updateRanking(any(Book.class));
+            verify(producer,never()).publishNewRate(any());
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verify(bookService).updateRanking(book);
+        verify(producer).publishNewRate(any());
+    }
 
+    @Test
+    public void shouldNotUpdateRankingWhenRateIsRolledBack() {
+        final String id = "5";
+        final Book book = new Book(id, "Yuzbasının Kızı");
+        final RateRequest rateRequest = new RateRequest(4.0, id, "Yuzbasının Kızı");
+        given(bookRepository.findBookByBookIdForUpdate(id)).willReturn(book);
+        given(rateRepository.findByBookAndUsername(book,"huri")).willReturn(null);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            rateService.save(rateRequest, "huri");
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verify(bookService,never()).updateRanking(any(Book.class));
+        verify(producer,never()).publishNewRate(any());
+    }
 
     @MockitoSettings(strictness = Strictness.WARN)
     @Test
@@ -183,20 +258,17 @@ public class RateServiceTest {
         final String username = "huri";
         final Long rateId = Long.valueOf(7);
 
-        Book book = new Book();
         final RateRequest rateRequest = new RateRequest(3.0, id, "Yuzbasının Kızı");
-        given(bookRepository.findBookByBookId(rateRequest.getBookId())).willReturn(null);
-        book = new Book(rateRequest.getBookId(),rateRequest.getBookname());
+        given(bookRepository.findBookByBookIdForUpdate(rateRequest.getBookId())).willReturn(null);
+        Book book = new Book(rateRequest.getBookId(),rateRequest.getBookname());
         Rate rate = new Rate(rateId,book,username,rateRequest.getRate());
-        book.setRates(new ArrayList(Arrays.asList(rate)));
 
-        given(bookRepository.save(any(Book.class))).willReturn(book);
-        given(rateRepository.findByBookAndUsername(book,username)).willReturn(null);
         given(rateRepository.save(any(Rate.class))).willReturn(rate);
 
 
         final Rate saved = rateService.save(rateRequest, username);
         assertNotNull(saved);
-        verify(rateRepository,times(2)).save(any(Rate.class));
+        verify(rateRepository,times(1)).save(any(Rate.class));
+        verify(bookRepository,times(2)).save(any(Book.class));
     }
 }
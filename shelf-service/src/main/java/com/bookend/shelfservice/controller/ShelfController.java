@@ -6,6 +6,8 @@ import com.bookend.shelfservice.model.Shelf;
 import com.bookend.shelfservice.model.Tag;
 import com.bookend.shelfservice.payload.BookRequest;
 import com.bookend.shelfservice.payload.ShelfRequest;
+import com.bookend.shelfservice.payload.ShelfSummary;
+import com.bookend.shelfservice.payload.ShelfsBookPage;
 import com.bookend.shelfservice.service.BookService;
 import com.bookend.shelfservice.service.ShelfService;
 import com.bookend.shelfservice.service.TagService;
@@ -111,6 +113,28 @@ public class ShelfController {
         }
 
     }
+    /**
+     * SS-SC-9 (CM_64)
+     */
+    @ApiOperation(value = "Get a page of books in the shelf", response = ShelfsBookPage.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully retrieved page"),
+            @ApiResponse(code = 400, message = "Size or cursor is not accepted."),
+            @ApiResponse(code = 401, message = "You are not authorized to view the resource")
+    }
+    )
+    @GetMapping(value = "/{shelfid}", params = "size")
+    public ShelfsBookPage getBookPage(@PathVariable("shelfid")  String shelfID
+            ,@RequestParam int size
+            ,@RequestParam(required = false) String cursor) {
+        try {
+            return shelfService.getBooks(Long.valueOf(shelfID),size,cursor);
+        } catch (ShelfNotFound shelfNotFound) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,shelfNotFound.getMessage());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,e.getMessage());
+        }
+    }
     /**
      * SS-SC-4 (CM_56)
      */
@@ -141,6 +165,34 @@ public class ShelfController {
 
         return shelfService.findShelvesByUsername(auth.getName());
     }
+    /**
+     * SS-SC-10 (CM_65)
+     */
+    @ApiOperation(value = "Get summaries of user's shelves", response = ShelfSummary.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully retrieved list"),
+            @ApiResponse(code = 401, message = "You are not authorized to view the resource")
+    }
+    )
+    @GetMapping("/summary/user/{username}")
+    public List<ShelfSummary> getShelfSummaries(@PathVariable("username") String username){
+
+        return shelfService.getShelfSummaries(username);
+    }
+    /**
+     * SS-SC-11 (CM_66)
+     */
+    @ApiOperation(value = "Get summaries of current user's shelves", response = ShelfSummary.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully retrieved list"),
+            @ApiResponse(code = 401, message = "You are not authorized to view the resource")
+    }
+    )
+    @GetMapping("/summary/user")
+    public List<ShelfSummary> getUserShelfSummaries(OAuth2Authentication auth){
+
+        return shelfService.getShelfSummaries(auth.getName());
+    }
     /**
      * SS-SC-6 (CM_58)
      */
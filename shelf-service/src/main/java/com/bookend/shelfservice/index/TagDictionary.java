@@ -0,0 +1,110 @@
+package com.bookend.shelfservice.index;
+
+import com.bookend.shelfservice.model.Tag;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Versioned near-cache of the tag dictionary. Readers share an immutable {@link Snapshot} without
+ * locking or copying, and every change publishes a new snapshot under the next version, so a full load
+ * that raced with a change is never installed over it.
+ */
+public class TagDictionary {
+    private final AtomicReference<Snapshot> current = new AtomicReference<>(Snapshot.UNLOADED);
+
+    public Snapshot snapshot() {
+        return current.get();
+    }
+
+    /**
+     * Installs {@code tags}, read from the database while {@code seen} was current. When a change
+     * was published in the meantime the load is only handed back to the caller, not installed.
+     */
+    public Snapshot load(Snapshot seen, Collection<Tag> tags) {
+        Snapshot loaded = new Snapshot(seen.version + 1, true, new ArrayList<>(tags));
+        if (current.compareAndSet(seen, loaded)) {
+            return loaded;
+        }
+        Snapshot now = current.get();
+        return now.loaded ? now : loaded;
+    }
+
+    /**
+     * Adds a tag or renames the one with the same id, and returns the tag that is held.
+     */
+    public Tag put(String id, String name) {
+        Tag tag = new Tag(id, name);
+        current.updateAndGet(snapshot -> snapshot.with(tag));
+        return tag;
+    }
+
+    // tag names are compared in lower case, the same way MySQL compares them
+    private static String key(String name) {
+        return name == null ? "" : name.toLowerCase();
+    }
+
+    public static final class Snapshot {
+        private static final Snapshot UNLOADED = new Snapshot(0, false, Collections.emptyList());
+
+        private final long version;
+        private final boolean loaded;
+        private final List<Tag> tags;
+        private final Map<String, Tag> byId;
+        private final Map<String, Tag> byName;
+
+        private Snapshot(long version, boolean loaded, List<Tag> tags) {
+            this.version = version;
+            this.loaded = loaded;
+            Map<String, Tag> byId = new HashMap<>();
+            Map<String, Tag> byName = new HashMap<>();
+            for (Tag tag : tags) {
+                byId.put(tag.getId(), tag);
+                byName.put(key(tag.getTag()), tag);
+            }
+            this.tags = Collections.unmodifiableList(tags);
+            this.byId = byId;
+            this.byName = byName;
+        }
+
+        private Snapshot with(Tag tag) {
+            // an unloaded snapshot only moves its version on, which fails any load still in flight
+            if (!loaded) {
+                return new Snapshot(version + 1, false, Collections.emptyList());
+            }
+            List<Tag> tags = new ArrayList<>(this.tags.size() + 1);
+            for (Tag held : this.tags) {
+                if (!held.getId().equals(tag.getId())) {
+                    tags.add(held);
+                }
+            }
+            tags.add(tag);
+            return new Snapshot(version + 1, true, tags);
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public boolean isLoaded() {
+            return loaded;
+        }
+
+        public List<Tag> getTags() {
+            return tags;
+        }
+
+        public Tag byId(String id) {
+            return byId.get(id);
+        }
+
+        public Tag byName(String name) {
+            return byName.get(key(name));
+        }
+    }
+}
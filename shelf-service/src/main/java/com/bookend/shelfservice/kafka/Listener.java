@@ -1,21 +1,14 @@
 package com.bookend.shelfservice.kafka;
 
 import com.bookend.shelfservice.exception.AlreadyExists;
-import com.bookend.shelfservice.exception.NotFoundException;
-import com.bookend.shelfservice.exception.TagNotFound;
-import com.bookend.shelfservice.model.Tag;
 import com.bookend.shelfservice.payload.GenreMessage;
 import com.bookend.shelfservice.service.BookService;
 import com.bookend.shelfservice.service.ShelfService;
 import com.bookend.shelfservice.service.TagService;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
-import java.io.IOException;
-
 @Component
 public class Listener {
 
@@ -39,28 +32,21 @@ public class Listener {
         this.bookService=bookService;
     }
     @KafkaListener(topics = "deleting-book",
-            groupId ="bookend-shelfservice")
-    public void consumeBook(String message) throws NotFoundException {
-        System.out.println(message);
-        String[] splited = message.split("\"");
-        bookService.deleteFromShelves(splited[1]);
+            groupId ="bookend-shelfservice",
+            concurrency = "${bookend.kafka.concurrency.deleting-book:1}")
+    public void consumeBook(String bookId) {
+        bookService.deleteFromShelves(bookId);
 
 
     }
     @KafkaListener(topics = "adding-genre",
-            groupId ="bookend-shelfservice")
-    public void consumeGenre(String message) {
-        System.out.println(message);
-        ObjectMapper mapper = new ObjectMapper();
+            groupId ="bookend-shelfservice",
+            concurrency = "${bookend.kafka.concurrency.adding-genre:1}")
+    public void consumeGenre(GenreMessage newGenre) {
         try {
-            GenreMessage newGenre = mapper.readValue(message, GenreMessage.class);
             tagService.save(newGenre);
 
 
-        } catch (JsonProcessingException e) {
-            e.printStackTrace();
-        } catch (IOException e) {
-            e.printStackTrace();
         } catch (AlreadyExists alreadyExists) {
             alreadyExists.printStackTrace();
         }
@@ -68,6 +54,16 @@ public class Listener {
 
     }
 
+    /**
+     * The listener above stores the tag once per group, this one runs in a group of its own on every
+     * instance so each tag near-cache sees the change.
+     */
+    @KafkaListener(topics = "adding-genre",
+            groupId ="bookend-shelfservice-tags-${random.uuid}")
+    public void refreshTag(GenreMessage genre) {
+        tagService.refresh(genre);
+    }
+
 
 
 }
@@ -9,7 +9,9 @@ import java.util.List;
 
 
 @Entity
-@Table(name= "shelf")
+// MySQL's default collation compares case-insensitively, so "Read" and "read" collide
+@Table(name= "shelf", uniqueConstraints =
+        @UniqueConstraint(name = "uk_shelf_username_shelfname", columnNames = {"username", "shelfname"}))
 public class Shelf {
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
@@ -6,7 +6,12 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import javax.persistence.*;
 
 @Entity
-@Table(name = "book")
+@Table(name = "book", uniqueConstraints =
+        @UniqueConstraint(name = "uk_book_shelf_book", columnNames = {"shelf_shelfId", "bookId"}),
+        indexes = {
+                @Index(name = "idx_book_shelf_id", columnList = "shelf_shelfId, id"),
+                @Index(name = "idx_book_book_id", columnList = "bookId")
+        })
 public class ShelfsBook {
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
@@ -18,6 +23,7 @@ public class ShelfsBook {
     private String bookName;
     @JsonIgnore
     @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "shelf_shelfId")
     private Shelf shelf;
 
     public String getBookID() {
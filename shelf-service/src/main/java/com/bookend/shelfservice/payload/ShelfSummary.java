@@ -0,0 +1,66 @@
+package com.bookend.shelfservice.payload;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A shelf with its tag names and the number of books on it, without the books themselves.
+ */
+public class ShelfSummary {
+    private Long id;
+    private String shelfname;
+    private String username;
+    private List<String> tags;
+    private Long bookCount;
+
+    public ShelfSummary() {
+    }
+
+    public ShelfSummary(Long id, String shelfname, String username, Long bookCount) {
+        this.id = id;
+        this.shelfname = shelfname;
+        this.username = username;
+        this.tags = new ArrayList<>();
+        this.bookCount = bookCount;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getShelfname() {
+        return shelfname;
+    }
+
+    public void setShelfname(String shelfname) {
+        this.shelfname = shelfname;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public void setTags(List<String> tags) {
+        this.tags = tags;
+    }
+
+    public Long getBookCount() {
+        return bookCount;
+    }
+
+    public void setBookCount(Long bookCount) {
+        this.bookCount = bookCount;
+    }
+}
@@ -0,0 +1,44 @@
+package com.bookend.shelfservice.payload;
+
+import com.bookend.shelfservice.model.ShelfsBook;
+
+import java.util.List;
+
+public class ShelfsBookPage {
+    private List<ShelfsBook> books;
+    private Integer size;
+    private String nextCursor;
+
+    public ShelfsBookPage() {
+    }
+
+    public ShelfsBookPage(List<ShelfsBook> books, Integer size, String nextCursor) {
+        this.books = books;
+        this.size = size;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<ShelfsBook> getBooks() {
+        return books;
+    }
+
+    public void setBooks(List<ShelfsBook> books) {
+        this.books = books;
+    }
+
+    public Integer getSize() {
+        return size;
+    }
+
+    public void setSize(Integer size) {
+        this.size = size;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
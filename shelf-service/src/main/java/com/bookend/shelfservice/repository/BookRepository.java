@@ -2,8 +2,13 @@ package com.bookend.shelfservice.repository;
 
 import com.bookend.shelfservice.model.Shelf;
 import com.bookend.shelfservice.model.ShelfsBook;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -13,5 +18,13 @@ public interface BookRepository  extends JpaRepository<ShelfsBook,Long> {
     List<ShelfsBook> findShelfsBookByBookID(String id);
     ShelfsBook findByBookIDAndShelf( String bookid,Shelf shelf);
     List<ShelfsBook> findShelfsBookByShelf(Shelf shelf);
+    boolean existsByShelfAndBookID(Shelf shelf, String bookid);
+    List<ShelfsBook> findByShelf_IdOrderByIdAsc(Long shelfId, Pageable pageable);
+    List<ShelfsBook> findByShelf_IdAndIdGreaterThanOrderByIdAsc(Long shelfId, Long afterId, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ShelfsBook b where b.bookID = :bookId")
+    int deleteByBookID(@Param("bookId") String bookId);
 
 }
@@ -1,7 +1,10 @@
 package com.bookend.shelfservice.repository;
 
 import com.bookend.shelfservice.model.Shelf;
+import com.bookend.shelfservice.payload.ShelfSummary;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,6 +15,17 @@ public interface ShelfRepository extends JpaRepository<Shelf, Long> {
     Shelf findShelfById(Long id);
     List<Shelf> findShelvesByUsername(String username);
 
+    @Query("select new com.bookend.shelfservice.payload.ShelfSummary(s.id, s.shelfname, s.username, count(b.id)) " +
+            "from Shelf s left join s.shelfsBooks b where s.username = :username " +
+            "group by s.id, s.shelfname, s.username order by s.id")
+    List<ShelfSummary> findSummariesByUsername(@Param("username") String username);
+
+    /**
+     * Pairs of shelf id and tag name for every tagged shelf of the user.
+     */
+    @Query("select s.id, t.tag from Shelf s join s.tags t where s.username = :username")
+    List<Object[]> findTagNamesByUsername(@Param("username") String username);
+
 
 
 }
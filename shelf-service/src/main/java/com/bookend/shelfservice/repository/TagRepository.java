@@ -4,8 +4,12 @@ import com.bookend.shelfservice.model.Tag;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface TagRepository extends JpaRepository<Tag, String> {
     Tag findByTag(String tag);
     Tag findTagById(String id);
+    List<Tag> findByTagIn(Collection<String> tags);
 }
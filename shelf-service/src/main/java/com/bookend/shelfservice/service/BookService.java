@@ -25,7 +25,8 @@ public interface BookService {
     void delete(String bookId,String shelfID) throws NotFoundException;
     /**
      * SS-BSC-4 (SM_81)
+     * Removes the book from every shelf and returns how many shelves held it.
      */
-    void deleteFromShelves(String bookid) throws NotFoundException;
+    int deleteFromShelves(String bookid);
 
 }
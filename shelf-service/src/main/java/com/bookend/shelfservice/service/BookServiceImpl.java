@@ -8,15 +8,23 @@ import com.bookend.shelfservice.model.ShelfsBook;
 import com.bookend.shelfservice.payload.BookRequest;
 import com.bookend.shelfservice.repository.BookRepository;
 import com.bookend.shelfservice.repository.ShelfRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 
 @Service
 public class BookServiceImpl implements BookService {
+    private static final String REMOVED_METRIC = "shelfservice.book.removed.from.shelves";
     private BookRepository bookRepository;
     private ShelfRepository shelfRepository;
+    private MeterRegistry meterRegistry;
+    @Autowired
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
     @Autowired
     public void setShelfRepository(ShelfRepository shelfRepository) {
         this.shelfRepository = shelfRepository;
@@ -38,12 +46,15 @@ public class BookServiceImpl implements BookService {
 
     @Override
     public ShelfsBook saveOrUpdate(BookRequest book, Shelf shelf) throws AlreadyExists {
-        ShelfsBook shelfsBook = new ShelfsBook(book.getBookid(),book.getBookName(),shelf);
-        List<ShelfsBook> books = bookRepository.findShelfsBookByShelf(shelfsBook.getShelf());
-        if(books.stream().anyMatch(b -> b.getBookID().matches(shelfsBook.getBookID()))){
+        if(bookRepository.existsByShelfAndBookID(shelf,book.getBookid())){
+            throw new AlreadyExists("The book is already added this shelf");
+        }
+        try {
+            return bookRepository.save(new ShelfsBook(book.getBookid(),book.getBookName(),shelf));
+        } catch (DataIntegrityViolationException e) {
+            // lost a race with a concurrent add of the same book, the unique key on (shelf, bookId) caught it
             throw new AlreadyExists("The book is already added this shelf");
         }
-        return bookRepository.save(shelfsBook);
     }
 
     @Override
@@ -61,12 +72,10 @@ public class BookServiceImpl implements BookService {
     }
 
     @Override
-    public void deleteFromShelves(String bookid) throws NotFoundException {
-        List<ShelfsBook> shelfsBooks = bookRepository.findShelfsBookByBookID(bookid);
-        if(shelfsBooks == null || shelfsBooks.isEmpty()){
-            throw new NotFoundException("The list of shelfs books does not exist");
-        }
-        shelfsBooks.forEach(shelfsBook -> bookRepository.delete(shelfsBook));
+    public int deleteFromShelves(String bookid) {
+        int removed = bookRepository.deleteByBookID(bookid);
+        meterRegistry.summary(REMOVED_METRIC).record(removed);
+        return removed;
     }
 }
 //5f7a1001caa59177cb3cd96e
\ No newline at end of file
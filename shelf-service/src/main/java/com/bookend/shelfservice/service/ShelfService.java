@@ -7,6 +7,8 @@ import com.bookend.shelfservice.exception.ShelfNotFound;
 import com.bookend.shelfservice.model.Shelf;
 import com.bookend.shelfservice.model.ShelfsBook;
 import com.bookend.shelfservice.payload.ShelfRequest;
+import com.bookend.shelfservice.payload.ShelfSummary;
+import com.bookend.shelfservice.payload.ShelfsBookPage;
 
 import java.util.List;
 /**
@@ -34,5 +36,14 @@ public interface ShelfService {
      * SS-SSC-5 (SM_83)
      */
     List<ShelfsBook> getBooks(Long id) throws ShelfNotFound;
+    /**
+     * SS-SSC-6 (SM_99)
+     */
+    List<ShelfSummary> getShelfSummaries(String username);
+    /**
+     * SS-SSC-7 (SM_100)
+     * Books of the shelf in the order they were added, continuing after {@code cursor} when it is given.
+     */
+    ShelfsBookPage getBooks(Long id, int size, String cursor) throws ShelfNotFound;
 
 }
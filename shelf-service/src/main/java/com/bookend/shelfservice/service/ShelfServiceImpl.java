@@ -8,21 +8,40 @@ import com.bookend.shelfservice.model.Shelf;
 import com.bookend.shelfservice.model.ShelfsBook;
 import com.bookend.shelfservice.model.Tag;
 import com.bookend.shelfservice.payload.ShelfRequest;
+import com.bookend.shelfservice.payload.ShelfSummary;
+import com.bookend.shelfservice.payload.ShelfsBookPage;
+import com.bookend.shelfservice.repository.BookRepository;
 import com.bookend.shelfservice.repository.ShelfRepository;
 import com.bookend.shelfservice.repository.TagRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class ShelfServiceImpl implements ShelfService {
+    private static final int MAX_PAGE_SIZE = 100;
 
     private ShelfRepository shelfRepository;
     private TagRepository tagRepository;
+    private TagService tagService;
+    private BookRepository shelfsBookRepository;
+    @Autowired
+    public void setTagService(TagService tagService) {
+        this.tagService = tagService;
+    }
+    @Autowired
+    public void setShelfsBookRepository(BookRepository shelfsBookRepository) {
+        this.shelfsBookRepository = shelfsBookRepository;
+    }
     @Autowired
     public void setTagRepository(TagRepository tagRepository) {
         this.tagRepository = tagRepository;
@@ -47,28 +66,33 @@ public class ShelfServiceImpl implements ShelfService {
         return shelf;
     }
 
+    /**
+     * Name uniqueness per user is left to the unique key on (username, shelfname), a clash is
+     * reported as {@link AlreadyExists}.
+     */
     @Override
+    @Transactional(rollbackFor = AlreadyExists.class)
     public Shelf saveOrUpdate(ShelfRequest shelfRequest, String username) throws MandatoryFieldException, AlreadyExists {
-        List<Shelf> shelves = shelfRepository.findShelvesByUsername(username);
         if(shelfRequest.getShelfname()==null || shelfRequest.getShelfname() == ""){
             throw new MandatoryFieldException("Shelf name cannot be empty.");
         }
-        if (!shelves.isEmpty()) {
-            if (shelves.stream().anyMatch(s -> s.getShelfname().equalsIgnoreCase(shelfRequest.getShelfname()))) {
-                throw new AlreadyExists("Shelf already exists");
-            }
-
+        Shelf shelf;
+        if (shelfRequest.getTags() == null || shelfRequest.getTags().isEmpty()) {
+            shelf = new Shelf(shelfRequest.getShelfname(),username);
         }
-        if (shelfRequest.getTags().isEmpty()) {
-            return shelfRepository.save(new Shelf(shelfRequest.getShelfname(),username));
-
+        else {
+            // dictionary entries are detached, the shelf only needs references to their ids
+            List<Tag> tags = tagService.findByTagIn(shelfRequest.getTags())
+                    .stream()
+                    .map(t -> tagRepository.getOne(t.getId()))
+                    .collect(Collectors.toList());
+            shelf = new Shelf(shelfRequest.getShelfname(), username, tags);
+        }
+        try {
+            return shelfRepository.saveAndFlush(shelf);
+        } catch (DataIntegrityViolationException e) {
+            throw new AlreadyExists("Shelf already exists");
         }
-        List<Tag> tags = shelfRequest.getTags()
-                .stream()
-                .map(t -> tagRepository.findByTag(t))
-                .collect(Collectors.toList());
-
-        return shelfRepository.save(new Shelf(shelfRequest.getShelfname(), username, tags));
     }
 
 
@@ -94,4 +118,46 @@ public class ShelfServiceImpl implements ShelfService {
 
         return bookIDs;
     }
+
+    @Override
+    public List<ShelfSummary> getShelfSummaries(String username) {
+        List<ShelfSummary> summaries = shelfRepository.findSummariesByUsername(username);
+        if(summaries.isEmpty()){
+            return summaries;
+        }
+        Map<Long,ShelfSummary> byId = summaries.stream()
+                .collect(Collectors.toMap(ShelfSummary::getId, Function.identity()));
+        for(Object[] shelfTag : shelfRepository.findTagNamesByUsername(username)){
+            ShelfSummary summary = byId.get((Long) shelfTag[0]);
+            if(summary != null){
+                summary.getTags().add((String) shelfTag[1]);
+            }
+        }
+        return summaries;
+    }
+
+    @Override
+    public ShelfsBookPage getBooks(Long id, int size, String cursor) throws ShelfNotFound {
+        if(size<1 || size>MAX_PAGE_SIZE){
+            throw new IllegalArgumentException("Size must be between 1 and "+MAX_PAGE_SIZE+".");
+        }
+        if(!shelfRepository.existsById(id)){
+            throw new ShelfNotFound("Shelf does not exist.");
+        }
+        List<ShelfsBook> books;
+        if(cursor != null){
+            Long afterId;
+            try {
+                afterId = Long.valueOf(cursor);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor.");
+            }
+            books = shelfsBookRepository.findByShelf_IdAndIdGreaterThanOrderByIdAsc(id,afterId,PageRequest.of(0,size));
+        }
+        else {
+            books = shelfsBookRepository.findByShelf_IdOrderByIdAsc(id,PageRequest.of(0,size));
+        }
+        String nextCursor = books.size()<size ? null : String.valueOf(books.get(books.size()-1).getId());
+        return new ShelfsBookPage(books,size,nextCursor);
+    }
 }
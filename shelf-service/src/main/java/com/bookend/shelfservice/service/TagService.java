@@ -5,6 +5,7 @@ import com.bookend.shelfservice.exception.TagNotFound;
 import com.bookend.shelfservice.model.Tag;
 import com.bookend.shelfservice.payload.GenreMessage;
 
+import java.util.Collection;
 import java.util.List;
 /**
  * SS-TSC stands for ShelfService-TagServiceClass
@@ -23,4 +24,18 @@ public interface TagService {
      * SS-TSC-3 (SM_86)
      */
     Tag save(GenreMessage msg) throws AlreadyExists;
+    /**
+     * SS-TSC-4 (SM_101)
+     * Resolves tag names, unknown names are skipped.
+     */
+    List<Tag> findByTagIn(Collection<String> tags);
+    /**
+     * SS-TSC-5 (SM_102)
+     */
+    void loadDictionary();
+    /**
+     * SS-TSC-6 (SM_105)
+     * Applies a genre published on adding-genre to the near-cache of this instance.
+     */
+    void refresh(GenreMessage genre);
 }
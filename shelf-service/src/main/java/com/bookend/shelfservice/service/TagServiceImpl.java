@@ -3,17 +3,23 @@ package com.bookend.shelfservice.service;
 import com.bookend.shelfservice.exception.AlreadyExists;
 import com.bookend.shelfservice.exception.ShelfNotFound;
 import com.bookend.shelfservice.exception.TagNotFound;
+import com.bookend.shelfservice.index.TagDictionary;
 import com.bookend.shelfservice.model.Tag;
 import com.bookend.shelfservice.payload.GenreMessage;
 import com.bookend.shelfservice.repository.TagRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 @Service
 public class TagServiceImpl implements TagService {
     private TagRepository tagRepository;
+    private final TagDictionary dictionary = new TagDictionary();
     @Autowired
     public void setTagRepository(TagRepository tagRepository) {
         this.tagRepository = tagRepository;
@@ -23,15 +29,20 @@ public class TagServiceImpl implements TagService {
 
     @Override
     public List<Tag> allTag() {
-        return tagRepository.findAll();
+        return tags().getTags();
     }
 
     @Override
     public Tag findByID(String id) throws TagNotFound {
-        Tag tag = tagRepository.findTagById(id);
+        Tag tag = tags().byId(id);
+        if(tag != null) {
+            return tag;
+        }
+        tag = tagRepository.findTagById(id);
         if(tag == null) {
             throw new TagNotFound("Tag does not exist.");
         }
+        dictionary.put(tag.getId(),tag.getTag());
         return tag;
     }
 
@@ -41,13 +52,56 @@ public class TagServiceImpl implements TagService {
             throw new AlreadyExists("Tag name already exist");
         }
         Tag checkTag = tagRepository.findTagById(newGenre.getId());
+        Tag saved;
         if(checkTag!=null){
             checkTag.setTag(newGenre.getGenre());
-            return tagRepository.save(checkTag);
+            saved = tagRepository.save(checkTag);
         }
         else {
-            return tagRepository.save(new Tag(newGenre.getId(),newGenre.getGenre()));
+            saved = tagRepository.save(new Tag(newGenre.getId(),newGenre.getGenre()));
+        }
+        dictionary.put(saved.getId(),saved.getTag());
+        return saved;
+
+    }
+
+    @Override
+    public List<Tag> findByTagIn(Collection<String> tags) {
+        List<Tag> found = new ArrayList<>(tags.size());
+        List<String> missing = new ArrayList<>();
+        TagDictionary.Snapshot snapshot = tags();
+        for(String name : tags){
+            Tag tag = snapshot.byName(name);
+            if(tag != null){
+                found.add(tag);
+            }
+            else {
+                missing.add(name);
+            }
         }
+        if(!missing.isEmpty()){
+            for(Tag tag : tagRepository.findByTagIn(missing)){
+                found.add(dictionary.put(tag.getId(),tag.getTag()));
+            }
+        }
+        return found;
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadDictionary() {
+        dictionary.load(dictionary.snapshot(),tagRepository.findAll());
+    }
+
+    @Override
+    public void refresh(GenreMessage genre) {
+        if(genre.getId() != null && genre.getGenre() != null){
+            dictionary.put(genre.getId(),genre.getGenre());
+        }
+    }
 
+    private TagDictionary.Snapshot tags() {
+        TagDictionary.Snapshot snapshot = dictionary.snapshot();
+        return snapshot.isLoaded() ? snapshot : dictionary.load(snapshot,tagRepository.findAll());
     }
 }
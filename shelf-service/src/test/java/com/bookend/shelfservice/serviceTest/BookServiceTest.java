@@ -12,13 +12,17 @@ import com.bookend.shelfservice.repository.BookRepository;
 import com.bookend.shelfservice.repository.ShelfRepository;
 import com.bookend.shelfservice.service.BookServiceImpl;
 import com.bookend.shelfservice.service.TagServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -28,6 +32,7 @@ import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -37,6 +42,8 @@ public class BookServiceTest {
     private BookRepository bookRepository;
     @Mock
     private ShelfRepository shelfRepository;
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
     @InjectMocks
     private BookServiceImpl bookService;
 
@@ -64,15 +71,25 @@ public class BookServiceTest {
 
     @Test
     public void failToAddShelfsBookIfBookAlreadyExists(){
-        List<ShelfsBook> books = new ArrayList<>();
         String id = "5";
 
         final Shelf shelf = new Shelf("Recently Read","eda");
         final BookRequest bookRequest = new BookRequest(id, "The Tales");
-        final ShelfsBook shelfsBook = new ShelfsBook(id, "The Fairy Tales",shelf);
-        books.add(shelfsBook);
 
-        given(bookRepository.findShelfsBookByShelf(shelf)).willReturn(books);
+        given(bookRepository.existsByShelfAndBookID(shelf,id)).willReturn(true);
+        assertThrows(AlreadyExists.class,()->{
+            bookService.saveOrUpdate(bookRequest,shelf);
+        });
+        verify(bookRepository,never()).save(any(ShelfsBook.class));
+    }
+
+    @Test
+    public void failToAddShelfsBookIfConcurrentAddWins(){
+        String id = "5";
+        final Shelf shelf = new Shelf("Recently Read","eda");
+        final BookRequest bookRequest = new BookRequest(id, "The Tales");
+        given(bookRepository.existsByShelfAndBookID(shelf,id)).willReturn(false);
+        given(bookRepository.save(any(ShelfsBook.class))).willThrow(new DataIntegrityViolationException("uk_book_shelf_book"));
         assertThrows(AlreadyExists.class,()->{
             bookService.saveOrUpdate(bookRequest,shelf);
         });
@@ -119,23 +136,20 @@ public class BookServiceTest {
         });
     }
     @Test
-    public void shouldDeleteBookFromAllShelves() throws NotFoundException {
-        List<ShelfsBook> shelfsBooks = new ArrayList<>();
-        final Long id = Long.valueOf(5);
-        final Shelf shelf = new Shelf(id,"Recently Read","eda", new ArrayList<Tag>());
-        final ShelfsBook shelfsBook = new ShelfsBook("2", "The Fairy Tales",shelf);
-        shelfsBooks.add(shelfsBook);
-        given(bookRepository.findShelfsBookByBookID("2")).willReturn(shelfsBooks);
-        bookService.deleteFromShelves("2");
-        verify(bookRepository,times(1)).delete(any(ShelfsBook.class));
+    public void shouldDeleteBookFromAllShelves() {
+        given(bookRepository.deleteByBookID("2")).willReturn(3);
+        final int removed = bookService.deleteFromShelves("2");
+        assertEquals(3,removed);
+        verify(bookRepository,never()).delete(any(ShelfsBook.class));
+        assertEquals(3.0,meterRegistry.summary("shelfservice.book.removed.from.shelves").totalAmount(),0.0);
     }
 
     @Test
-    public void failToDeleteBookFromAllShelvesIfBookDoesNotExistInShelves() throws NotFoundException {
-        given(bookRepository.findShelfsBookByBookID("2")).willReturn(null);
-        assertThrows(NotFoundException.class,()->{
-            bookService.deleteFromShelves("2");
-        });
+    public void shouldIgnoreDeletingBookThatIsOnNoShelves() {
+        given(bookRepository.deleteByBookID("2")).willReturn(0);
+        final int removed = bookService.deleteFromShelves("2");
+        assertEquals(0,removed);
+        assertEquals(1,meterRegistry.summary("shelfservice.book.removed.from.shelves").count());
     }
 
 
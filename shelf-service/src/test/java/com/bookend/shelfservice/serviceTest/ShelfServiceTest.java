@@ -8,9 +8,13 @@ import com.bookend.shelfservice.model.Shelf;
 import com.bookend.shelfservice.model.ShelfsBook;
 import com.bookend.shelfservice.model.Tag;
 import com.bookend.shelfservice.payload.ShelfRequest;
+import com.bookend.shelfservice.payload.ShelfSummary;
+import com.bookend.shelfservice.payload.ShelfsBookPage;
+import com.bookend.shelfservice.repository.BookRepository;
 import com.bookend.shelfservice.repository.ShelfRepository;
 import com.bookend.shelfservice.repository.TagRepository;
 import com.bookend.shelfservice.service.ShelfServiceImpl;
+import com.bookend.shelfservice.service.TagService;
 import org.junit.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.runner.RunWith;
@@ -18,9 +22,12 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
@@ -38,6 +45,10 @@ public class ShelfServiceTest {
     private ShelfRepository shelfRepository;
     @Mock
     private TagRepository tagRepository;
+    @Mock
+    private BookRepository shelfsBookRepository;
+    @Mock
+    private TagService tagService;
     @InjectMocks
     private ShelfServiceImpl shelfService;
 
@@ -67,10 +78,11 @@ public class ShelfServiceTest {
         final Shelf shelf = new Shelf("Recently Read","eda");
         List<String> tags = new ArrayList<>();
         final ShelfRequest shelfRequest = new ShelfRequest("Recently Read", tags);
-        given(shelfRepository.save(any(Shelf.class))).willReturn(shelf);
+        given(shelfRepository.saveAndFlush(any(Shelf.class))).willReturn(shelf);
         final Shelf saved = shelfService.saveOrUpdate(shelfRequest, "eda");
         assertNotNull(saved);
-        verify(shelfRepository).save(any(Shelf.class));
+        verify(shelfRepository).saveAndFlush(any(Shelf.class));
+        verify(tagService, never()).findByTagIn(any());
 
     }
 
@@ -80,7 +92,7 @@ public class ShelfServiceTest {
         assertThrows(MandatoryFieldException.class,() -> {
             shelfService.saveOrUpdate(shelfRequest, "eda");
         });
-        verify(shelfRepository, never()).save(any(Shelf.class));
+        verify(shelfRepository, never()).saveAndFlush(any(Shelf.class));
     }
 
 
@@ -89,17 +101,12 @@ public class ShelfServiceTest {
     @Test
     public void failToSaveIfShelfNameAlreadyInUse() throws MandatoryFieldException {
         final String username = "eda";
-        List<Shelf> shelves = new ArrayList<>();
-        final Shelf shelf = new Shelf("Recently Read",username);
-        final Shelf shelf2 = new Shelf("read",username);
-        shelves.add(shelf);
-        shelves.add(shelf2);
         final ShelfRequest shelfRequest = new ShelfRequest("read", new ArrayList<String>());
-        given(shelfRepository.findShelvesByUsername(username)).willReturn(shelves);
+        given(shelfRepository.saveAndFlush(any(Shelf.class)))
+                .willThrow(new DataIntegrityViolationException("uk_shelf_username_shelfname"));
         assertThrows(AlreadyExists.class, ()->{
             shelfService.saveOrUpdate(shelfRequest, username);
         });
-        verify(shelfRepository,never()).save(any(Shelf.class));
     }
 
     @Test
@@ -107,22 +114,18 @@ public class ShelfServiceTest {
         List<String> tagNames = new ArrayList<>();
         tagNames.add("Romantic");
         List<Tag> tags = new ArrayList<>();
-        Tag tag = new Tag("Romantic");
-        given(tagRepository.findByTag("Romantic")).willReturn(tag);
+        Tag tag = new Tag("t1","Romantic");
+        given(tagService.findByTagIn(tagNames)).willReturn(tags);
+        given(tagRepository.getOne("t1")).willReturn(tag);
         tags.add(tag);
         final String username = "eda";
-        List<Shelf> shelves = new ArrayList<>();
-        final Shelf shelf1 = new Shelf("Recently Read",username);
-        final Shelf shelf2 = new Shelf("read",username);
-        shelves.add(shelf1);
-        shelves.add(shelf2);
         final ShelfRequest shelfRequest = new ShelfRequest("To Read",tagNames);
         final Shelf shelf = new Shelf(shelfRequest.getShelfname(),username, tags);
-        given(shelfRepository.save(any(Shelf.class))).willReturn(shelf);
-        given(shelfRepository.findShelvesByUsername(username)).willReturn(shelves);
+        given(shelfRepository.saveAndFlush(any(Shelf.class))).willReturn(shelf);
         final Shelf saved = shelfService.saveOrUpdate(shelfRequest, "eda");
         assertNotNull(saved);
-        verify(shelfRepository).save(any(Shelf.class));
+        verify(shelfRepository).saveAndFlush(any(Shelf.class));
+        verify(shelfRepository, never()).findShelvesByUsername(username);
     }
 
 
@@ -132,15 +135,16 @@ public class ShelfServiceTest {
         List<String> tagNames = new ArrayList<>();
         tagNames.add("Romantic");
         List<Tag> tags = new ArrayList<>();
-        Tag tag = new Tag("Romantic");
-        given(tagRepository.findByTag("Romantic")).willReturn(tag);
+        Tag tag = new Tag("t1","Romantic");
+        given(tagService.findByTagIn(tagNames)).willReturn(tags);
+        given(tagRepository.getOne("t1")).willReturn(tag);
         tags.add(tag);
         final ShelfRequest shelfRequest = new ShelfRequest("To Read",tagNames);
         final Shelf shelf = new Shelf(shelfRequest.getShelfname(),"eda", tags);
-        given(shelfRepository.save(any(Shelf.class))).willReturn(shelf);
+        given(shelfRepository.saveAndFlush(any(Shelf.class))).willReturn(shelf);
         String myString = "this string has been constructed";
         assertDoesNotThrow(() -> shelfService.saveOrUpdate(shelfRequest, "eda"));
-        verify(shelfRepository).save(any(Shelf.class));
+        verify(shelfRepository).saveAndFlush(any(Shelf.class));
 
 
     }
@@ -191,6 +195,44 @@ public class ShelfServiceTest {
         assertEquals(books,expected);
     }
 
+    @Test
+    public void shouldSummariseShelvesWithBookCountAndTags(){
+        final ShelfSummary read = new ShelfSummary(1L,"Read","eda",120L);
+        final ShelfSummary wishlist = new ShelfSummary(2L,"Wishlist","eda",0L);
+        given(shelfRepository.findSummariesByUsername("eda")).willReturn(Arrays.asList(read,wishlist));
+        given(shelfRepository.findTagNamesByUsername("eda")).willReturn(Arrays.asList(
+                new Object[]{1L,"Romantic"},new Object[]{1L,"Classic"}));
+        final List<ShelfSummary> expected = shelfService.getShelfSummaries("eda");
+        assertEquals(Arrays.asList(read,wishlist),expected);
+        assertEquals(Arrays.asList("Romantic","Classic"),read.getTags());
+        assertEquals(0,wishlist.getTags().size());
+    }
+
+    @Test
+    public void shouldReturnPageOfBooksAfterCursor() throws ShelfNotFound {
+        final Shelf shelf = new Shelf(5L,"Read","eda", new ArrayList<>());
+        final ShelfsBook first = new ShelfsBook("a","Oblomov",shelf);
+        first.setId(11L);
+        final ShelfsBook second = new ShelfsBook("b","Madame Bovary",shelf);
+        second.setId(12L);
+        given(shelfRepository.existsById(5L)).willReturn(true);
+        given(shelfsBookRepository.findByShelf_IdOrderByIdAsc(5L,PageRequest.of(0,2))).willReturn(Arrays.asList(first,second));
+        final ShelfsBookPage page = shelfService.getBooks(5L,2,null);
+        assertEquals(Arrays.asList(first,second),page.getBooks());
+        assertEquals("12",page.getNextCursor());
+
+        given(shelfsBookRepository.findByShelf_IdAndIdGreaterThanOrderByIdAsc(5L,12L,PageRequest.of(0,2))).willReturn(new ArrayList<>());
+        final ShelfsBookPage next = shelfService.getBooks(5L,2,page.getNextCursor());
+        assertEquals(0,next.getBooks().size());
+        assertEquals(null,next.getNextCursor());
+    }
 
+    @Test
+    public void failToGetPageOfBooksIfShelfDoesNotExist() {
+        given(shelfRepository.existsById(5L)).willReturn(false);
+        assertThrows(ShelfNotFound.class,()->{
+            shelfService.getBooks(5L,10,null);
+        });
+    }
 
 }
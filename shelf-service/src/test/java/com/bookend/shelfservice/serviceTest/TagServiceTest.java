@@ -20,14 +20,18 @@ import org.mockito.junit.MockitoJUnitRunner;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -105,8 +109,60 @@ public class TagServiceTest {
 
         verify(tagRepository,never()).save(any(Tag.class));
     }
+    @Test
+    public void shouldResolveWarmedTagsWithoutQuery(){
+        final Tag tag = new Tag("dsfdsfd32","Horror");
+        given(tagRepository.findAll()).willReturn(Arrays.asList(tag));
+        tagService.loadDictionary();
+        final List<Tag> expected = tagService.findByTagIn(Arrays.asList("horror"));
+        assertEquals(Arrays.asList(tag),expected);
+        verify(tagRepository,never()).findByTagIn(anyCollection());
+    }
+    @Test
+    public void shouldLookUpOnlyMissingTagsOnce(){
+        final Tag tag = new Tag("dsfdsfd32","Horror");
+        final Tag tag2 = new Tag("dsfdaks56","Thriller");
+        given(tagRepository.findAll()).willReturn(Arrays.asList(tag));
+        given(tagRepository.findByTagIn(Arrays.asList("Thriller","Unknown"))).willReturn(Arrays.asList(tag2));
+        tagService.loadDictionary();
+        assertEquals(Arrays.asList("dsfdsfd32","dsfdaks56"),ids(tagService.findByTagIn(Arrays.asList("Horror","Thriller","Unknown"))));
+        assertEquals(Arrays.asList("dsfdaks56"),ids(tagService.findByTagIn(Arrays.asList("Thriller"))));
+        verify(tagRepository,times(1)).findByTagIn(anyCollection());
+    }
+    @Test
+    public void shouldRefreshDictionaryWhenTagIsRenamed() throws AlreadyExists {
+        final Tag tag = new Tag("dsfdsfd32","horor");
+        given(tagRepository.findAll()).willReturn(new ArrayList<>(Arrays.asList(tag)));
+        tagService.loadDictionary();
+        given(tagRepository.findTagById("dsfdsfd32")).willReturn(tag);
+        given(tagRepository.save(tag)).willReturn(tag);
+        tagService.save(new GenreMessage("dsfdsfd32","Horror"));
+        assertEquals(Arrays.asList("dsfdsfd32"),ids(tagService.findByTagIn(Arrays.asList("Horror"))));
+        given(tagRepository.findByTagIn(Arrays.asList("horor"))).willReturn(new ArrayList<>());
+        assertEquals(new ArrayList<Tag>(),tagService.findByTagIn(Arrays.asList("horor")));
+    }
+    @Test
+    public void shouldServeAllTagsFromTheSameSnapshot(){
+        final Tag tag = new Tag("dsfdsfd32","Horror");
+        given(tagRepository.findAll()).willReturn(Arrays.asList(tag));
+        final List<Tag> first = tagService.allTag();
+        final List<Tag> second = tagService.allTag();
+        assertTrue(first == second);
+        verify(tagRepository,times(1)).findAll();
+    }
+    @Test
+    public void shouldApplyGenreEventToSnapshot() throws TagNotFound {
+        given(tagRepository.findAll()).willReturn(new ArrayList<>());
+        tagService.loadDictionary();
+        tagService.refresh(new GenreMessage("dsfdsfd32","Horror"));
+        assertEquals("Horror",tagService.findByID("dsfdsfd32").getTag());
+        assertEquals(1,tagService.allTag().size());
+        verify(tagRepository,never()).findTagById(any());
+    }
 
-
-
-
+    private static List<String> ids(List<Tag> tags){
+        List<String> ids = new ArrayList<>();
+        tags.forEach(tag -> ids.add(tag.getId()));
+        return ids;
+    }
 }